@@ -1,10 +1,23 @@
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.Comparator;
 import java.util.HashSet;
+import java.util.Iterator;
 import java.util.NoSuchElementException;
 import java.util.Set;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /**
  * Your implementation of an AVL.
+ * <p>
+ * union, intersection and difference move the nodes of their argument into
+ * this tree or drop them, so the argument is left empty afterwards. The one
+ * exception is a tree combined with itself, which just holds the result:
+ * unchanged for union and intersection, and empty for difference.
  *
  * @author Ernest Locke
  * @version 2.1
@@ -15,7 +28,14 @@ import java.util.Set;
  *
  * Resources: Treasure chest.
  */
-public class AVL<T extends Comparable<? super T>> {
+public class AVL<T extends Comparable<? super T>> implements Iterable<T> {
+
+    private static final Metrics.Probe ADD = Metrics.probe("AVL.add");
+    private static final Metrics.Probe REMOVE = Metrics.probe("AVL.remove");
+    private static final Metrics.Probe GET = Metrics.probe("AVL.get");
+    private static final Metrics.Probe CONTAINS = Metrics.probe("AVL.contains");
+    private static final Metrics.Probe ELEMENTS_WITHIN_DISTANCE = Metrics.probe("AVL.elementsWithinDistance");
+    private static final Metrics.Probe ROTATION = Metrics.probe("AVL.rotation");
 
     /*
      * Do not add new instance variables or modify existing ones.
@@ -57,6 +77,77 @@ public class AVL<T extends Comparable<? super T>> {
         }
     }
 
+    /**
+     * Builds a perfectly balanced AVL from data that is already in ascending
+     * order, in O(n) time and without any comparisons beyond the one pass that
+     * checks the order. Equal neighbours are kept only once.
+     * <p>
+     * Use this instead of AVL(Collection) when the data comes out of a sort;
+     * adding it one element at a time would cost O(n log n).
+     *
+     * @param <T>  the type of data in the tree
+     * @param data the sorted data to put in the tree
+     * @return a new AVL holding the data
+     * @throws java.lang.IllegalArgumentException if data or any element in data
+     *                                            is null, or data is not sorted
+     */
+    public static <T extends Comparable<? super T>> AVL<T> fromSorted(Collection<T> data) {
+
+        if (data == null) {
+            throw new IllegalArgumentException("The collection is null.");
+        }
+
+        AVLNode<T>[] nodes = (AVLNode<T>[]) new AVLNode[data.size()];
+        int count = 0;
+
+        for (T element : data) {
+
+            if (element == null) {
+                throw new IllegalArgumentException("The collection contains null data.");
+            }
+
+            if (count > 0) {
+
+                int compare = element.compareTo(nodes[count - 1].getData());
+
+                if (compare < 0) {
+                    throw new IllegalArgumentException("The collection is not sorted.");
+
+                } else if (compare == 0) {
+                    continue;
+                }
+            }
+
+            nodes[count++] = new AVLNode<T>(element);
+        }
+
+        AVL<T> tree = new AVL<T>();
+        tree.root = tree.build(nodes, 0, count - 1);
+        tree.size = count;
+        return tree;
+    }
+
+    /**
+     * Links nodes[low..high] into a balanced subtree around its middle node.
+     * @param nodes the nodes in ascending order
+     * @param low first index, inclusive
+     * @param high last index, inclusive
+     * @return the root of the subtree, null if the range is empty
+     */
+    private AVLNode<T> build(AVLNode<T>[] nodes, int low, int high) {
+
+        if (low > high) {
+            return null;
+        }
+
+        int middle = (low + high) >>> 1;
+        AVLNode<T> node = nodes[middle];
+        node.setLeft(build(nodes, low, middle - 1));
+        node.setRight(build(nodes, middle + 1, high));
+        update(node);
+        return node;
+    }
+
     /**
      * Adds the element to the tree.
      * <p>
@@ -69,6 +160,12 @@ public class AVL<T extends Comparable<? super T>> {
      * Remember to recalculate heights and balance factors while going back
      * up the tree after adding the element, making sure to rebalance if
      * necessary.
+     * <p>
+     * This is done without recursion or a path stack. The walk down remembers
+     * the deepest node with a nonzero balance factor: nothing above it can
+     * change height, and it is the only node that can need a rotation. A
+     * second walk from the root bumps every subtree size on the path and,
+     * below that node, fixes the heights down to the new leaf.
      *
      * @param data the data to add
      * @throws java.lang.IllegalArgumentException if data is null
@@ -79,72 +176,133 @@ public class AVL<T extends Comparable<? super T>> {
             throw new IllegalArgumentException("The data is null.");
         }
 
-        root = rAdd(data, root);
-    }
-
-    /**
-     * Recursively add to the AVL.
-     * @param data data to add
-     * @param node current node to keep track
-     * @return return the current node
-     */
-    private AVLNode<T> rAdd(T data, AVLNode<T> node) {
+        long start = ADD.start();
 
-        if (node == null) {
+        if (root == null) {
+            root = new AVLNode<T>(data);
+            update(root);
             size++;
-            return rotation(new AVLNode<T>(data));
+            ADD.allocations(1);
+            ADD.stop(start);
+            return;
+        }
+
+        AVLNode<T> critical = root;
+        AVLNode<T> criticalParent = null;
+        AVLNode<T> parent = null;
+        AVLNode<T> current = root;
+        int compare = 0;
+        int comparisons = 0;
+
+        while (current != null) {
+
+            compare = data.compareTo(current.getData());
+            comparisons++;
+
+            if (compare == 0) {
+                ADD.comparisons(comparisons);
+                ADD.stop(start);
+                return;
+            }
+
+            if (current.getBalanceFactor() != 0) {
+                critical = current;
+                criticalParent = parent;
+            }
+
+            parent = current;
+            current = compare < 0 ? current.getLeft() : current.getRight();
+        }
+
+        AVLNode<T> leaf = new AVLNode<T>(data);
+        update(leaf);
+        size++;
+
+        if (compare < 0) {
+            parent.setLeft(leaf);
 
         } else {
+            parent.setRight(leaf);
+        }
 
-            int compare = data.compareTo(node.getData());
+        current = root;
+        boolean belowCritical = false;
 
-            if (compare < 0) {
-                node.setLeft(rAdd(data, node.getLeft()));
+        while (current != leaf) {
 
-            } else if (compare > 0) {
-                node.setRight(rAdd(data, node.getRight()));
+            compare = data.compareTo(current.getData());
+            comparisons++;
+
+            current.setSize(current.getSize() + 1);
+
+            if (belowCritical) {
+                current.setHeight(current.getHeight() + 1);
+                current.setBalanceFactor(compare < 0 ? 1 : -1);
             }
+
+            belowCritical |= current == critical;
+            current = compare < 0 ? current.getLeft() : current.getRight();
+        }
+
+        AVLNode<T> balanced = rotation(critical);
+
+        if (criticalParent == null) {
+            root = balanced;
+
+        } else if (criticalParent.getLeft() == critical) {
+            criticalParent.setLeft(balanced);
+
+        } else {
+            criticalParent.setRight(balanced);
         }
 
-        return rotation(node);
+        ADD.comparisons(comparisons);
+        ADD.allocations(1);
+        ADD.stop(start);
     }
 
     /**
      * Performs a left rotation.
+     * @param <T> the type of data in the tree
      * @param node current parent node
      * @return returns new parent node
      */
-    private AVLNode<T> leftRotation(AVLNode<T> node) {
+    private static <T extends Comparable<? super T>> AVLNode<T> leftRotation(AVLNode<T> node) {
 
         AVLNode<T> child = node.getRight();
         node.setRight(child.getLeft());
         child.setLeft(node);
         update(node);
         update(child);
+        ROTATION.rotations(1);
         return child;
     }
 
     /**
      * Performs a right rotation.
+     * @param <T> the type of data in the tree
      * @param node current parent node
      * @return returns new parent node
      */
-    private AVLNode<T> rightRotation(AVLNode<T> node) {
+    private static <T extends Comparable<? super T>> AVLNode<T> rightRotation(AVLNode<T> node) {
 
         AVLNode<T> child = node.getLeft();
         node.setLeft(child.getRight());
         child.setRight(node);
         update(node);
         update(child);
+        ROTATION.rotations(1);
         return child;
     }
 
     /**
-     * Helper method that performs the correction rotation
+     * Helper method that performs the correction rotation. Shared with
+     * PersistentAVL, which hands it freshly copied nodes.
+     * @param <T> the type of data in the tree
      * @param node current parent node
      * @return returns new parent node
      */
-    private AVLNode<T> rotation(AVLNode<T> node) {
+    static <T extends Comparable<? super T>> AVLNode<T> rotation(AVLNode<T> node) {
 
         update(node);
 
@@ -175,13 +333,30 @@ public class AVL<T extends Comparable<? super T>> {
     }
 
     /**
-     * Updates the height and balancefactor.
-     * @param node updates node's height and balancefactor
+     * Updates the height, balancefactor and subtree size.
+     * @param <T> the type of data in the tree
+     * @param node updates node's height, balancefactor and size
      */
-    private void update(AVLNode<T> node) {
+    static <T extends Comparable<? super T>> void update(AVLNode<T> node) {
 
         node.setHeight(1 + Math.max(rHeight(node.getLeft()), rHeight(node.getRight())));
         node.setBalanceFactor(rHeight(node.getLeft()) - rHeight(node.getRight()));
+        node.setSize(1 + rSize(node.getLeft()) + rSize(node.getRight()));
+    }
+
+    /**
+     * Helper method to get subtree size
+     * @param node node to get size
+     * @return returns size of node's subtree, 0 if node is null
+     */
+    private static int rSize(AVLNode<?> node) {
+
+        if (node == null) {
+            return 0;
+
+        } else {
+            return node.getSize();
+        }
     }
 
     /**
@@ -189,7 +364,7 @@ public class AVL<T extends Comparable<? super T>> {
      * @param node node to get height
      * @return returns height of node
      */
-    private int rHeight(AVLNode<T> node) {
+    private static int rHeight(AVLNode<?> node) {
 
         if (node == null) {
             return -1;
@@ -220,6 +395,11 @@ public class AVL<T extends Comparable<? super T>> {
      * was stored in the tree.
      *
      * Hint: Should you use value equality or reference equality?
+     * <p>
+     * This is done without recursion or placeholder nodes. On the way down
+     * each child link followed is pointed back at its parent, and on the way
+     * back up the links are restored while rebalancing. The data is looked up
+     * before any link is touched, so a miss leaves the tree unchanged.
      *
      * @param data the data to remove
      * @return the data that was removed
@@ -232,75 +412,85 @@ public class AVL<T extends Comparable<? super T>> {
             throw new IllegalArgumentException("The data is null.");
         }
 
-        AVLNode<T> dummy = new AVLNode<T>(null);
-        root = rRemove(data, root, dummy);
+        long start = REMOVE.start();
+        AVLNode<T> target = find(data, REMOVE);
 
-        return dummy.getData();
+        if (target == null) {
+            REMOVE.stop(start);
+            throw new NoSuchElementException("Data does not exist.");
+        }
 
-    }
+        T removed = target.getData();
+        AVLNode<T> parent = null;
+        AVLNode<T> current = root;
+        int comparisons = 0;
 
-    /**
-     * Helper method that removes data from the AVL
-     * @param data data to remove from tree
-     * @param node track of current node traversing down the tree
-     * @param dummy dummy node to hold the data that will be returned
-     * @return data that is removed from the AVL
-     */
-    private AVLNode<T> rRemove(T data, AVLNode<T> node, AVLNode<T> dummy) {
+        while (current != target) {
+            AVLNode<T> next;
 
-        if (node == null) {
-            throw new NoSuchElementException("Data does not exist.");
+            if (data.compareTo(current.getData()) < 0) {
+                next = current.getLeft();
+                current.setLeft(parent);
+
+            } else {
+                next = current.getRight();
+                current.setRight(parent);
+            }
+
+            comparisons++;
+            parent = current;
+            current = next;
         }
 
-        int compare = data.compareTo(node.getData());
+        AVLNode<T> subtree;
 
-        if (compare < 0) {
-            node.setLeft(rRemove(data, node.getLeft(), dummy));
+        if (target.getLeft() == null) {
+            subtree = target.getRight();
 
-        } else if (compare > 0) {
-            node.setRight(rRemove(data, node.getRight(), dummy));
+        } else if (target.getRight() == null) {
+            subtree = target.getLeft();
 
         } else {
 
-            dummy.setData(node.getData());
-            size--;
+            current = target.getLeft();
+            target.setLeft(parent);
+            parent = target;
 
-            if ((node.getLeft() == null) && (node.getRight() == null)) {
-                return null;
+            while (current.getRight() != null) {
+                AVLNode<T> next = current.getRight();
+                current.setRight(parent);
+                parent = current;
+                current = next;
+            }
+
+            target.setData(current.getData());
+            subtree = current.getLeft();
+        }
 
-            } else if ((node.getLeft() != null) && (node.getRight() == null)) {
-                return node.getLeft();
+        while (parent != null) {
+            AVLNode<T> up;
 
-            } else if ((node.getLeft() == null) && (node.getRight() != null)) {
-                return node.getRight();
+            if (parent != target && data.compareTo(parent.getData()) > 0) {
+                up = parent.getRight();
+                parent.setRight(subtree);
 
             } else {
-                AVLNode<T> predecessor = new AVLNode<T>(null);
-                node.setLeft(rPredecessor(node.getLeft(), predecessor));
-                node.setData(predecessor.getData());
+                up = parent.getLeft();
+                parent.setLeft(subtree);
             }
 
+            comparisons++;
+            subtree = rotation(parent);
+            parent = up;
         }
 
-        return rotation(node);
-    }
-
-    /**
-     * Predecessor helper method that returns the predecessor
-     * @param node keeps track of the current node
-     * @param predecessor stores the predecessor
-     * @return returns the current node
-     */
-    private AVLNode<T> rPredecessor(AVLNode<T> node, AVLNode<T> predecessor) {
+        root = subtree;
+        size--;
 
-        if (node.getRight() == null) {
-            predecessor.setData(node.getData());
-            return node.getLeft();
+        REMOVE.comparisons(comparisons);
+        REMOVE.stop(start);
 
-        } else {
-            node.setRight(rPredecessor(node.getRight(), predecessor));
-            return rotation(node);
-        }
+        return removed;
     }
 
     /**
@@ -322,33 +512,15 @@ public class AVL<T extends Comparable<? super T>> {
             throw new IllegalArgumentException("The data is null.");
         }
 
-        return rGet(data, root);
-
-    }
-
-    /**
-     * Helper method to recursively call itself until it finds the data.
-     * @param data data to find
-     * @param node node to keep track
-     * @return returns the data got
-     */
-    private T rGet(T data, AVLNode<T> node) {
+        long start = GET.start();
+        AVLNode<T> node = find(data, GET);
+        GET.stop(start);
 
         if (node == null) {
             throw new NoSuchElementException("The data is not in the tree");
         }
 
-        int compare = data.compareTo(node.getData());
-
-        if (compare < 0) {
-            return rGet(data, node.getLeft());
-
-        } else if (compare > 0) {
-            return rGet(data, node.getRight());
-
-        } else {
-            return node.getData();
-        }
+        return node.getData();
     }
 
     /**
@@ -364,166 +536,1073 @@ public class AVL<T extends Comparable<? super T>> {
      */
     public boolean contains(T data) {
 
-        try {
-            get(data);
-            return true;
+        if (data == null) {
+            throw new IllegalArgumentException("The data is null.");
+        }
+
+        long start = CONTAINS.start();
+        boolean found = find(data, CONTAINS) != null;
+        CONTAINS.stop(start);
+
+        return found;
+    }
+
+    /**
+     * Helper method that walks down the tree until it finds the data.
+     * @param data data to find
+     * @param probe probe the comparisons are recorded on
+     * @return the node holding the data, or null if it is not in the tree
+     */
+    private AVLNode<T> find(T data, Metrics.Probe probe) {
+
+        AVLNode<T> node = root;
+        int comparisons = 0;
+
+        while (node != null) {
+
+            int compare = data.compareTo(node.getData());
+            comparisons++;
+
+            if (compare == 0) {
+                break;
+            }
 
-        } catch (NoSuchElementException e) {
-            return false;
+            node = compare < 0 ? node.getLeft() : node.getRight();
         }
+
+        probe.comparisons(comparisons);
+        return node;
     }
+
     /**
-     * Returns the height of the root of the tree.
+     * Returns the smallest element in the tree.
      *
-     * @return the height of the root of the tree, -1 if the tree is empty
+     * @return the smallest element
+     * @throws java.util.NoSuchElementException if the tree is empty
      */
-    public int height() {
+    public T first() {
 
-        return rHeight(root);
-    }
+        if (root == null) {
+            throw new NoSuchElementException("The tree is empty.");
+        }
+
+        AVLNode<T> node = root;
 
+        while (node.getLeft() != null) {
+            node = node.getLeft();
+        }
 
+        return node.getData();
+    }
 
     /**
-     * Clears the tree.
+     * Returns the largest element in the tree.
      *
-     * Clears all data and resets the size.
+     * @return the largest element
+     * @throws java.util.NoSuchElementException if the tree is empty
      */
-    public void clear() {
+    public T last() {
 
-        root = null;
-        size = 0;
+        if (root == null) {
+            throw new NoSuchElementException("The tree is empty.");
+        }
+
+        AVLNode<T> node = root;
+
+        while (node.getRight() != null) {
+            node = node.getRight();
+        }
 
+        return node.getData();
     }
 
     /**
-     * Ex:
-     * Given the following AVL composed of Integers
-     *              50
-     *            /    \
-     *         25      75
-     *        /  \     / \
-     *      13   37  70  80
-     *    /  \    \      \
-     *   12  15    40    85
-     *  /
-     * 10
+     * Returns the largest element less than or equal to data.
      *
-     * elementsWithinDistance(37, 3) should return the set {12, 13, 15, 25,
-     * 37, 40, 50, 75}
-     * elementsWithinDistance(85, 2) should return the set {75, 80, 85}
-     * elementsWithinDistance(13, 1) should return the set {12, 13, 15, 25}
-     *
-     * @param data     the data to begin calculating distance from
-     * @param distance the maximum distance allowed
-     * @return the set of all data within a certain distance from the given data
+     * @param data the data to search around
+     * @return the floor of data, or null if there is none
      * @throws java.lang.IllegalArgumentException if data is null
-     * @throws java.util.NoSuchElementException   is the data is not in the tree
-     * @throws java.lang.IllegalArgumentException if distance is negative
      */
-    public Set<T> elementsWithinDistance(T data, int distance) {
+    public T floor(T data) {
 
-        if (data == null || distance < 0) {
-            throw new IllegalArgumentException("The data is null");
+        if (data == null) {
+            throw new IllegalArgumentException("The data is null.");
         }
 
-        Set<T> set = new HashSet<T>(size);
-        rFind(data, root, 0, distance, set);
+        AVLNode<T> node = root;
+        T best = null;
 
-        return set;
+        while (node != null) {
+
+            int compare = data.compareTo(node.getData());
+
+            if (compare == 0) {
+                return node.getData();
+
+            } else if (compare < 0) {
+                node = node.getLeft();
+
+            } else {
+                best = node.getData();
+                node = node.getRight();
+            }
+        }
+
+        return best;
     }
 
     /**
-     * A helper method that finds the node and add other nodes to the set
-     * @param data data to find
-     * @param current current node to keep track
-     * @param distance current distance away from node
-     * @param maximumDistance maximum distance way from node
-     * @param set set to add data with distance smaller than maximumDistance
-     * @return current distance away from data
+     * Returns the smallest element greater than or equal to data.
+     *
+     * @param data the data to search around
+     * @return the ceiling of data, or null if there is none
+     * @throws java.lang.IllegalArgumentException if data is null
      */
-    private int rFind(T data, AVLNode<T> current, int distance, int maximumDistance, Set<T> set) {
+    public T ceiling(T data) {
 
-        if (current == null) {
-            throw new NoSuchElementException("The data is not in the tree");
+        if (data == null) {
+            throw new IllegalArgumentException("The data is null.");
         }
 
-        int compare = data.compareTo(current.getData());
+        AVLNode<T> node = root;
+        T best = null;
 
-        if (compare < 0) {
-            distance = rFind(data, current.getLeft(), distance, maximumDistance, set);
+        while (node != null) {
 
-            if (distance > 0 && distance <= maximumDistance) {
-                set.add(current.getData());
-                both(current.getRight(), distance + 1, maximumDistance, set);
-            }
+            int compare = data.compareTo(node.getData());
 
-        } else if (compare > 0) {
-            distance = rFind(data, current.getRight(), distance, maximumDistance, set);
+            if (compare == 0) {
+                return node.getData();
 
-            if (distance > 0 && distance <= maximumDistance) {
-                set.add(current.getData());
-                both(current.getLeft(), distance + 1, maximumDistance, set);
+            } else if (compare > 0) {
+                node = node.getRight();
+
+            } else {
+                best = node.getData();
+                node = node.getLeft();
             }
+        }
 
-        } else {
+        return best;
+    }
+
+    /**
+     * Returns the largest element strictly less than data.
+     *
+     * @param data the data to search around
+     * @return the element below data, or null if there is none
+     * @throws java.lang.IllegalArgumentException if data is null
+     */
+    public T lower(T data) {
 
-            set.add(current.getData());
-            both(current.getLeft(), distance + 1, maximumDistance, set);
-            both(current.getRight(), distance + 1, maximumDistance, set);
+        if (data == null) {
+            throw new IllegalArgumentException("The data is null.");
         }
 
-        return distance + 1;
-    }
+        AVLNode<T> node = root;
+        T best = null;
+
+        while (node != null) {
+
+            if (data.compareTo(node.getData()) <= 0) {
+                node = node.getLeft();
 
+            } else {
+                best = node.getData();
+                node = node.getRight();
+            }
+        }
+
+        return best;
+    }
 
     /**
-     * A helper method that adds children that qualify to the set.
-     * @param current current node to keep track
-     * @param distance current distance away from data node
-     * @param maximumDistance maximumDistance that allows data to be added to Set
-     * @param set set to keep track of data added
+     * Returns the smallest element strictly greater than data.
+     *
+     * @param data the data to search around
+     * @return the element above data, or null if there is none
+     * @throws java.lang.IllegalArgumentException if data is null
      */
-    private void both(AVLNode<T> current, int distance, int maximumDistance, Set<T> set) {
+    public T higher(T data) {
 
-        if (current == null) {
-            return;
+        if (data == null) {
+            throw new IllegalArgumentException("The data is null.");
+        }
 
-        } else {
+        AVLNode<T> node = root;
+        T best = null;
 
-            if (distance <= maximumDistance) {
+        while (node != null) {
 
-                set.add(current.getData());
-                both(current.getRight(), distance + 1, maximumDistance, set);
-                both(current.getLeft(), distance + 1, maximumDistance, set);
+            if (data.compareTo(node.getData()) >= 0) {
+                node = node.getRight();
 
+            } else {
+                best = node.getData();
+                node = node.getLeft();
             }
         }
+
+        return best;
     }
 
     /**
-     * Returns the root of the tree.
-     *
-     * For grading purposes only. You shouldn't need to use this method since
-     * you have direct access to the variable.
+     * Returns the number of elements in the tree strictly less than data.
+     * data does not have to be in the tree.
      *
-     * @return the root of the tree
+     * @param data the data to rank
+     * @return the rank of data, from 0 to size
+     * @throws java.lang.IllegalArgumentException if data is null
      */
-    public AVLNode<T> getRoot() {
-        // DO NOT MODIFY THIS METHOD!
-        return root;
+    public int rank(T data) {
+
+        if (data == null) {
+            throw new IllegalArgumentException("The data is null.");
+        }
+
+        AVLNode<T> node = root;
+        int rank = 0;
+
+        while (node != null) {
+
+            int compare = data.compareTo(node.getData());
+
+            if (compare < 0) {
+                node = node.getLeft();
+
+            } else if (compare > 0) {
+                rank += rSize(node.getLeft()) + 1;
+                node = node.getRight();
+
+            } else {
+                return rank + rSize(node.getLeft());
+            }
+        }
+
+        return rank;
     }
 
     /**
-     * Returns the size of the tree.
-     *
-     * For grading purposes only. You shouldn't need to use this method since
-     * you have direct access to the variable.
+     * Returns the element with the given rank, i.e. the (index + 1)th
+     * smallest element.
      *
-     * @return the size of the tree
+     * @param index the rank of the element, from 0 to size - 1
+     * @return the element with that rank
+     * @throws java.lang.IllegalArgumentException if index is not in the range
+     *                                            of 0 to size - 1
      */
-    public int size() {
-        // DO NOT MODIFY THIS METHOD!
-        return size;
+    public T select(int index) {
+
+        if (index < 0 || index >= size) {
+            throw new IllegalArgumentException("The index is not in the acceptable range.");
+        }
+
+        AVLNode<T> node = root;
+
+        while (true) {
+
+            int leftSize = rSize(node.getLeft());
+
+            if (index < leftSize) {
+                node = node.getLeft();
+
+            } else if (index > leftSize) {
+                index -= leftSize + 1;
+                node = node.getRight();
+
+            } else {
+                return node.getData();
+            }
+        }
+    }
+
+    /**
+     * Returns a lazy view of the elements from low (inclusive) to high
+     * (exclusive), in order.
+     * <p>
+     * Starting an iteration costs O(log n) and each element after that O(1)
+     * amortized, so reading k elements is O(log n + k). Nothing is copied; the
+     * iterator walks the tree with an explicit stack no deeper than the tree.
+     * The tree must not be modified while an iteration is in progress.
+     *
+     * @param low  the smallest element to include
+     * @param high the element to stop before
+     * @return the elements in [low, high)
+     * @throws java.lang.IllegalArgumentException if low or high is null
+     */
+    public Iterable<T> subSet(T low, T high) {
+
+        if (low == null || high == null) {
+            throw new IllegalArgumentException("The low or high bound is null.");
+        }
+
+        return () -> new InOrderIterator(low, high);
+    }
+
+    /**
+     * Returns an iterator over the tree in order. It keeps the path to the
+     * next node on an array stack no deeper than the tree and allocates
+     * nothing per element. The tree must not be modified while an iteration
+     * is in progress.
+     *
+     * @return an in-order iterator
+     */
+    @Override
+    public Iterator<T> iterator() {
+
+        return new InOrderIterator(null, null);
+    }
+
+    /**
+     * Returns a Spliterator over the tree in order.
+     * <p>
+     * It knows its exact size from the subtree sizes, and it splits at
+     * subtree boundaries into two halves of about the same size, so a
+     * parallel stream divides the work evenly across the common pool. The
+     * tree must not be modified while it is in use.
+     *
+     * @return an in-order spliterator
+     */
+    @Override
+    public Spliterator<T> spliterator() {
+
+        return new TreeSpliterator(root);
+    }
+
+    /**
+     * Returns a sequential stream of the tree in order. Call parallel() on
+     * it for a parallel one.
+     *
+     * @return a stream of the tree's elements
+     */
+    public Stream<T> stream() {
+
+        return StreamSupport.stream(spliterator(), false);
+    }
+
+    /**
+     * Adds every element of other to this tree.
+     * <p>
+     * The trees are merged with split and join instead of one add per
+     * element, so this takes O(m log(n / m + 1)) time, where m is the size of
+     * the smaller tree and n that of the larger. The nodes of other are moved
+     * into this tree, so other is left empty, unless other is this tree, which
+     * is then left unchanged.
+     *
+     * @param other the tree to merge in
+     * @throws java.lang.IllegalArgumentException if other is null
+     */
+    public void union(AVL<T> other) {
+
+        if (other == null) {
+            throw new IllegalArgumentException("The other tree is null.");
+        }
+
+        if (other == this) {
+            return;
+        }
+
+        root = union(root, other.root, new Split());
+        size = rSize(root);
+        other.clear();
+    }
+
+    /**
+     * Removes every element of this tree that is not in other, in
+     * O(m log(n / m + 1)) time. other is left empty, unless other is this
+     * tree, which is then left unchanged.
+     *
+     * @param other the tree to intersect with
+     * @throws java.lang.IllegalArgumentException if other is null
+     */
+    public void intersection(AVL<T> other) {
+
+        if (other == null) {
+            throw new IllegalArgumentException("The other tree is null.");
+        }
+
+        if (other == this) {
+            return;
+        }
+
+        root = intersection(root, other.root, new Split());
+        size = rSize(root);
+        other.clear();
+    }
+
+    /**
+     * Removes every element of other from this tree, in
+     * O(m log(n / m + 1)) time. other is left empty; if other is this tree,
+     * that is also the result.
+     *
+     * @param other the tree holding the elements to remove
+     * @throws java.lang.IllegalArgumentException if other is null
+     */
+    public void difference(AVL<T> other) {
+
+        if (other == null) {
+            throw new IllegalArgumentException("The other tree is null.");
+        }
+
+        if (other == this) {
+            clear();
+            return;
+        }
+
+        root = difference(root, other.root, new Split());
+        size = rSize(root);
+        other.clear();
+    }
+
+    /**
+     * Helper method for union.
+     * @param first root of the first tree
+     * @param second root of the second tree
+     * @param split scratch space for split
+     * @return root of the union
+     */
+    private AVLNode<T> union(AVLNode<T> first, AVLNode<T> second, Split split) {
+
+        if (first == null) {
+            return second;
+
+        } else if (second == null) {
+            return first;
+        }
+
+        AVLNode<T> left = first.getLeft();
+        AVLNode<T> right = first.getRight();
+        split(second, first.getData(), split);
+        AVLNode<T> secondRight = split.right;
+        AVLNode<T> newLeft = union(left, split.left, split);
+        return join(newLeft, first, union(right, secondRight, split));
+    }
+
+    /**
+     * Helper method for intersection.
+     * @param first root of the first tree
+     * @param second root of the second tree
+     * @param split scratch space for split
+     * @return root of the intersection
+     */
+    private AVLNode<T> intersection(AVLNode<T> first, AVLNode<T> second, Split split) {
+
+        if (first == null || second == null) {
+            return null;
+        }
+
+        AVLNode<T> left = first.getLeft();
+        AVLNode<T> right = first.getRight();
+        split(second, first.getData(), split);
+        AVLNode<T> secondRight = split.right;
+        boolean found = split.found != null;
+        AVLNode<T> newLeft = intersection(left, split.left, split);
+        AVLNode<T> newRight = intersection(right, secondRight, split);
+
+        if (found) {
+            return join(newLeft, first, newRight);
+
+        } else {
+            return join(newLeft, newRight, split);
+        }
+    }
+
+    /**
+     * Helper method for difference.
+     * @param first root of the tree to remove from
+     * @param second root of the tree holding the elements to remove
+     * @param split scratch space for split
+     * @return root of the difference
+     */
+    private AVLNode<T> difference(AVLNode<T> first, AVLNode<T> second, Split split) {
+
+        if (first == null || second == null) {
+            return first;
+        }
+
+        AVLNode<T> left = second.getLeft();
+        AVLNode<T> right = second.getRight();
+        split(first, second.getData(), split);
+        AVLNode<T> firstRight = split.right;
+        AVLNode<T> newLeft = difference(split.left, left, split);
+        return join(newLeft, difference(firstRight, right, split), split);
+    }
+
+    /**
+     * Joins two trees and a middle node, where everything in left is less
+     * than middle and everything in right is greater. Descends the taller
+     * tree's spine to a subtree of matching height, hangs middle there, and
+     * rebalances on the way back up, in O(|height(left) - height(right)|).
+     * @param left root of the smaller elements
+     * @param middle node to put between them, its children are overwritten
+     * @param right root of the greater elements
+     * @return root of the joined tree
+     */
+    private AVLNode<T> join(AVLNode<T> left, AVLNode<T> middle, AVLNode<T> right) {
+
+        if (rHeight(left) > rHeight(right) + 1) {
+            left.setRight(join(left.getRight(), middle, right));
+            return rotation(left);
+
+        } else if (rHeight(right) > rHeight(left) + 1) {
+            right.setLeft(join(left, middle, right.getLeft()));
+            return rotation(right);
+
+        } else {
+            middle.setLeft(left);
+            middle.setRight(right);
+            update(middle);
+            return middle;
+        }
+    }
+
+    /**
+     * Joins two trees where everything in left is less than everything in
+     * right, using the largest node of left as the middle.
+     * @param left root of the smaller elements
+     * @param right root of the greater elements
+     * @param split scratch space for splitLast
+     * @return root of the joined tree
+     */
+    private AVLNode<T> join(AVLNode<T> left, AVLNode<T> right, Split split) {
+
+        if (left == null) {
+            return right;
+        }
+
+        splitLast(left, split);
+        return join(split.left, split.found, right);
+    }
+
+    /**
+     * Splits a tree around data into the elements less than it (split.left),
+     * the node equal to it if there is one (split.found) and the elements
+     * greater than it (split.right).
+     * @param node root of the tree to split
+     * @param data the data to split around
+     * @param split where the three parts are written
+     */
+    private void split(AVLNode<T> node, T data, Split split) {
+
+        if (node == null) {
+            split.left = null;
+            split.found = null;
+            split.right = null;
+            return;
+        }
+
+        AVLNode<T> left = node.getLeft();
+        AVLNode<T> right = node.getRight();
+        int compare = data.compareTo(node.getData());
+
+        if (compare == 0) {
+            split.left = left;
+            split.found = node;
+            split.right = right;
+
+        } else if (compare < 0) {
+            split(left, data, split);
+            split.right = join(split.right, node, right);
+
+        } else {
+            split(right, data, split);
+            split.left = join(left, node, split.left);
+        }
+    }
+
+    /**
+     * Splits the largest node (split.found) off a non-empty tree, leaving the
+     * rest in split.left.
+     * @param node root of the tree
+     * @param split where the two parts are written
+     */
+    private void splitLast(AVLNode<T> node, Split split) {
+
+        AVLNode<T> left = node.getLeft();
+        AVLNode<T> right = node.getRight();
+
+        if (right == null) {
+            split.left = left;
+            split.found = node;
+
+        } else {
+            splitLast(right, split);
+            split.left = join(left, node, split.left);
+        }
+    }
+
+    /**
+     * Returns the height of the root of the tree.
+     *
+     * @return the height of the root of the tree, -1 if the tree is empty
+     */
+    public int height() {
+
+        return rHeight(root);
+    }
+
+
+
+    /**
+     * Clears the tree.
+     *
+     * Clears all data and resets the size.
+     */
+    public void clear() {
+
+        root = null;
+        size = 0;
+
+    }
+
+    /**
+     * Ex:
+     * Given the following AVL composed of Integers
+     *              50
+     *            /    \
+     *         25      75
+     *        /  \     / \
+     *      13   37  70  80
+     *    /  \    \      \
+     *   12  15    40    85
+     *  /
+     * 10
+     *
+     * elementsWithinDistance(37, 3) should return the set {12, 13, 15, 25,
+     * 37, 40, 50, 75}
+     * elementsWithinDistance(85, 2) should return the set {75, 80, 85}
+     * elementsWithinDistance(13, 1) should return the set {12, 13, 15, 25}
+     *
+     * The tree is walked without recursion, and the set is sized for the
+     * neighbourhood rather than the tree: every node has at most three
+     * neighbours, so at most 3 * 2^d - 2 nodes are within distance d.
+     *
+     * @param data     the data to begin calculating distance from
+     * @param distance the maximum distance allowed
+     * @return the set of all data within a certain distance from the given data
+     * @throws java.lang.IllegalArgumentException if data is null
+     * @throws java.util.NoSuchElementException   is the data is not in the tree
+     * @throws java.lang.IllegalArgumentException if distance is negative
+     */
+    public Set<T> elementsWithinDistance(T data, int distance) {
+
+        long start = ELEMENTS_WITHIN_DISTANCE.start();
+        Iterator<T> neighbours = new NeighbourhoodIterator(data, distance);
+
+        long bound = distance >= 30 ? size : Math.min(size, 3L * (1L << distance) - 2);
+        Set<T> set = new HashSet<T>((int) (bound / .75f) + 1);
+        ELEMENTS_WITHIN_DISTANCE.allocations(1);
+        neighbours.forEachRemaining(set::add);
+        ELEMENTS_WITHIN_DISTANCE.stop(start);
+
+        return set;
+    }
+
+    /**
+     * Passes every element within distance of data to action, like
+     * elementsWithinDistance but without building a set. Elements come in
+     * no particular order and each one once.
+     *
+     * @param data     the data to begin calculating distance from
+     * @param distance the maximum distance allowed
+     * @param action   what to do with each element
+     * @throws java.lang.IllegalArgumentException if data or action is null,
+     *                                            or distance is negative
+     * @throws java.util.NoSuchElementException   if the data is not in the tree
+     */
+    public void forEachWithinDistance(T data, int distance, Consumer<? super T> action) {
+
+        if (action == null) {
+            throw new IllegalArgumentException("The action is null.");
+        }
+
+        new NeighbourhoodIterator(data, distance).forEachRemaining(action);
+    }
+
+    /**
+     * Returns a lazy Spliterator over every element within distance of data,
+     * for use with StreamSupport.stream. Elements are found only as they are
+     * consumed, so a short-circuiting stream stops the walk early. The tree
+     * must not be modified while it is in use.
+     *
+     * @param data     the data to begin calculating distance from
+     * @param distance the maximum distance allowed
+     * @return the spliterator
+     * @throws java.lang.IllegalArgumentException if data is null or distance
+     *                                            is negative
+     * @throws java.util.NoSuchElementException   if the data is not in the tree
+     */
+    public Spliterator<T> spliteratorWithinDistance(T data, int distance) {
+
+        return Spliterators.spliteratorUnknownSize(new NeighbourhoodIterator(data, distance),
+                Spliterator.DISTINCT | Spliterator.NONNULL);
+    }
+
+    /**
+     * Returns the root of the tree.
+     *
+     * For grading purposes only. You shouldn't need to use this method since
+     * you have direct access to the variable.
+     *
+     * @return the root of the tree
+     */
+    public AVLNode<T> getRoot() {
+        // DO NOT MODIFY THIS METHOD!
+        return root;
+    }
+
+    /**
+     * Returns the size of the tree.
+     *
+     * For grading purposes only. You shouldn't need to use this method since
+     * you have direct access to the variable.
+     *
+     * @return the size of the tree
+     */
+    public int size() {
+        // DO NOT MODIFY THIS METHOD!
+        return size;
+    }
+
+    /**
+     * In-order iterator over [low, high) that keeps the path to the next node
+     * on an array stack. A null bound means unbounded.
+     */
+    private class InOrderIterator implements Iterator<T> {
+
+        private final T high;
+        private final AVLNode<T>[] stack;
+        private int top;
+
+        /**
+         * Creates an iterator positioned at the first element not below low.
+         * @param low smallest element to include, or null
+         * @param high element to stop before, or null
+         */
+        InOrderIterator(T low, T high) {
+
+            this.high = high;
+            this.stack = (AVLNode<T>[]) new AVLNode[rHeight(root) + 1];
+
+            AVLNode<T> node = root;
+
+            while (node != null) {
+
+                if (low != null && low.compareTo(node.getData()) > 0) {
+                    node = node.getRight();
+
+                } else {
+                    stack[top++] = node;
+                    node = node.getLeft();
+                }
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+
+            return top > 0 && (high == null || high.compareTo(stack[top - 1].getData()) > 0);
+        }
+
+        @Override
+        public T next() {
+
+            if (!hasNext()) {
+                throw new NoSuchElementException("There are no more elements.");
+            }
+
+            AVLNode<T> node = stack[--top];
+            T data = node.getData();
+
+            for (node = node.getRight(); node != null; node = node.getLeft()) {
+                stack[top++] = node;
+            }
+
+            return data;
+        }
+    }
+
+    /**
+     * The parts produced by split and splitLast. One instance is shared by a
+     * whole set operation, so callers copy out what they need before
+     * splitting again.
+     */
+    private class Split {
+
+        private AVLNode<T> left;
+        private AVLNode<T> found;
+        private AVLNode<T> right;
+    }
+
+    /**
+     * Iterator over the elements within a distance of some data. It first
+     * walks down the subtree of the data's node, then climbs the remembered
+     * path one ancestor at a time, yielding the ancestor and walking down its
+     * other subtree with what is left of the distance. Pending subtrees are
+     * kept on array stacks, so nothing is allocated per element.
+     */
+    private class NeighbourhoodIterator implements Iterator<T> {
+
+        private final AVLNode<T>[] path;
+        private final int depth;
+        private final int distance;
+        private final AVLNode<T>[] stack;
+        private final int[] budgets;
+        private int top;
+        private int up = 1;
+
+        /**
+         * Finds the data and gets ready to walk its neighbourhood.
+         * @param data the data to begin calculating distance from
+         * @param distance the maximum distance allowed
+         */
+        NeighbourhoodIterator(T data, int distance) {
+
+            if (data == null || distance < 0) {
+                throw new IllegalArgumentException("The data is null or the distance is negative.");
+            }
+
+            this.distance = distance;
+            this.path = (AVLNode<T>[]) new AVLNode[rHeight(root) + 1];
+
+            AVLNode<T> node = root;
+            int length = 0;
+
+            while (node != null) {
+
+                path[length++] = node;
+                int compare = data.compareTo(node.getData());
+                ELEMENTS_WITHIN_DISTANCE.comparisons(1);
+
+                if (compare == 0) {
+                    break;
+                }
+
+                node = compare < 0 ? node.getLeft() : node.getRight();
+            }
+
+            if (node == null) {
+                throw new NoSuchElementException("The data is not in the tree");
+            }
+
+            this.depth = length - 1;
+            this.stack = (AVLNode<T>[]) new AVLNode[Math.min(distance, rHeight(root)) + 2];
+            this.budgets = new int[stack.length];
+            push(node, distance);
+        }
+
+        /**
+         * Queues a subtree to be walked down to the given depth.
+         * @param node root of the subtree, may be null
+         * @param budget how many edges below node to go
+         */
+        private void push(AVLNode<T> node, int budget) {
+
+            if (node != null && budget >= 0) {
+                stack[top] = node;
+                budgets[top++] = budget;
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+
+            return top > 0 || (up <= distance && up <= depth);
+        }
+
+        @Override
+        public T next() {
+
+            if (top > 0) {
+
+                AVLNode<T> node = stack[--top];
+                int budget = budgets[top];
+                push(node.getRight(), budget - 1);
+                push(node.getLeft(), budget - 1);
+                return node.getData();
+            }
+
+            if (up > distance || up > depth) {
+                throw new NoSuchElementException("There are no more elements.");
+            }
+
+            AVLNode<T> ancestor = path[depth - up];
+            AVLNode<T> from = path[depth - up + 1];
+            push(ancestor.getLeft() == from ? ancestor.getRight() : ancestor.getLeft(), distance - up - 1);
+            up++;
+            return ancestor.getData();
+        }
+    }
+
+    /**
+     * In-order Spliterator over a run of whole subtrees and single nodes.
+     * <p>
+     * Until it starts traversing, it holds a short list of parts in order,
+     * each either a whole subtree or a single node. trySplit breaks a lone
+     * subtree into its left subtree, its root and its right subtree, and then
+     * hands the caller the leading parts that come closest to half of the
+     * elements. Once traversal starts, it walks the parts with an array
+     * stack, like InOrderIterator, and no longer splits.
+     */
+    private class TreeSpliterator implements Spliterator<T> {
+
+        private AVLNode<T>[] parts;
+        private boolean[] whole;
+        private int count;
+        private long remaining;
+
+        private AVLNode<T>[] stack;
+        private int top;
+        private int next;
+
+        /**
+         * Creates a spliterator over a whole subtree.
+         * @param node root of the subtree, may be null
+         */
+        TreeSpliterator(AVLNode<T> node) {
+
+            this.parts = (AVLNode<T>[]) new AVLNode[] {node};
+            this.whole = new boolean[] {true};
+            this.count = node == null ? 0 : 1;
+            this.remaining = rSize(node);
+        }
+
+        /**
+         * Creates a spliterator over some parts.
+         * @param parts the parts in order
+         * @param whole which parts are whole subtrees
+         * @param count number of parts
+         * @param remaining number of elements in the parts
+         */
+        TreeSpliterator(AVLNode<T>[] parts, boolean[] whole, int count, long remaining) {
+
+            this.parts = parts;
+            this.whole = whole;
+            this.count = count;
+            this.remaining = remaining;
+        }
+
+        @Override
+        public Spliterator<T> trySplit() {
+
+            if (stack != null || remaining < 2) {
+                return null;
+            }
+
+            if (count == 1 && whole[0]) {
+
+                AVLNode<T> node = parts[0];
+                parts = (AVLNode<T>[]) new AVLNode[3];
+                whole = new boolean[3];
+                count = 0;
+                add(node.getLeft(), true);
+                add(node, false);
+                add(node.getRight(), true);
+            }
+
+            int split = 0;
+            long prefix = 0;
+
+            while (split < count - 1 && prefix + weight(split) / 2 < remaining / 2) {
+                prefix += weight(split++);
+            }
+
+            if (split == 0) {
+                split = 1;
+                prefix = weight(0);
+            }
+
+            AVLNode<T>[] leading = Arrays.copyOfRange(parts, 0, split);
+            boolean[] leadingWhole = Arrays.copyOfRange(whole, 0, split);
+
+            System.arraycopy(parts, split, parts, 0, count - split);
+            System.arraycopy(whole, split, whole, 0, count - split);
+            count -= split;
+            remaining -= prefix;
+
+            return new TreeSpliterator(leading, leadingWhole, split, prefix);
+        }
+
+        /**
+         * Appends a part if it is not empty.
+         * @param node the part
+         * @param subtree whether it is a whole subtree or a single node
+         */
+        private void add(AVLNode<T> node, boolean subtree) {
+
+            if (node != null) {
+                parts[count] = node;
+                whole[count++] = subtree;
+            }
+        }
+
+        /**
+         * Returns the number of elements in a part.
+         * @param part index of the part
+         * @return its element count
+         */
+        private long weight(int part) {
+
+            return whole[part] ? rSize(parts[part]) : 1;
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super T> action) {
+
+            if (action == null) {
+                throw new NullPointerException("The action is null.");
+            }
+
+            if (stack == null) {
+                stack = (AVLNode<T>[]) new AVLNode[rHeight(root) + 1];
+            }
+
+            while (top == 0) {
+
+                if (next == count) {
+                    return false;
+                }
+
+                AVLNode<T> part = parts[next];
+
+                if (!whole[next++]) {
+                    remaining--;
+                    action.accept(part.getData());
+                    return true;
+                }
+
+                for (AVLNode<T> node = part; node != null; node = node.getLeft()) {
+                    stack[top++] = node;
+                }
+            }
+
+            AVLNode<T> node = stack[--top];
+
+            for (AVLNode<T> child = node.getRight(); child != null; child = child.getLeft()) {
+                stack[top++] = child;
+            }
+
+            remaining--;
+            action.accept(node.getData());
+            return true;
+        }
+
+        @Override
+        public long estimateSize() {
+
+            return remaining;
+        }
+
+        @Override
+        public int characteristics() {
+
+            return ORDERED | SORTED | DISTINCT | NONNULL | SIZED | SUBSIZED;
+        }
+
+        @Override
+        public Comparator<? super T> getComparator() {
+
+            return null;
+        }
     }
 }
@@ -0,0 +1,142 @@
+/**
+ * Node class used for implementing the AVL.
+ * <p>
+ * Besides its height and balance factor, every node keeps the size of its
+ * subtree, which the AVL keeps up to date in update() so that rank and
+ * select run in O(log n).
+ *
+ * @author CS 1332 TAs
+ * @version 1.1
+ * @param <T> the type of data stored in the node
+ */
+public class AVLNode<T extends Comparable<? super T>> {
+
+    private T data;
+    private AVLNode<T> left;
+    private AVLNode<T> right;
+    private int height;
+    private int balanceFactor;
+    private int size = 1;
+
+    /**
+     * Create an AVLNode with the given data.
+     *
+     * @param data the data stored in the new node
+     */
+    public AVLNode(T data) {
+        this.data = data;
+    }
+
+    /**
+     * Gets the data.
+     *
+     * @return the data
+     */
+    public T getData() {
+        return data;
+    }
+
+    /**
+     * Gets the left child.
+     *
+     * @return the left child
+     */
+    public AVLNode<T> getLeft() {
+        return left;
+    }
+
+    /**
+     * Gets the right child.
+     *
+     * @return the right child
+     */
+    public AVLNode<T> getRight() {
+        return right;
+    }
+
+    /**
+     * Gets the height.
+     *
+     * @return the height
+     */
+    public int getHeight() {
+        return height;
+    }
+
+    /**
+     * Gets the balance factor.
+     *
+     * @return the balance factor
+     */
+    public int getBalanceFactor() {
+        return balanceFactor;
+    }
+
+    /**
+     * Gets the number of nodes in the subtree rooted at this node.
+     *
+     * @return the subtree size
+     */
+    public int getSize() {
+        return size;
+    }
+
+    /**
+     * Sets the data.
+     *
+     * @param data the new data
+     */
+    public void setData(T data) {
+        this.data = data;
+    }
+
+    /**
+     * Sets the left child.
+     *
+     * @param left the new left child
+     */
+    public void setLeft(AVLNode<T> left) {
+        this.left = left;
+    }
+
+    /**
+     * Sets the right child.
+     *
+     * @param right the new right child
+     */
+    public void setRight(AVLNode<T> right) {
+        this.right = right;
+    }
+
+    /**
+     * Sets the height.
+     *
+     * @param height the new height
+     */
+    public void setHeight(int height) {
+        this.height = height;
+    }
+
+    /**
+     * Sets the balance factor.
+     *
+     * @param balanceFactor the new balance factor
+     */
+    public void setBalanceFactor(int balanceFactor) {
+        this.balanceFactor = balanceFactor;
+    }
+
+    /**
+     * Sets the number of nodes in the subtree rooted at this node.
+     *
+     * @param size the new subtree size
+     */
+    public void setSize(int size) {
+        this.size = size;
+    }
+
+    @Override
+    public String toString() {
+        return "Node containing: " + data;
+    }
+}
@@ -0,0 +1,261 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compressed sparse row (CSR) copy of a Graph, for the int-id overloads in
+ * GraphAlgorithms.
+ * <p>
+ * Vertices are numbered 0 to vertexCount() - 1 in the order the graph's
+ * vertex set iterates them. The edges leaving vertex v are
+ * targets[offsets[v]] to targets[offsets[v + 1] - 1], with the matching
+ * weights, in the same order as v's adjacency list, so searches over the
+ * copy visit neighbours in the same order as searches over the graph. The
+ * whole edge set is three int arrays: 12 bytes an edge and 4 a vertex,
+ * against an entry, a list slot and a VertexDistance an edge in the
+ * adjacency map, and a neighbour visit is an array read instead of a hash
+ * lookup.
+ * <p>
+ * The copy does not follow later changes to the graph.
+ *
+ * @author Nicholas Watney Meyer
+ * @version 1.0
+ * @param <T> the generic typing of the data
+ */
+public class CSRGraph<T> {
+
+    private final List<Vertex<T>> vertices;
+    private final Map<Vertex<T>, Integer> ids;
+    private final int[] offsets;
+    private final int[] targets;
+    private final int[] weights;
+    private CSRGraph<T> reverse;
+
+    /**
+     * Builds the CSR copy of graph.
+     *
+     * @param graph the graph to copy
+     * @throws java.lang.IllegalArgumentException if graph is null, has an
+     *                                            edge to a vertex outside
+     *                                            its vertex set or has too
+     *                                            many edges for an int array
+     */
+    public CSRGraph(Graph<T> graph) {
+
+        if (graph == null) {
+            throw new IllegalArgumentException("The graph is null.");
+        }
+
+        vertices = new ArrayList<Vertex<T>>(graph.getVertices());
+        ids = new HashMap<Vertex<T>, Integer>(vertices.size() * 4 / 3 + 1);
+        offsets = new int[vertices.size() + 1];
+
+        Map<Vertex<T>, List<VertexDistance<T>>> adjList = graph.getAdjList();
+        long edges = 0;
+
+        for (int v = 0; v < vertices.size(); v++) {
+
+            ids.put(vertices.get(v), v);
+            List<VertexDistance<T>> neighbours = adjList.get(vertices.get(v));
+            edges += neighbours == null ? 0 : neighbours.size();
+
+            if (edges > Integer.MAX_VALUE - 8) {
+                throw new IllegalArgumentException("The graph has too many edges.");
+            }
+
+            offsets[v + 1] = (int) edges;
+        }
+
+        targets = new int[(int) edges];
+        weights = new int[(int) edges];
+
+        for (int v = 0; v < vertices.size(); v++) {
+
+            List<VertexDistance<T>> neighbours = adjList.get(vertices.get(v));
+
+            if (neighbours == null) {
+                continue;
+            }
+
+            int edge = offsets[v];
+
+            for (VertexDistance<T> neighbour : neighbours) {
+
+                Integer target = ids.get(neighbour.getVertex());
+
+                if (target == null) {
+                    throw new IllegalArgumentException("The graph has an edge to a vertex it does not contain.");
+                }
+
+                targets[edge] = target;
+                weights[edge++] = neighbour.getDistance();
+            }
+        }
+    }
+
+    /**
+     * Wraps arrays that are already in CSR form.
+     * @param vertices the vertices by id
+     * @param ids the ids by vertex
+     * @param offsets start of each vertex's edges, plus the end
+     * @param targets edge targets
+     * @param weights edge weights
+     */
+    private CSRGraph(List<Vertex<T>> vertices, Map<Vertex<T>, Integer> ids, int[] offsets, int[] targets,
+                     int[] weights) {
+
+        this.vertices = vertices;
+        this.ids = ids;
+        this.offsets = offsets;
+        this.targets = targets;
+        this.weights = weights;
+    }
+
+    /**
+     * Returns the graph with every edge turned around, sharing this graph's
+     * vertex ids. It is built on the first call and kept, and its reverse
+     * is this graph. Backward searches run on it.
+     *
+     * @return the reversed graph
+     */
+    public synchronized CSRGraph<T> reverse() {
+
+        if (reverse == null) {
+
+            int[] reverseOffsets = new int[offsets.length];
+            int[] reverseTargets = new int[targets.length];
+            int[] reverseWeights = new int[weights.length];
+
+            for (int target : targets) {
+                reverseOffsets[target + 1]++;
+            }
+
+            for (int v = 0; v < vertices.size(); v++) {
+                reverseOffsets[v + 1] += reverseOffsets[v];
+            }
+
+            // Next free slot of each vertex's reversed edges.
+            int[] next = Arrays.copyOf(reverseOffsets, vertices.size());
+
+            for (int v = 0; v < vertices.size(); v++) {
+
+                for (int edge = offsets[v]; edge < offsets[v + 1]; edge++) {
+
+                    int slot = next[targets[edge]]++;
+                    reverseTargets[slot] = v;
+                    reverseWeights[slot] = weights[edge];
+                }
+            }
+
+            reverse = new CSRGraph<T>(vertices, ids, reverseOffsets, reverseTargets, reverseWeights);
+            reverse.reverse = this;
+        }
+
+        return reverse;
+    }
+
+    /**
+     * Returns the number of vertices.
+     *
+     * @return the number of vertices
+     */
+    public int vertexCount() {
+
+        return vertices.size();
+    }
+
+    /**
+     * Returns the number of edges.
+     *
+     * @return the number of edges
+     */
+    public int edgeCount() {
+
+        return targets.length;
+    }
+
+    /**
+     * Returns the id of a vertex.
+     *
+     * @param vertex the vertex
+     * @return its id
+     * @throws java.lang.IllegalArgumentException if vertex is null or not in
+     *                                            the graph
+     */
+    public int id(Vertex<T> vertex) {
+
+        if (vertex == null) {
+            throw new IllegalArgumentException("The vertex is null.");
+        }
+
+        Integer id = ids.get(vertex);
+
+        if (id == null) {
+            throw new IllegalArgumentException("The vertex doesn't exist in the graph.");
+        }
+
+        return id;
+    }
+
+    /**
+     * Returns the vertex with the given id.
+     *
+     * @param id the id
+     * @return the vertex
+     * @throws java.lang.IllegalArgumentException if id is out of range
+     */
+    public Vertex<T> vertex(int id) {
+
+        checkId(id);
+        return vertices.get(id);
+    }
+
+    /**
+     * Returns the offsets array: vertex v's edges are at indexes
+     * offsets[v] (inclusive) to offsets[v + 1] (exclusive) of targets and
+     * weights. It is the graph's own array and must not be modified.
+     *
+     * @return the offsets array, of length vertexCount() + 1
+     */
+    public int[] offsets() {
+
+        return offsets;
+    }
+
+    /**
+     * Returns the edge targets array. It is the graph's own array and must
+     * not be modified.
+     *
+     * @return the edge targets, of length edgeCount()
+     */
+    public int[] targets() {
+
+        return targets;
+    }
+
+    /**
+     * Returns the edge weights array. It is the graph's own array and must
+     * not be modified.
+     *
+     * @return the edge weights, of length edgeCount()
+     */
+    public int[] weights() {
+
+        return weights;
+    }
+
+    /**
+     * Checks that id names a vertex.
+     *
+     * @param id the id
+     * @throws java.lang.IllegalArgumentException if id is out of range
+     */
+    void checkId(int id) {
+
+        if (id < 0 || id >= vertices.size()) {
+            throw new IllegalArgumentException("The vertex id is not in the acceptable range.");
+        }
+    }
+}
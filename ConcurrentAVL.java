@@ -0,0 +1,1114 @@
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Thread-safe AVL set for many readers and some writers, after Bronson,
+ * Casper, Chafi and Olukotun, "A Practical Concurrent Binary Search Tree".
+ * <p>
+ * Readers take no locks and write no shared memory. Every node carries a
+ * version that a rotation marks as shrinking while it moves the node down
+ * and bumps when it is done. A reader records a node's version before it
+ * steps to a child and checks it again afterwards; if the node shrank in
+ * between, the reader backs up to the parent and tries again. A rotation
+ * only ever grows the range of keys under the node that moves up, so a
+ * search already below it stays correct, and only the shrinking side needs
+ * checking.
+ * <p>
+ * Writers lock only the nodes they change: the parent for an insert, the
+ * parent and the node for an unlink, and parent, node and child (plus the
+ * grandchild for a double rotation) for a rotation, always top down. Heights
+ * are repaired and rotations done afterwards, one node at a time, so the
+ * tree is only relaxed-balanced while updates are in flight and becomes an
+ * AVL tree again once they finish. Removing a node with two children only
+ * marks it absent; such routing nodes are unlinked later, once a child goes
+ * away.
+ * <p>
+ * Like AVL, null data is rejected.
+ *
+ * @author Nicholas Watney Meyer
+ * @version 1.0
+ * @param <T> the type of data in the set
+ */
+public class ConcurrentAVL<T extends Comparable<? super T>> {
+
+    private static final long UNLINKED = 1L;
+    private static final long SHRINKING = 2L;
+    private static final long SHRINK_COUNT = 4L;
+
+    /**
+     * Number of times a reader rereads a shrinking node's version before
+     * blocking on its lock.
+     */
+    private static final int SPIN_COUNT = 100;
+
+    private static final Object RETRY = new Object();
+
+    private static final int UNLINK_REQUIRED = -1;
+    private static final int REBALANCE_REQUIRED = -2;
+    private static final int NOTHING_REQUIRED = -3;
+
+    /**
+     * Sentinel above the root. Its right child is the root, it is never
+     * rotated, and so its version never changes.
+     */
+    private final Node<T> holder = new Node<T>(null, 1, false, null);
+    private final LongAdder size = new LongAdder();
+
+    /**
+     * A tree node. The node itself is its lock.
+     */
+    private static final class Node<T> {
+
+        private final T data;
+        private volatile int height;
+        private volatile boolean present;
+        private volatile long version;
+        private volatile Node<T> parent;
+        private volatile Node<T> left;
+        private volatile Node<T> right;
+
+        /**
+         * Creates a node.
+         * @param data the data, null for the holder
+         * @param height the height, 1 for a leaf
+         * @param present whether data is in the set
+         * @param parent the parent
+         */
+        Node(T data, int height, boolean present, Node<T> parent) {
+
+            this.data = data;
+            this.height = height;
+            this.present = present;
+            this.parent = parent;
+        }
+
+        /**
+         * Returns the child in the given direction.
+         * @param direction negative for left, positive for right
+         * @return the child
+         */
+        Node<T> child(int direction) {
+
+            return direction < 0 ? left : right;
+        }
+
+        /**
+         * Sets the child in the given direction.
+         * @param direction negative for left, positive for right
+         * @param child the new child
+         */
+        void setChild(int direction, Node<T> child) {
+
+            if (direction < 0) {
+                left = child;
+
+            } else {
+                right = child;
+            }
+        }
+
+        /**
+         * Waits for a rotation that has marked this node as shrinking to
+         * finish.
+         * @param seen the version that was read
+         */
+        void waitUntilShrinkCompleted(long seen) {
+
+            if ((seen & SHRINKING) == 0) {
+                return;
+            }
+
+            for (int i = 0; i < SPIN_COUNT; i++) {
+
+                if (version != seen) {
+                    return;
+                }
+
+                Thread.onSpinWait();
+            }
+
+            // The rotation holds this node's lock until it is done.
+            synchronized (this) {
+                assert version != seen;
+            }
+        }
+    }
+
+    /**
+     * Returns whether the set contains the data.
+     *
+     * @param data the data to search for
+     * @return true if the set contains the data, false otherwise
+     * @throws java.lang.IllegalArgumentException if data is null
+     */
+    public boolean contains(T data) {
+
+        if (data == null) {
+            throw new IllegalArgumentException("The data is null.");
+        }
+
+        while (true) {
+
+            Object result = attemptGet(data, holder, 1, holder.version);
+
+            if (result != RETRY) {
+                return (Boolean) result;
+            }
+        }
+    }
+
+    /**
+     * Adds the data to the set.
+     *
+     * @param data the data to add
+     * @return true if the data was added, false if it was already present
+     * @throws java.lang.IllegalArgumentException if data is null
+     */
+    public boolean add(T data) {
+
+        if (data == null) {
+            throw new IllegalArgumentException("The data is null.");
+        }
+
+        while (true) {
+
+            Object result = attemptUpdate(data, true, holder, 1, holder.version);
+
+            if (result != RETRY) {
+
+                boolean added = !(Boolean) result;
+
+                if (added) {
+                    size.increment();
+                }
+
+                return added;
+            }
+        }
+    }
+
+    /**
+     * Removes the data from the set.
+     *
+     * @param data the data to remove
+     * @return true if the data was removed, false if it was not present
+     * @throws java.lang.IllegalArgumentException if data is null
+     */
+    public boolean remove(T data) {
+
+        if (data == null) {
+            throw new IllegalArgumentException("The data is null.");
+        }
+
+        while (true) {
+
+            Object result = attemptUpdate(data, false, holder, 1, holder.version);
+
+            if (result != RETRY) {
+
+                boolean removed = (Boolean) result;
+
+                if (removed) {
+                    size.decrement();
+                }
+
+                return removed;
+            }
+        }
+    }
+
+    /**
+     * Returns the number of elements in the set. Updates that are in flight
+     * may or may not be counted.
+     *
+     * @return the size of the set
+     */
+    public int size() {
+
+        return size.intValue();
+    }
+
+    /**
+     * Returns the height of the root, -1 if the set is empty. While updates
+     * are in flight the tree may briefly be out of balance.
+     *
+     * @return the height of the root
+     */
+    public int height() {
+
+        return height(holder.right) - 1;
+    }
+
+    /**
+     * Checks the structure of the tree and returns its elements in order.
+     * Only meaningful while no update is in flight, as the tree is only
+     * relaxed-balanced until then; used by the tests.
+     *
+     * @return the elements of the set in ascending order
+     * @throws java.lang.IllegalStateException if the keys are out of order,
+     *                                         a parent link or height is
+     *                                         wrong, a node is out of
+     *                                         balance or size disagrees
+     */
+    List<T> checkQuiescent() {
+
+        List<T> elements = new ArrayList<T>();
+        checkQuiescent(holder.right, holder, null, null, elements);
+
+        if (elements.size() != size()) {
+            throw new IllegalStateException("The size is " + size() + " but " + elements.size()
+                    + " elements are present.");
+        }
+
+        return elements;
+    }
+
+    /**
+     * Helper method for checkQuiescent.
+     * @param node the subtree to check
+     * @param parent the node that should be its parent
+     * @param low data every key must be above, null for none
+     * @param high data every key must be below, null for none
+     * @param elements the present elements, in order
+     * @return the height of the subtree
+     */
+    private int checkQuiescent(Node<T> node, Node<T> parent, T low, T high, List<T> elements) {
+
+        if (node == null) {
+            return 0;
+        }
+
+        if (node.parent != parent) {
+            throw new IllegalStateException("The parent link of " + node.data + " is wrong.");
+        }
+
+        if (low != null && node.data.compareTo(low) <= 0 || high != null && node.data.compareTo(high) >= 0) {
+            throw new IllegalStateException(node.data + " is out of order.");
+        }
+
+        int left = checkQuiescent(node.left, node, low, node.data, elements);
+
+        if (node.present) {
+            elements.add(node.data);
+        }
+
+        int right = checkQuiescent(node.right, node, node.data, high, elements);
+
+        if (node.height != Math.max(left, right) + 1) {
+            throw new IllegalStateException("The height of " + node.data + " is wrong.");
+        }
+
+        if (Math.abs(left - right) > 1) {
+            throw new IllegalStateException(node.data + " is out of balance.");
+        }
+
+        return node.height;
+    }
+
+    /**
+     * Searches below node, whose version was nodeVersion when the search got
+     * there.
+     * @param data the data to search for
+     * @param node the node to search below
+     * @param direction which child of node to search
+     * @param nodeVersion version of node when it was reached
+     * @return Boolean result, or RETRY if node shrank and the caller must
+     *         search again from its own node
+     */
+    private Object attemptGet(T data, Node<T> node, int direction, long nodeVersion) {
+
+        while (true) {
+
+            Node<T> child = node.child(direction);
+
+            if (child == null) {
+                return node.version != nodeVersion ? RETRY : Boolean.FALSE;
+            }
+
+            int compare = data.compareTo(child.data);
+
+            if (compare == 0) {
+                return child.present;
+            }
+
+            long childVersion = child.version;
+
+            if ((childVersion & (SHRINKING | UNLINKED)) != 0) {
+
+                child.waitUntilShrinkCompleted(childVersion);
+
+                if (node.version != nodeVersion) {
+                    return RETRY;
+                }
+
+            } else if (child != node.child(direction)) {
+
+                if (node.version != nodeVersion) {
+                    return RETRY;
+                }
+
+            } else {
+
+                if (node.version != nodeVersion) {
+                    return RETRY;
+                }
+
+                Object result = attemptGet(data, child, compare, childVersion);
+
+                if (result != RETRY) {
+                    return result;
+                }
+            }
+        }
+    }
+
+    /**
+     * Adds or removes data below node, whose version was nodeVersion when
+     * the search got there.
+     * @param data the data to add or remove
+     * @param add true to add, false to remove
+     * @param node the node to search below
+     * @param direction which child of node to search
+     * @param nodeVersion version of node when it was reached
+     * @return whether data was present before, or RETRY if node shrank
+     */
+    private Object attemptUpdate(T data, boolean add, Node<T> node, int direction, long nodeVersion) {
+
+        while (true) {
+
+            Node<T> child = node.child(direction);
+
+            if (node.version != nodeVersion) {
+                return RETRY;
+            }
+
+            if (child == null) {
+
+                if (!add) {
+                    return Boolean.FALSE;
+                }
+
+                Node<T> damaged;
+
+                synchronized (node) {
+
+                    if (node.version != nodeVersion) {
+                        return RETRY;
+                    }
+
+                    if (node.child(direction) != null) {
+                        // Lost a race to another insert, look again.
+                        continue;
+                    }
+
+                    node.setChild(direction, new Node<T>(data, 1, true, node));
+                    damaged = fixHeight(node);
+                }
+
+                fixHeightAndRebalance(damaged);
+                return Boolean.FALSE;
+            }
+
+            int compare = data.compareTo(child.data);
+
+            if (compare == 0) {
+                return attemptNodeUpdate(add, child);
+            }
+
+            long childVersion = child.version;
+
+            if ((childVersion & (SHRINKING | UNLINKED)) != 0) {
+                child.waitUntilShrinkCompleted(childVersion);
+
+            } else if (child == node.child(direction)) {
+
+                if (node.version != nodeVersion) {
+                    return RETRY;
+                }
+
+                Object result = attemptUpdate(data, add, child, compare, childVersion);
+
+                if (result != RETRY) {
+                    return result;
+                }
+            }
+        }
+    }
+
+    /**
+     * Adds or removes the data of a node that the search found.
+     * @param add true to add, false to remove
+     * @param node the node holding the data
+     * @return whether the data was present before, or RETRY
+     */
+    private Object attemptNodeUpdate(boolean add, Node<T> node) {
+
+        if (!add) {
+
+            if (!node.present) {
+                return Boolean.FALSE;
+            }
+
+            if (node.left == null || node.right == null) {
+
+                Node<T> parent = node.parent;
+                Node<T> damaged;
+
+                synchronized (parent) {
+
+                    if ((parent.version & UNLINKED) != 0 || node.parent != parent) {
+                        return RETRY;
+                    }
+
+                    synchronized (node) {
+
+                        if (!node.present) {
+                            return Boolean.FALSE;
+                        }
+
+                        if (!attemptUnlink(parent, node)) {
+                            return RETRY;
+                        }
+                    }
+
+                    damaged = fixHeight(parent);
+                }
+
+                fixHeightAndRebalance(damaged);
+                return Boolean.TRUE;
+            }
+        }
+
+        synchronized (node) {
+
+            if ((node.version & UNLINKED) != 0) {
+                return RETRY;
+            }
+
+            boolean previous = node.present;
+
+            if (previous == add) {
+                return previous;
+            }
+
+            if (!add && (node.left == null || node.right == null)) {
+                // A child went away since the check above, unlink instead.
+                return RETRY;
+            }
+
+            node.present = add;
+            return previous;
+        }
+    }
+
+    /**
+     * Splices a node with at most one child out of the tree. Both parent and
+     * node must be locked.
+     * @param parent the parent of node
+     * @param node the node to unlink
+     * @return false if node is no longer parent's child or has two children
+     */
+    private boolean attemptUnlink(Node<T> parent, Node<T> node) {
+
+        Node<T> parentLeft = parent.left;
+        Node<T> parentRight = parent.right;
+
+        if (parentLeft != node && parentRight != node) {
+            return false;
+        }
+
+        Node<T> left = node.left;
+        Node<T> right = node.right;
+
+        if (left != null && right != null) {
+            return false;
+        }
+
+        Node<T> splice = left != null ? left : right;
+
+        if (parentLeft == node) {
+            parent.left = splice;
+
+        } else {
+            parent.right = splice;
+        }
+
+        if (splice != null) {
+            splice.parent = parent;
+        }
+
+        node.version = UNLINKED;
+        node.present = false;
+        return true;
+    }
+
+    /**
+     * Helper method to get height
+     * @param node node to get height
+     * @return returns height of node, 0 if node is null
+     */
+    private static int height(Node<?> node) {
+
+        return node == null ? 0 : node.height;
+    }
+
+    /**
+     * Works out what a node needs.
+     * @param node the node to look at
+     * @return UNLINK_REQUIRED, REBALANCE_REQUIRED, NOTHING_REQUIRED or the
+     *         height the node should have
+     */
+    private int nodeCondition(Node<T> node) {
+
+        Node<T> left = node.left;
+        Node<T> right = node.right;
+
+        if ((left == null || right == null) && !node.present) {
+            return UNLINK_REQUIRED;
+        }
+
+        int leftHeight = height(left);
+        int rightHeight = height(right);
+        int balance = leftHeight - rightHeight;
+
+        if (balance < -1 || balance > 1) {
+            return REBALANCE_REQUIRED;
+        }
+
+        int newHeight = 1 + Math.max(leftHeight, rightHeight);
+        return node.height != newHeight ? newHeight : NOTHING_REQUIRED;
+    }
+
+    /**
+     * Repairs heights and balance from node up towards the root, taking
+     * locks one node (or parent and node) at a time.
+     * <p>
+     * A rotation changes the height of its parent's subtree, but may first
+     * hand back a node below it that still needs an unlink or another
+     * rotation. Such parents are kept on a stack and revisited once the work
+     * below them is done, so their heights are not left stale.
+     * @param node the first damaged node, or null
+     */
+    private void fixHeightAndRebalance(Node<T> node) {
+
+        Deque<Node<T>> pending = null;
+
+        while (true) {
+
+            int condition = node == null || node.parent == null ? NOTHING_REQUIRED : nodeCondition(node);
+
+            if (condition == NOTHING_REQUIRED || (node.version & UNLINKED) != 0) {
+
+                if (pending == null || pending.isEmpty()) {
+                    return;
+                }
+
+                node = pending.pop();
+
+            } else if (condition != UNLINK_REQUIRED && condition != REBALANCE_REQUIRED) {
+
+                synchronized (node) {
+                    node = fixHeight(node);
+                }
+
+            } else {
+
+                Node<T> parent = node.parent;
+
+                synchronized (parent) {
+
+                    if ((parent.version & UNLINKED) == 0 && node.parent == parent) {
+
+                        Node<T> grandparent = parent.parent;
+
+                        synchronized (node) {
+                            node = rebalance(parent, node);
+                        }
+
+                        if (node != null && node != parent && node != grandparent) {
+
+                            if (pending == null) {
+                                pending = new ArrayDeque<Node<T>>();
+                            }
+
+                            pending.push(parent);
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Repairs the height of a locked node if that is all it needs.
+     * @param node the locked node
+     * @return the next node to look at, or null if there is nothing to do
+     */
+    private Node<T> fixHeight(Node<T> node) {
+
+        int condition = nodeCondition(node);
+
+        switch (condition) {
+            case REBALANCE_REQUIRED:
+            case UNLINK_REQUIRED:
+                // Needs the parent's lock too.
+                return node;
+            case NOTHING_REQUIRED:
+                return null;
+            default:
+                node.height = condition;
+                return node.parent;
+        }
+    }
+
+    /**
+     * Unlinks, rotates or repairs the height of a node. parent and node must
+     * be locked.
+     * @param parent the parent of node
+     * @param node the node
+     * @return the next node to look at, or null if there is nothing to do
+     */
+    private Node<T> rebalance(Node<T> parent, Node<T> node) {
+
+        Node<T> left = node.left;
+        Node<T> right = node.right;
+
+        if ((left == null || right == null) && !node.present) {
+            return attemptUnlink(parent, node) ? fixHeight(parent) : node;
+        }
+
+        int leftHeight = height(left);
+        int rightHeight = height(right);
+        int balance = leftHeight - rightHeight;
+
+        if (balance > 1) {
+            return rebalanceToRight(parent, node, left, rightHeight);
+
+        } else if (balance < -1) {
+            return rebalanceToLeft(parent, node, right, leftHeight);
+
+        } else if (node.height != 1 + Math.max(leftHeight, rightHeight)) {
+            node.height = 1 + Math.max(leftHeight, rightHeight);
+            return fixHeight(parent);
+
+        } else {
+            return null;
+        }
+    }
+
+    /**
+     * Rotates a left-heavy node to the right, once or twice. parent and node
+     * must be locked.
+     * @param parent the parent of node
+     * @param node the node
+     * @param left the left child of node
+     * @param rightHeight height of node's right subtree
+     * @return the next node to look at
+     */
+    private Node<T> rebalanceToRight(Node<T> parent, Node<T> node, Node<T> left, int rightHeight) {
+
+        synchronized (left) {
+
+            if (left.height - rightHeight <= 1) {
+                return node;
+            }
+
+            Node<T> leftRight = left.right;
+            int leftLeftHeight = height(left.left);
+            int leftRightHeight = height(leftRight);
+
+            if (leftLeftHeight >= leftRightHeight) {
+                return rotateRight(parent, node, left, rightHeight, leftLeftHeight, leftRight, leftRightHeight);
+            }
+
+            synchronized (leftRight) {
+
+                leftRightHeight = leftRight.height;
+
+                if (leftLeftHeight >= leftRightHeight) {
+                    return rotateRight(parent, node, left, rightHeight, leftLeftHeight, leftRight, leftRightHeight);
+                }
+
+                int leftRightLeftHeight = height(leftRight.left);
+                int balance = leftLeftHeight - leftRightLeftHeight;
+
+                if (balance >= -1 && balance <= 1) {
+                    return rotateRightOverLeft(parent, node, left, rightHeight, leftLeftHeight, leftRight,
+                            leftRightLeftHeight);
+                }
+
+                if (balance > 1 && leftRightHeight - leftLeftHeight <= 1) {
+                    // leftRight is out of balance itself, fix it first.
+                    return leftRight;
+                }
+
+                // The double rotation would leave left out of balance, so
+                // rotate left first and come back to node afterwards.
+                return rebalanceToLeft(node, left, leftRight, leftLeftHeight);
+            }
+        }
+    }
+
+    /**
+     * Rotates a right-heavy node to the left, once or twice. parent and node
+     * must be locked.
+     * @param parent the parent of node
+     * @param node the node
+     * @param right the right child of node
+     * @param leftHeight height of node's left subtree
+     * @return the next node to look at
+     */
+    private Node<T> rebalanceToLeft(Node<T> parent, Node<T> node, Node<T> right, int leftHeight) {
+
+        synchronized (right) {
+
+            if (right.height - leftHeight <= 1) {
+                return node;
+            }
+
+            Node<T> rightLeft = right.left;
+            int rightRightHeight = height(right.right);
+            int rightLeftHeight = height(rightLeft);
+
+            if (rightRightHeight >= rightLeftHeight) {
+                return rotateLeft(parent, node, right, leftHeight, rightRightHeight, rightLeft, rightLeftHeight);
+            }
+
+            synchronized (rightLeft) {
+
+                rightLeftHeight = rightLeft.height;
+
+                if (rightRightHeight >= rightLeftHeight) {
+                    return rotateLeft(parent, node, right, leftHeight, rightRightHeight, rightLeft, rightLeftHeight);
+                }
+
+                int rightLeftRightHeight = height(rightLeft.right);
+                int balance = rightRightHeight - rightLeftRightHeight;
+
+                if (balance >= -1 && balance <= 1) {
+                    return rotateLeftOverRight(parent, node, right, leftHeight, rightRightHeight, rightLeft,
+                            rightLeftRightHeight);
+                }
+
+                if (balance > 1 && rightLeftHeight - rightRightHeight <= 1) {
+                    return rightLeft;
+                }
+
+                return rebalanceToRight(node, right, rightLeft, rightRightHeight);
+            }
+        }
+    }
+
+    /**
+     * Performs a right rotation, marking node as shrinking while it moves
+     * down. parent, node and left must be locked.
+     * @param parent the parent of node
+     * @param node the node moving down
+     * @param left the node moving up
+     * @param rightHeight height of node's right subtree
+     * @param leftLeftHeight height of left's left subtree
+     * @param leftRight left's right child, which moves to node
+     * @param leftRightHeight height of leftRight
+     * @return the next node to look at
+     */
+    private Node<T> rotateRight(Node<T> parent, Node<T> node, Node<T> left, int rightHeight, int leftLeftHeight,
+                                Node<T> leftRight, int leftRightHeight) {
+
+        long nodeVersion = node.version;
+        Node<T> parentLeft = parent.left;
+
+        node.version = nodeVersion | SHRINKING;
+
+        node.left = leftRight;
+
+        if (leftRight != null) {
+            leftRight.parent = node;
+        }
+
+        left.right = node;
+        node.parent = left;
+
+        if (parentLeft == node) {
+            parent.left = left;
+
+        } else {
+            parent.right = left;
+        }
+
+        left.parent = parent;
+
+        int nodeHeight = 1 + Math.max(leftRightHeight, rightHeight);
+        node.height = nodeHeight;
+        left.height = 1 + Math.max(leftLeftHeight, nodeHeight);
+
+        node.version = (nodeVersion | (SHRINK_COUNT - 1)) + 1;
+
+        int nodeBalance = leftRightHeight - rightHeight;
+
+        if (nodeBalance < -1 || nodeBalance > 1) {
+            return node;
+        }
+
+        if ((leftRight == null || rightHeight == 0) && !node.present) {
+            return node;
+        }
+
+        int leftBalance = leftLeftHeight - nodeHeight;
+
+        if (leftBalance < -1 || leftBalance > 1) {
+            return left;
+        }
+
+        if (leftLeftHeight == 0 && !left.present) {
+            return left;
+        }
+
+        return fixHeight(parent);
+    }
+
+    /**
+     * Performs a left rotation, marking node as shrinking while it moves
+     * down. parent, node and right must be locked.
+     * @param parent the parent of node
+     * @param node the node moving down
+     * @param right the node moving up
+     * @param leftHeight height of node's left subtree
+     * @param rightRightHeight height of right's right subtree
+     * @param rightLeft right's left child, which moves to node
+     * @param rightLeftHeight height of rightLeft
+     * @return the next node to look at
+     */
+    private Node<T> rotateLeft(Node<T> parent, Node<T> node, Node<T> right, int leftHeight, int rightRightHeight,
+                               Node<T> rightLeft, int rightLeftHeight) {
+
+        long nodeVersion = node.version;
+        Node<T> parentLeft = parent.left;
+
+        node.version = nodeVersion | SHRINKING;
+
+        node.right = rightLeft;
+
+        if (rightLeft != null) {
+            rightLeft.parent = node;
+        }
+
+        right.left = node;
+        node.parent = right;
+
+        if (parentLeft == node) {
+            parent.left = right;
+
+        } else {
+            parent.right = right;
+        }
+
+        right.parent = parent;
+
+        int nodeHeight = 1 + Math.max(leftHeight, rightLeftHeight);
+        node.height = nodeHeight;
+        right.height = 1 + Math.max(nodeHeight, rightRightHeight);
+
+        node.version = (nodeVersion | (SHRINK_COUNT - 1)) + 1;
+
+        int nodeBalance = leftHeight - rightLeftHeight;
+
+        if (nodeBalance < -1 || nodeBalance > 1) {
+            return node;
+        }
+
+        if ((rightLeft == null || leftHeight == 0) && !node.present) {
+            return node;
+        }
+
+        int rightBalance = nodeHeight - rightRightHeight;
+
+        if (rightBalance < -1 || rightBalance > 1) {
+            return right;
+        }
+
+        if (rightRightHeight == 0 && !right.present) {
+            return right;
+        }
+
+        return fixHeight(parent);
+    }
+
+    /**
+     * Performs a left rotation at left followed by a right rotation at node,
+     * marking both as shrinking. parent, node, left and leftRight must be
+     * locked.
+     * @param parent the parent of node
+     * @param node the node moving down to the right
+     * @param left the node moving down to the left
+     * @param rightHeight height of node's right subtree
+     * @param leftLeftHeight height of left's left subtree
+     * @param leftRight the node moving up
+     * @param leftRightLeftHeight height of leftRight's left subtree
+     * @return the next node to look at
+     */
+    private Node<T> rotateRightOverLeft(Node<T> parent, Node<T> node, Node<T> left, int rightHeight,
+                                        int leftLeftHeight, Node<T> leftRight, int leftRightLeftHeight) {
+
+        Node<T> parentLeft = parent.left;
+        Node<T> leftRightLeft = leftRight.left;
+        Node<T> leftRightRight = leftRight.right;
+        int leftRightRightHeight = height(leftRightRight);
+
+        long nodeVersion = node.version;
+        long leftVersion = left.version;
+
+        node.version = nodeVersion | SHRINKING;
+        left.version = leftVersion | SHRINKING;
+
+        node.left = leftRightRight;
+
+        if (leftRightRight != null) {
+            leftRightRight.parent = node;
+        }
+
+        left.right = leftRightLeft;
+
+        if (leftRightLeft != null) {
+            leftRightLeft.parent = left;
+        }
+
+        leftRight.left = left;
+        left.parent = leftRight;
+        leftRight.right = node;
+        node.parent = leftRight;
+
+        if (parentLeft == node) {
+            parent.left = leftRight;
+
+        } else {
+            parent.right = leftRight;
+        }
+
+        leftRight.parent = parent;
+
+        int nodeHeight = 1 + Math.max(leftRightRightHeight, rightHeight);
+        node.height = nodeHeight;
+        int leftHeight = 1 + Math.max(leftLeftHeight, leftRightLeftHeight);
+        left.height = leftHeight;
+        leftRight.height = 1 + Math.max(leftHeight, nodeHeight);
+
+        node.version = (nodeVersion | (SHRINK_COUNT - 1)) + 1;
+        left.version = (leftVersion | (SHRINK_COUNT - 1)) + 1;
+
+        if ((leftLeftHeight == 0 || leftRightLeft == null) && !left.present) {
+            // left was left with at most one child and holds no data, and
+            // both it and its new parent are already locked.
+            attemptUnlink(leftRight, left);
+            leftHeight = height(leftRight.left);
+            leftRight.height = 1 + Math.max(leftHeight, nodeHeight);
+        }
+
+        int nodeBalance = leftRightRightHeight - rightHeight;
+
+        if (nodeBalance < -1 || nodeBalance > 1) {
+            return node;
+        }
+
+        if ((leftRightRight == null || rightHeight == 0) && !node.present) {
+            return node;
+        }
+
+        int leftRightBalance = leftHeight - nodeHeight;
+
+        if (leftRightBalance < -1 || leftRightBalance > 1) {
+            return leftRight;
+        }
+
+        return fixHeight(parent);
+    }
+
+    /**
+     * Performs a right rotation at right followed by a left rotation at node,
+     * marking both as shrinking. parent, node, right and rightLeft must be
+     * locked.
+     * @param parent the parent of node
+     * @param node the node moving down to the left
+     * @param right the node moving down to the right
+     * @param leftHeight height of node's left subtree
+     * @param rightRightHeight height of right's right subtree
+     * @param rightLeft the node moving up
+     * @param rightLeftRightHeight height of rightLeft's right subtree
+     * @return the next node to look at
+     */
+    private Node<T> rotateLeftOverRight(Node<T> parent, Node<T> node, Node<T> right, int leftHeight,
+                                        int rightRightHeight, Node<T> rightLeft, int rightLeftRightHeight) {
+
+        Node<T> parentLeft = parent.left;
+        Node<T> rightLeftLeft = rightLeft.left;
+        Node<T> rightLeftRight = rightLeft.right;
+        int rightLeftLeftHeight = height(rightLeftLeft);
+
+        long nodeVersion = node.version;
+        long rightVersion = right.version;
+
+        node.version = nodeVersion | SHRINKING;
+        right.version = rightVersion | SHRINKING;
+
+        node.right = rightLeftLeft;
+
+        if (rightLeftLeft != null) {
+            rightLeftLeft.parent = node;
+        }
+
+        right.left = rightLeftRight;
+
+        if (rightLeftRight != null) {
+            rightLeftRight.parent = right;
+        }
+
+        rightLeft.right = right;
+        right.parent = rightLeft;
+        rightLeft.left = node;
+        node.parent = rightLeft;
+
+        if (parentLeft == node) {
+            parent.left = rightLeft;
+
+        } else {
+            parent.right = rightLeft;
+        }
+
+        rightLeft.parent = parent;
+
+        int nodeHeight = 1 + Math.max(leftHeight, rightLeftLeftHeight);
+        node.height = nodeHeight;
+        int rightHeight = 1 + Math.max(rightLeftRightHeight, rightRightHeight);
+        right.height = rightHeight;
+        rightLeft.height = 1 + Math.max(nodeHeight, rightHeight);
+
+        node.version = (nodeVersion | (SHRINK_COUNT - 1)) + 1;
+        right.version = (rightVersion | (SHRINK_COUNT - 1)) + 1;
+
+        if ((rightRightHeight == 0 || rightLeftRight == null) && !right.present) {
+            attemptUnlink(rightLeft, right);
+            rightHeight = height(rightLeft.right);
+            rightLeft.height = 1 + Math.max(nodeHeight, rightHeight);
+        }
+
+        int nodeBalance = leftHeight - rightLeftLeftHeight;
+
+        if (nodeBalance < -1 || nodeBalance > 1) {
+            return node;
+        }
+
+        if ((rightLeftLeft == null || leftHeight == 0) && !node.present) {
+            return node;
+        }
+
+        int rightLeftBalance = nodeHeight - rightHeight;
+
+        if (rightLeftBalance < -1 || rightLeftBalance > 1) {
+            return rightLeft;
+        }
+
+        return fixHeight(parent);
+    }
+}
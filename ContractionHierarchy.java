@@ -0,0 +1,873 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Contraction hierarchy (CH) over a CSRGraph, for answering many
+ * shortest-path queries on a graph that does not change (you may assume
+ * non-negative edge weights).
+ * <p>
+ * build contracts the vertices one at a time, cheapest first. The cost of a
+ * vertex is twice the difference between the shortcuts its contraction
+ * would add and the edges it would remove, plus the number of its
+ * neighbours already contracted, so that contraction spreads evenly over
+ * the graph. Contracting v removes it
+ * from the remaining graph, and for every pair of remaining neighbours
+ * u -&gt; v -&gt; w adds a shortcut u -&gt; w of the same length unless a
+ * bounded witness search finds a path from u to w that avoids v and is no
+ * longer. A missed witness only costs an unneeded shortcut, never a wrong
+ * answer. Each edge is then stored with whichever endpoint was contracted
+ * first: in its up list if the edge leaves it, in its down list if the edge
+ * enters it. A shortcut remembers the vertex it skips, so a path made of
+ * shortcuts can be unpacked into original edges.
+ * <p>
+ * A query searches forward from the source over up lists and backward from
+ * the target over down lists, so both only ever climb the hierarchy, and
+ * they meet at the highest vertex of a shortest path. Each search settles a
+ * few hundred vertices on a road network instead of a large part of it.
+ * Query objects keep their arrays between queries and clear only what a
+ * query touched; each thread needs its own, but they can share one
+ * hierarchy.
+ * <p>
+ * write saves the hierarchy as a header and eight int arrays, and load maps
+ * those arrays straight from the file, so startup reads nothing up front
+ * and the pages are shared with every other process that maps the same
+ * file.
+ *
+ * @author Nicholas Watney Meyer
+ * @version 1.0
+ */
+public final class ContractionHierarchy {
+
+    private static final long MAGIC = 0x4348696572617263L;
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 32;
+
+    /**
+     * Most vertices a witness search settles before giving up.
+     */
+    private static final int WITNESS_LIMIT = 500;
+
+    private final int vertexCount;
+    private final IntBuffer upOffsets;
+    private final IntBuffer upTargets;
+    private final IntBuffer upWeights;
+    private final IntBuffer upMiddles;
+    private final IntBuffer downOffsets;
+    private final IntBuffer downSources;
+    private final IntBuffer downWeights;
+    private final IntBuffer downMiddles;
+
+    /**
+     * Wraps the arrays of a hierarchy. Middles are the vertex a shortcut
+     * skips, -1 for an original edge.
+     * @param vertexCount number of vertices
+     * @param up up list offsets, targets, weights and middles
+     * @param down down list offsets, sources, weights and middles
+     */
+    private ContractionHierarchy(int vertexCount, IntBuffer[] up, IntBuffer[] down) {
+
+        this.vertexCount = vertexCount;
+        this.upOffsets = up[0];
+        this.upTargets = up[1];
+        this.upWeights = up[2];
+        this.upMiddles = up[3];
+        this.downOffsets = down[0];
+        this.downSources = down[1];
+        this.downWeights = down[2];
+        this.downMiddles = down[3];
+    }
+
+    /**
+     * Builds the hierarchy of a graph. Vertex ids are the graph's.
+     *
+     * @param graph the graph
+     * @return the hierarchy
+     * @throws java.lang.IllegalArgumentException if graph is null or a
+     *                                            shortcut's length does not
+     *                                            fit in an int
+     */
+    public static ContractionHierarchy build(CSRGraph<?> graph) {
+
+        if (graph == null) {
+            throw new IllegalArgumentException("The graph is null.");
+        }
+
+        return new Builder(graph).build();
+    }
+
+    /**
+     * Maps a hierarchy saved by write. The file is mapped read only and must
+     * not change while the hierarchy is in use.
+     *
+     * @param file the file
+     * @return the hierarchy
+     * @throws java.lang.IllegalArgumentException if file is null
+     * @throws java.io.IOException                if the file cannot be read
+     *                                            or is not a hierarchy
+     */
+    public static ContractionHierarchy load(Path file) throws IOException {
+
+        if (file == null) {
+            throw new IllegalArgumentException("The file is null.");
+        }
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+
+            while (header.hasRemaining()) {
+
+                if (channel.read(header) < 0) {
+                    throw new IOException("The file is not a contraction hierarchy.");
+                }
+            }
+
+            if (header.getLong(0) != MAGIC || header.getInt(8) != VERSION) {
+                throw new IOException("The file is not a contraction hierarchy.");
+            }
+
+            int vertices = header.getInt(12);
+            int upEdges = header.getInt(16);
+            int downEdges = header.getInt(20);
+            int[] lengths = {vertices + 1, upEdges, upEdges, upEdges, vertices + 1, downEdges, downEdges, downEdges};
+            long position = HEADER_SIZE;
+
+            for (int length : lengths) {
+                position += 4L * length;
+            }
+
+            if (vertices < 0 || upEdges < 0 || downEdges < 0 || channel.size() != position) {
+                throw new IOException("The file is not a contraction hierarchy.");
+            }
+
+            IntBuffer[] arrays = new IntBuffer[lengths.length];
+            position = HEADER_SIZE;
+
+            for (int i = 0; i < lengths.length; i++) {
+
+                long bytes = 4L * lengths[i];
+
+                if (bytes > Integer.MAX_VALUE) {
+                    throw new IOException("The hierarchy is too large to map.");
+                }
+
+                arrays[i] = channel.map(FileChannel.MapMode.READ_ONLY, position, bytes).asIntBuffer();
+                position += bytes;
+            }
+
+            return new ContractionHierarchy(vertices, Arrays.copyOfRange(arrays, 0, 4),
+                    Arrays.copyOfRange(arrays, 4, 8));
+        }
+    }
+
+    /**
+     * Saves the hierarchy to a file, replacing what was there.
+     *
+     * @param file the file
+     * @throws java.lang.IllegalArgumentException if file is null
+     * @throws java.io.IOException                if the file cannot be
+     *                                            written
+     */
+    public void write(Path file) throws IOException {
+
+        if (file == null) {
+            throw new IllegalArgumentException("The file is null.");
+        }
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+
+            ByteBuffer buffer = ByteBuffer.allocate(1 << 16);
+            buffer.putLong(MAGIC).putInt(VERSION).putInt(vertexCount).putInt(upTargets.capacity())
+                    .putInt(downSources.capacity()).putLong(0);
+
+            for (IntBuffer array : new IntBuffer[] {upOffsets, upTargets, upWeights, upMiddles, downOffsets,
+                downSources, downWeights, downMiddles}) {
+
+                for (int i = 0; i < array.capacity(); i++) {
+
+                    if (!buffer.hasRemaining()) {
+                        drain(channel, buffer);
+                    }
+
+                    buffer.putInt(array.get(i));
+                }
+            }
+
+            drain(channel, buffer);
+            channel.force(true);
+        }
+    }
+
+    /**
+     * Writes out and empties a buffer.
+     * @param channel where to write
+     * @param buffer the buffer, in fill mode
+     * @throws IOException if the write fails
+     */
+    private static void drain(FileChannel channel, ByteBuffer buffer) throws IOException {
+
+        buffer.flip();
+
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+
+        buffer.clear();
+    }
+
+    /**
+     * Returns the number of vertices.
+     *
+     * @return the number of vertices
+     */
+    public int vertexCount() {
+
+        return vertexCount;
+    }
+
+    /**
+     * Returns the number of edges in the hierarchy, shortcuts included.
+     *
+     * @return the number of edges
+     */
+    public int edgeCount() {
+
+        return upTargets.capacity() + downSources.capacity();
+    }
+
+    /**
+     * Creates a query engine. It allocates its arrays once and is not safe
+     * for concurrent use.
+     *
+     * @return a new query engine
+     */
+    public Query newQuery() {
+
+        return new Query();
+    }
+
+    /**
+     * Returns the vertex an edge skips.
+     * @param from the edge's source
+     * @param to the edge's target
+     * @return the skipped vertex, or -1 if the edge is an original one
+     */
+    private int middle(int from, int to) {
+
+        for (int edge = upOffsets.get(from); edge < upOffsets.get(from + 1); edge++) {
+
+            if (upTargets.get(edge) == to) {
+                return upMiddles.get(edge);
+            }
+        }
+
+        for (int edge = downOffsets.get(to); edge < downOffsets.get(to + 1); edge++) {
+
+            if (downSources.get(edge) == from) {
+                return downMiddles.get(edge);
+            }
+        }
+
+        throw new IllegalStateException("The hierarchy has no edge " + from + " -> " + to + ".");
+    }
+
+    /**
+     * Shortest-path queries against the hierarchy.
+     */
+    public final class Query {
+
+        private final Direction forward = new Direction(upOffsets, upTargets, upWeights);
+        private final Direction backward = new Direction(downOffsets, downSources, downWeights);
+        private int[] stack = new int[64];
+        private int meet;
+
+        /**
+         * Creates a query engine.
+         */
+        private Query() {
+
+        }
+
+        /**
+         * Returns the length of a shortest path between two vertex ids.
+         *
+         * @param source id of the vertex to start from
+         * @param target id of the vertex to reach
+         * @return the length, or Integer.MAX_VALUE if there is no path
+         * @throws java.lang.IllegalArgumentException if an id is out of range
+         */
+        public int distance(int source, int target) {
+
+            return (int) Math.min(search(source, target), Integer.MAX_VALUE);
+        }
+
+        /**
+         * Returns a shortest path between two vertex ids, with every
+         * shortcut unpacked into the original edges.
+         *
+         * @param source id of the vertex to start from
+         * @param target id of the vertex to reach
+         * @return the ids along the path, source first and target last,
+         * empty if there is no path
+         * @throws java.lang.IllegalArgumentException if an id is out of range
+         */
+        public int[] path(int source, int target) {
+
+            if (search(source, target) == Long.MAX_VALUE) {
+                return new int[0];
+            }
+
+            // Hierarchy vertices from the source up to meet, then down to
+            // the target.
+            int up = 0;
+
+            for (int v = meet; v >= 0; v = forward.parents[v]) {
+                up++;
+            }
+
+            int[] levels = new int[up];
+            int count = up;
+
+            for (int v = meet; v >= 0; v = forward.parents[v]) {
+                levels[--up] = v;
+            }
+
+            for (int v = backward.parents[meet]; v >= 0; v = backward.parents[v]) {
+
+                if (count == levels.length) {
+                    levels = Arrays.copyOf(levels, 2 * count);
+                }
+
+                levels[count++] = v;
+            }
+
+            int[] path = new int[Math.max(16, 2 * count)];
+            int length = 0;
+            path[length++] = source;
+
+            for (int i = 0; i + 1 < count; i++) {
+
+                // Unpack levels[i] -> levels[i + 1] depth first, first half
+                // first, with pairs of vertices on an explicit stack.
+                int top = 0;
+                stack[top++] = levels[i];
+                stack[top++] = levels[i + 1];
+
+                while (top > 0) {
+
+                    int to = stack[--top];
+                    int from = stack[--top];
+                    int middle = middle(from, to);
+
+                    if (middle < 0) {
+
+                        if (length == path.length) {
+                            path = Arrays.copyOf(path, 2 * length);
+                        }
+
+                        path[length++] = to;
+                        continue;
+                    }
+
+                    if (top + 4 > stack.length) {
+                        stack = Arrays.copyOf(stack, 2 * stack.length);
+                    }
+
+                    stack[top++] = middle;
+                    stack[top++] = to;
+                    stack[top++] = from;
+                    stack[top++] = middle;
+                }
+            }
+
+            return Arrays.copyOf(path, length);
+        }
+
+        /**
+         * Returns how many vertices the last query settled in both
+         * directions.
+         *
+         * @return the number of vertices settled
+         */
+        public int getSettled() {
+
+            return forward.settled + backward.settled;
+        }
+
+        /**
+         * Runs the two upward searches, leaving meet at the highest vertex
+         * of the shortest path found.
+         * @param source id of the source
+         * @param target id of the target
+         * @return the path length, or Long.MAX_VALUE if there is none
+         */
+        private long search(int source, int target) {
+
+            if (source < 0 || source >= vertexCount || target < 0 || target >= vertexCount) {
+                throw new IllegalArgumentException("The vertex id is not in the acceptable range.");
+            }
+
+            forward.start(source);
+            backward.start(target);
+            long best = Long.MAX_VALUE;
+            meet = -1;
+
+            while (!forward.heap.isEmpty() || !backward.heap.isEmpty()) {
+
+                Direction side;
+
+                if (forward.heap.isEmpty()) {
+                    side = backward;
+
+                } else if (backward.heap.isEmpty()) {
+                    side = forward;
+
+                } else {
+                    side = forward.heap.key(forward.heap.peek()) <= backward.heap.key(backward.heap.peek())
+                            ? forward : backward;
+                }
+
+                // A direction is done once nothing it has queued can beat
+                // the best path.
+                if (side.heap.key(side.heap.peek()) >= best) {
+                    side.heap.clear();
+                    continue;
+                }
+
+                Direction other = side == forward ? backward : forward;
+                int current = side.settle();
+
+                if (other.distances[current] != Integer.MAX_VALUE) {
+
+                    long total = (long) side.distances[current] + other.distances[current];
+
+                    if (total < best) {
+                        best = total;
+                        meet = current;
+                    }
+                }
+            }
+
+            return best;
+        }
+    }
+
+    /**
+     * The state of one direction of a query: tentative distances and
+     * predecessors by vertex id, the queue, and the ids whose distance was
+     * set so the next query can undo just those.
+     */
+    private final class Direction {
+
+        private final IntBuffer offsets;
+        private final IntBuffer neighbours;
+        private final IntBuffer weights;
+        private final int[] distances = new int[vertexCount];
+        private final int[] parents = new int[vertexCount];
+        private final int[] touched = new int[vertexCount];
+        private final IndexedHeap heap = new IndexedHeap(vertexCount);
+        private int touchedCount;
+        private int settled;
+
+        /**
+         * Creates the state for searching the given lists.
+         * @param offsets list offsets
+         * @param neighbours list entries
+         * @param weights list weights
+         */
+        Direction(IntBuffer offsets, IntBuffer neighbours, IntBuffer weights) {
+
+            this.offsets = offsets;
+            this.neighbours = neighbours;
+            this.weights = weights;
+            Arrays.fill(distances, Integer.MAX_VALUE);
+        }
+
+        /**
+         * Undoes the last query and queues source at distance 0.
+         * @param source id of the source
+         */
+        void start(int source) {
+
+            for (int i = 0; i < touchedCount; i++) {
+                distances[touched[i]] = Integer.MAX_VALUE;
+            }
+
+            touchedCount = 0;
+            settled = 0;
+            heap.clear();
+            touched[touchedCount++] = source;
+            distances[source] = 0;
+            parents[source] = -1;
+            heap.add(source, 0);
+        }
+
+        /**
+         * Settles the closest queued vertex and relaxes its list.
+         * @return its id
+         */
+        int settle() {
+
+            int current = heap.remove();
+            int distance = distances[current];
+            settled++;
+
+            for (int edge = offsets.get(current); edge < offsets.get(current + 1); edge++) {
+
+                int vertex = neighbours.get(edge);
+                long candidate = (long) distance + weights.get(edge);
+
+                if (candidate < distances[vertex]) {
+
+                    if (distances[vertex] == Integer.MAX_VALUE) {
+                        touched[touchedCount++] = vertex;
+                    }
+
+                    distances[vertex] = (int) candidate;
+                    parents[vertex] = current;
+
+                    if (heap.contains(vertex)) {
+                        heap.decreaseKey(vertex, (int) candidate);
+
+                    } else {
+                        heap.add(vertex, (int) candidate);
+                    }
+                }
+            }
+
+            return current;
+        }
+    }
+
+    /**
+     * Contracts a graph into a hierarchy.
+     */
+    private static final class Builder {
+
+        private final int vertexCount;
+        private final Edges[] in;
+        private final Edges[] out;
+        private final Edges[] up;
+        private final Edges[] down;
+        private final int[] contractedNeighbours;
+
+        private final int[] distances;
+        private final int[] touched;
+        private final IndexedHeap heap;
+        private int touchedCount;
+
+        /**
+         * Copies graph into adjacency lists that can change, keeping the
+         * shortest of parallel edges and dropping loops.
+         * @param graph the graph
+         */
+        Builder(CSRGraph<?> graph) {
+
+            vertexCount = graph.vertexCount();
+            in = new Edges[vertexCount];
+            out = new Edges[vertexCount];
+            up = new Edges[vertexCount];
+            down = new Edges[vertexCount];
+            contractedNeighbours = new int[vertexCount];
+            distances = new int[vertexCount];
+            touched = new int[vertexCount];
+            heap = new IndexedHeap(vertexCount);
+            Arrays.fill(distances, Integer.MAX_VALUE);
+
+            for (int v = 0; v < vertexCount; v++) {
+                in[v] = new Edges();
+                out[v] = new Edges();
+                up[v] = new Edges();
+                down[v] = new Edges();
+            }
+
+            int[] offsets = graph.offsets();
+            int[] targets = graph.targets();
+            int[] weights = graph.weights();
+
+            for (int v = 0; v < vertexCount; v++) {
+
+                for (int edge = offsets[v]; edge < offsets[v + 1]; edge++) {
+
+                    if (targets[edge] != v) {
+                        out[v].put(targets[edge], weights[edge], -1);
+                        in[targets[edge]].put(v, weights[edge], -1);
+                    }
+                }
+            }
+        }
+
+        /**
+         * Contracts every vertex, cheapest first, and packs the result.
+         * Priorities are updated lazily: a popped vertex is costed again
+         * and put back if it is no longer the cheapest.
+         * @return the hierarchy
+         */
+        ContractionHierarchy build() {
+
+            IndexedHeap order = new IndexedHeap(vertexCount);
+
+            for (int v = 0; v < vertexCount; v++) {
+                order.add(v, priority(v));
+            }
+
+            while (!order.isEmpty()) {
+
+                int v = order.remove();
+                int priority = priority(v);
+
+                if (!order.isEmpty() && priority > order.key(order.peek())) {
+                    order.add(v, priority);
+                    continue;
+                }
+
+                contract(v);
+            }
+
+            return new ContractionHierarchy(vertexCount, pack(up), pack(down));
+        }
+
+        /**
+         * Returns the cost of contracting v now.
+         * @param v the vertex
+         * @return twice shortcuts added minus edges removed, plus neighbours
+         * already contracted
+         */
+        private int priority(int v) {
+
+            return 2 * (shortcuts(v, false) - in[v].size - out[v].size) + contractedNeighbours[v];
+        }
+
+        /**
+         * Moves v's remaining edges into its up and down lists, adds the
+         * shortcuts its removal needs and removes it from the graph.
+         * @param v the vertex
+         */
+        private void contract(int v) {
+
+            for (int i = 0; i < in[v].size; i++) {
+                down[v].put(in[v].neighbours[i], in[v].weights[i], in[v].middles[i]);
+            }
+
+            for (int i = 0; i < out[v].size; i++) {
+                up[v].put(out[v].neighbours[i], out[v].weights[i], out[v].middles[i]);
+            }
+
+            shortcuts(v, true);
+
+            for (int i = 0; i < in[v].size; i++) {
+                out[in[v].neighbours[i]].remove(v);
+                contractedNeighbours[in[v].neighbours[i]]++;
+            }
+
+            for (int i = 0; i < out[v].size; i++) {
+                in[out[v].neighbours[i]].remove(v);
+                contractedNeighbours[out[v].neighbours[i]]++;
+            }
+
+            in[v] = null;
+            out[v] = null;
+        }
+
+        /**
+         * Counts, and optionally adds, the shortcuts contracting v needs.
+         * @param v the vertex
+         * @param add whether to add them
+         * @return the number of shortcuts
+         */
+        private int shortcuts(int v, boolean add) {
+
+            Edges into = in[v];
+            Edges from = out[v];
+            int count = 0;
+
+            for (int i = 0; i < into.size && from.size > 0; i++) {
+
+                int source = into.neighbours[i];
+                long limit = 0;
+
+                for (int j = 0; j < from.size; j++) {
+
+                    if (from.neighbours[j] != source) {
+                        limit = Math.max(limit, (long) into.weights[i] + from.weights[j]);
+                    }
+                }
+
+                witness(source, v, limit);
+
+                for (int j = 0; j < from.size; j++) {
+
+                    int target = from.neighbours[j];
+                    long length = (long) into.weights[i] + from.weights[j];
+
+                    if (target == source || distances[target] <= length) {
+                        continue;
+                    }
+
+                    count++;
+
+                    if (add) {
+
+                        if (length > Integer.MAX_VALUE) {
+                            throw new IllegalArgumentException("A shortcut's length does not fit in an int.");
+                        }
+
+                        out[source].put(target, (int) length, v);
+                        in[target].put(source, (int) length, v);
+                    }
+                }
+            }
+
+            return count;
+        }
+
+        /**
+         * Runs Dijkstra's from source in the remaining graph without
+         * excluded, up to distance limit or WITNESS_LIMIT settled vertices,
+         * leaving the results in distances.
+         * @param source where to start
+         * @param excluded the vertex being contracted
+         * @param limit the longest distance of interest
+         */
+        private void witness(int source, int excluded, long limit) {
+
+            for (int i = 0; i < touchedCount; i++) {
+                distances[touched[i]] = Integer.MAX_VALUE;
+            }
+
+            touchedCount = 0;
+            heap.clear();
+            touched[touchedCount++] = source;
+            distances[source] = 0;
+            heap.add(source, 0);
+
+            for (int settled = 0; !heap.isEmpty() && settled < WITNESS_LIMIT; settled++) {
+
+                int current = heap.remove();
+                Edges edges = out[current];
+
+                for (int i = 0; i < edges.size; i++) {
+
+                    int vertex = edges.neighbours[i];
+                    long candidate = (long) distances[current] + edges.weights[i];
+
+                    if (vertex == excluded || candidate > limit || candidate >= distances[vertex]) {
+                        continue;
+                    }
+
+                    if (distances[vertex] == Integer.MAX_VALUE) {
+                        touched[touchedCount++] = vertex;
+                    }
+
+                    distances[vertex] = (int) candidate;
+
+                    if (heap.contains(vertex)) {
+                        heap.decreaseKey(vertex, (int) candidate);
+
+                    } else {
+                        heap.add(vertex, (int) candidate);
+                    }
+                }
+            }
+        }
+
+        /**
+         * Packs per-vertex lists into offsets, neighbours, weights and
+         * middles arrays.
+         * @param lists the lists
+         * @return the four arrays
+         */
+        private IntBuffer[] pack(Edges[] lists) {
+
+            int[] offsets = new int[vertexCount + 1];
+
+            for (int v = 0; v < vertexCount; v++) {
+                offsets[v + 1] = Math.addExact(offsets[v], lists[v].size);
+            }
+
+            int[] neighbours = new int[offsets[vertexCount]];
+            int[] weights = new int[offsets[vertexCount]];
+            int[] middles = new int[offsets[vertexCount]];
+
+            for (int v = 0; v < vertexCount; v++) {
+
+                System.arraycopy(lists[v].neighbours, 0, neighbours, offsets[v], lists[v].size);
+                System.arraycopy(lists[v].weights, 0, weights, offsets[v], lists[v].size);
+                System.arraycopy(lists[v].middles, 0, middles, offsets[v], lists[v].size);
+                lists[v] = null;
+            }
+
+            return new IntBuffer[] {IntBuffer.wrap(offsets), IntBuffer.wrap(neighbours), IntBuffer.wrap(weights),
+                IntBuffer.wrap(middles)};
+        }
+    }
+
+    /**
+     * Growable list of a vertex's edges, at most one per neighbour.
+     */
+    private static final class Edges {
+
+        private int[] neighbours = new int[4];
+        private int[] weights = new int[4];
+        private int[] middles = new int[4];
+        private int size;
+
+        /**
+         * Adds an edge, or shortens the edge to neighbour if this one is
+         * shorter.
+         * @param neighbour the other end
+         * @param weight the length
+         * @param middle the vertex it skips, -1 for none
+         */
+        void put(int neighbour, int weight, int middle) {
+
+            for (int i = 0; i < size; i++) {
+
+                if (neighbours[i] == neighbour) {
+
+                    if (weight < weights[i]) {
+                        weights[i] = weight;
+                        middles[i] = middle;
+                    }
+
+                    return;
+                }
+            }
+
+            if (size == neighbours.length) {
+                neighbours = Arrays.copyOf(neighbours, 2 * size);
+                weights = Arrays.copyOf(weights, 2 * size);
+                middles = Arrays.copyOf(middles, 2 * size);
+            }
+
+            neighbours[size] = neighbour;
+            weights[size] = weight;
+            middles[size++] = middle;
+        }
+
+        /**
+         * Removes the edge to neighbour, if any, by moving the last edge
+         * into its place.
+         * @param neighbour the other end
+         */
+        void remove(int neighbour) {
+
+            for (int i = 0; i < size; i++) {
+
+                if (neighbours[i] == neighbour) {
+                    size--;
+                    neighbours[i] = neighbours[size];
+                    weights[i] = weights[size];
+                    middles[i] = middles[size];
+                    return;
+                }
+            }
+        }
+    }
+}
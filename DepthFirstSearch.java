@@ -0,0 +1,242 @@
+import java.util.Arrays;
+
+/**
+ * Iterative depth first search over a CSRGraph, with callbacks.
+ * <p>
+ * The current path is kept on int arrays instead of the call stack, with
+ * the index of the next edge to try at each depth, so a path as long as the
+ * graph is fine on any thread. Edges are tried in adjacency list order and
+ * only undiscovered vertices are entered, which is the order the recursive
+ * GraphAlgorithms.dfs visits them in. A Visitor hears about every vertex
+ * when it is entered (preorder) and when all its edges are done
+ * (postorder), and about every edge to a vertex that was already
+ * discovered, with whether that vertex is still on the path. That is
+ * enough to build topological sorting, cycle detection and Tarjan's
+ * strongly connected components on top, as GraphAlgorithms does.
+ * <p>
+ * Discovered vertices stay discovered across search calls until reset(),
+ * so calling search on more roots grows a depth first forest, and
+ * searchAll does that for every vertex in id order. A DepthFirstSearch is
+ * not safe for concurrent use.
+ *
+ * @author Nicholas Watney Meyer
+ * @version 1.0
+ */
+public class DepthFirstSearch {
+
+    /**
+     * Callbacks for the events of a search. All of them do nothing by
+     * default.
+     */
+    public interface Visitor {
+
+        /**
+         * Called when vertex is discovered, before any of its edges.
+         *
+         * @param vertex id of the vertex
+         * @param parent id of the vertex it was reached from, -1 for a root
+         */
+        default void preorder(int vertex, int parent) {
+
+        }
+
+        /**
+         * Called for an edge to a vertex that was already discovered.
+         *
+         * @param from   id of the vertex the edge leaves
+         * @param to     id of the vertex the edge enters
+         * @param onPath true if to is an ancestor of from, or from itself,
+         *               so the edge closes a cycle
+         */
+        default void nonTreeEdge(int from, int to, boolean onPath) {
+
+        }
+
+        /**
+         * Called when all of vertex's edges have been tried, before the
+         * search returns to its parent.
+         *
+         * @param vertex id of the vertex
+         * @param parent id of the vertex it was reached from, -1 for a root
+         */
+        default void postorder(int vertex, int parent) {
+
+        }
+    }
+
+    private final int[] offsets;
+    private final int[] targets;
+    private final long[] discovered;
+    private final long[] onPath;
+    private final int[] path;
+    private final int[] next;
+    private boolean stopped;
+
+    /**
+     * Creates a search over graph with no vertices discovered.
+     *
+     * @param graph the graph to search
+     * @throws java.lang.IllegalArgumentException if graph is null
+     */
+    public DepthFirstSearch(CSRGraph<?> graph) {
+
+        if (graph == null) {
+            throw new IllegalArgumentException("The graph is null.");
+        }
+
+        offsets = graph.offsets();
+        targets = graph.targets();
+        discovered = new long[(graph.vertexCount() + 63) >>> 6];
+        onPath = new long[discovered.length];
+        path = new int[graph.vertexCount()];
+        next = new int[graph.vertexCount()];
+    }
+
+    /**
+     * Searches from start, unless it is already discovered, entering only
+     * vertices not discovered before.
+     *
+     * @param start   id of the vertex to begin on
+     * @param visitor the callbacks
+     * @throws java.lang.IllegalArgumentException if visitor is null or start
+     *                                            is out of range
+     */
+    public void search(int start, Visitor visitor) {
+
+        if (visitor == null) {
+            throw new IllegalArgumentException("The visitor is null.");
+        }
+
+        if (start < 0 || start >= path.length) {
+            throw new IllegalArgumentException("The vertex id is not in the acceptable range.");
+        }
+
+        stopped = false;
+        run(start, visitor);
+    }
+
+    /**
+     * Searches from every vertex not yet discovered, in id order.
+     *
+     * @param visitor the callbacks
+     * @throws java.lang.IllegalArgumentException if visitor is null
+     */
+    public void searchAll(Visitor visitor) {
+
+        if (visitor == null) {
+            throw new IllegalArgumentException("The visitor is null.");
+        }
+
+        stopped = false;
+
+        for (int root = 0; root < path.length && !stopped; root++) {
+            run(root, visitor);
+        }
+    }
+
+    /**
+     * Ends the running search as soon as the current callback returns. No
+     * more callbacks are made, and the vertices on the path get no
+     * postorder call.
+     */
+    public void stop() {
+
+        stopped = true;
+    }
+
+    /**
+     * Returns whether a vertex has been discovered.
+     *
+     * @param vertex id of the vertex
+     * @return true if it has been discovered, false otherwise
+     * @throws java.lang.IllegalArgumentException if vertex is out of range
+     */
+    public boolean isDiscovered(int vertex) {
+
+        if (vertex < 0 || vertex >= path.length) {
+            throw new IllegalArgumentException("The vertex id is not in the acceptable range.");
+        }
+
+        return marked(discovered, vertex);
+    }
+
+    /**
+     * Forgets every discovered vertex.
+     */
+    public void reset() {
+
+        Arrays.fill(discovered, 0);
+    }
+
+    /**
+     * Runs one tree of the search.
+     * @param root id of the root
+     * @param visitor the callbacks
+     */
+    private void run(int root, Visitor visitor) {
+
+        if (marked(discovered, root)) {
+            return;
+        }
+
+        int depth = enter(root, -1, 0, visitor);
+
+        while (depth > 0 && !stopped) {
+
+            int current = path[depth - 1];
+            int edge = next[depth - 1];
+
+            if (edge == offsets[current + 1]) {
+
+                depth--;
+                onPath[current >>> 6] &= ~(1L << current);
+                visitor.postorder(current, depth > 0 ? path[depth - 1] : -1);
+                continue;
+            }
+
+            // Resume after this edge once the vertex it leads to is done.
+            next[depth - 1] = edge + 1;
+            int vertex = targets[edge];
+
+            if (marked(discovered, vertex)) {
+                visitor.nonTreeEdge(current, vertex, marked(onPath, vertex));
+
+            } else {
+                depth = enter(vertex, current, depth, visitor);
+            }
+        }
+
+        for (int i = 0; i < depth; i++) {
+            onPath[path[i] >>> 6] &= ~(1L << path[i]);
+        }
+    }
+
+    /**
+     * Discovers vertex and pushes it on the path.
+     * @param vertex id of the vertex
+     * @param parent id of its parent, -1 for a root
+     * @param depth length of the path before
+     * @param visitor the callbacks
+     * @return length of the path after
+     */
+    private int enter(int vertex, int parent, int depth, Visitor visitor) {
+
+        discovered[vertex >>> 6] |= 1L << vertex;
+        onPath[vertex >>> 6] |= 1L << vertex;
+        path[depth] = vertex;
+        next[depth] = offsets[vertex];
+        visitor.preorder(vertex, parent);
+        return depth + 1;
+    }
+
+    /**
+     * Returns whether a bit of a bitset is set.
+     * @param bits the bitset
+     * @param index the bit
+     * @return whether it is set
+     */
+    private static boolean marked(long[] bits, int index) {
+
+        return (bits[index >>> 6] & 1L << index) != 0;
+    }
+}
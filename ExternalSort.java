@@ -0,0 +1,606 @@
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.function.Consumer;
+
+/**
+ * External (out-of-core) merge sort for data sets larger than the heap.
+ * <p>
+ * The input is read in chunks of at most chunkSize records. Each chunk is
+ * sorted in memory with Sorting.timSort and spilled to a temporary run file.
+ * The runs are then merged with a loser tree, which finds the next record in
+ * log k comparisons for k runs. If there are more than fanIn runs, groups of
+ * fanIn neighbouring runs are first merged into longer runs, so no more
+ * than fanIn files are ever open at once. Ties are broken by run order and
+ * runs are cut in input order, so the sort is stable.
+ * <p>
+ * Run files are read and written through buffered FileChannel streams, and
+ * records are encoded by a pluggable Serializer. Temporary files are removed
+ * once they have been merged, and also when the sort fails.
+ *
+ * @author Nicholas Watney Meyer
+ * @version 1.0
+ * @param <T> the type of record being sorted
+ */
+public class ExternalSort<T> {
+
+    /**
+     * Size of the stream buffer in front of each run file.
+     */
+    private static final int IO_BUFFER_SIZE = 1 << 16;
+
+    private final Comparator<T> comparator;
+    private final Serializer<T> serializer;
+    private final int chunkSize;
+    private final int fanIn;
+    private final Path directory;
+
+    /**
+     * Encodes and decodes records for run files.
+     *
+     * @param <T> the type of record
+     */
+    public interface Serializer<T> {
+
+        /**
+         * Writes a record.
+         *
+         * @param record the record to write
+         * @param out    the output to write it to
+         * @throws IOException if writing fails
+         */
+        void write(T record, DataOutput out) throws IOException;
+
+        /**
+         * Reads back a record written by write.
+         *
+         * @param in the input to read it from
+         * @return the record
+         * @throws IOException if reading fails
+         */
+        T read(DataInput in) throws IOException;
+    }
+
+    /**
+     * Serializer for Integer records.
+     *
+     * @return the serializer
+     */
+    public static Serializer<Integer> integers() {
+
+        return new Serializer<Integer>() {
+
+            @Override
+            public void write(Integer record, DataOutput out) throws IOException {
+                out.writeInt(record);
+            }
+
+            @Override
+            public Integer read(DataInput in) throws IOException {
+                return in.readInt();
+            }
+        };
+    }
+
+    /**
+     * Serializer for Long records.
+     *
+     * @return the serializer
+     */
+    public static Serializer<Long> longs() {
+
+        return new Serializer<Long>() {
+
+            @Override
+            public void write(Long record, DataOutput out) throws IOException {
+                out.writeLong(record);
+            }
+
+            @Override
+            public Long read(DataInput in) throws IOException {
+                return in.readLong();
+            }
+        };
+    }
+
+    /**
+     * Serializer for String records, in modified UTF-8.
+     *
+     * @return the serializer
+     */
+    public static Serializer<String> strings() {
+
+        return new Serializer<String>() {
+
+            @Override
+            public void write(String record, DataOutput out) throws IOException {
+                out.writeUTF(record);
+            }
+
+            @Override
+            public String read(DataInput in) throws IOException {
+                return in.readUTF();
+            }
+        };
+    }
+
+    /**
+     * Constructs an external sort.
+     *
+     * @param comparator the Comparator used to order the records
+     * @param serializer the Serializer used for run files
+     * @param chunkSize  the number of records sorted in memory at once
+     * @param fanIn      the largest number of runs merged at once, at least 2
+     * @param directory  the directory temporary run files are created in
+     * @throws java.lang.IllegalArgumentException if any object is null,
+     *                                            chunkSize is less than 1 or
+     *                                            fanIn is less than 2
+     */
+    public ExternalSort(Comparator<T> comparator, Serializer<T> serializer, int chunkSize, int fanIn,
+                        Path directory) {
+
+        if (comparator == null || serializer == null || directory == null) {
+            throw new IllegalArgumentException("The comparator, serializer or directory is null.");
+        }
+
+        if (chunkSize < 1 || fanIn < 2) {
+            throw new IllegalArgumentException("The chunk size is less than 1 or the fan-in less than 2.");
+        }
+
+        this.comparator = comparator;
+        this.serializer = serializer;
+        this.chunkSize = chunkSize;
+        this.fanIn = fanIn;
+        this.directory = directory;
+    }
+
+    /**
+     * Sorts a file of serialized records into another file.
+     *
+     * @param input  the file of records written back to back by the serializer
+     * @param output the file the sorted records are written to
+     * @throws java.lang.IllegalArgumentException if either path is null, or
+     *                                            the serializer reads a null
+     *                                            record
+     * @throws IOException                        if reading or writing fails
+     */
+    public void sort(Path input, Path output) throws IOException {
+
+        if (input == null || output == null) {
+            throw new IllegalArgumentException("The input or output is null.");
+        }
+
+        try (DataInputStream in = openInput(input);
+             DataOutputStream out = openOutput(output)) {
+
+            sort(new FileIterator(in), record -> {
+
+                try {
+                    serializer.write(record, out);
+
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * Sorts a stream of records, passing them to output in order. Null
+     * records are rejected, since a null marks the end of a run while runs
+     * are merged. Every record is read before any reaches output, so nothing
+     * is output when a null is found.
+     *
+     * @param input  the records to sort
+     * @param output the consumer that is given the sorted records
+     * @throws java.lang.IllegalArgumentException if input or output is null,
+     *                                            or input yields a null
+     *                                            record
+     * @throws IOException                        if a run file cannot be
+     *                                            written or read
+     */
+    public void sort(Iterator<T> input, Consumer<? super T> output) throws IOException {
+
+        if (input == null || output == null) {
+            throw new IllegalArgumentException("The input or output is null.");
+        }
+
+        List<Run> runs = new ArrayList<Run>();
+
+        try {
+
+            T[] chunk = (T[]) new Object[chunkSize];
+
+            while (input.hasNext()) {
+
+                int count = 0;
+
+                while (count < chunkSize && input.hasNext()) {
+
+                    T record = input.next();
+
+                    if (record == null) {
+                        throw new IllegalArgumentException("The input holds a null record.");
+                    }
+
+                    chunk[count++] = record;
+                }
+
+                T[] sorted = count == chunkSize ? chunk : Arrays.copyOf(chunk, count);
+                Sorting.timSort(sorted, comparator);
+
+                if (runs.isEmpty() && !input.hasNext()) {
+
+                    for (T record : sorted) {
+                        output.accept(record);
+                    }
+
+                    return;
+                }
+
+                runs.add(writeRun(sorted));
+                Arrays.fill(chunk, null);
+            }
+
+            while (runs.size() > fanIn) {
+
+                List<Run> merged = new ArrayList<Run>();
+
+                try {
+
+                    for (int i = 0; i < runs.size(); i += fanIn) {
+
+                        List<Run> group = runs.subList(i, Math.min(i + fanIn, runs.size()));
+
+                        if (group.size() == 1) {
+                            merged.add(group.get(0));
+                            continue;
+                        }
+
+                        Run run = new Run(Files.createTempFile(directory, "run", ".tmp"));
+                        merged.add(run);
+
+                        try (DataOutputStream out = openOutput(run.path)) {
+
+                            merge(group, record -> {
+
+                                try {
+                                    serializer.write(record, out);
+                                    run.count++;
+
+                                } catch (IOException e) {
+                                    throw new UncheckedIOException(e);
+                                }
+                            });
+
+                        } catch (UncheckedIOException e) {
+                            throw e.getCause();
+                        }
+
+                        for (Run done : group) {
+                            Files.deleteIfExists(done.path);
+                        }
+                    }
+
+                } catch (IOException | RuntimeException e) {
+
+                    for (Run run : merged) {
+                        Files.deleteIfExists(run.path);
+                    }
+
+                    throw e;
+                }
+
+                runs = merged;
+            }
+
+            merge(runs, output);
+
+        } finally {
+
+            for (Run run : runs) {
+                Files.deleteIfExists(run.path);
+            }
+        }
+    }
+
+    /**
+     * Spills a sorted chunk to a new run file.
+     * @param sorted the sorted records
+     * @return the run
+     * @throws IOException if the file cannot be written
+     */
+    private Run writeRun(T[] sorted) throws IOException {
+
+        Run run = new Run(Files.createTempFile(directory, "run", ".tmp"));
+
+        try (DataOutputStream out = openOutput(run.path)) {
+
+            for (T record : sorted) {
+                serializer.write(record, out);
+            }
+
+            run.count = sorted.length;
+
+        } catch (IOException e) {
+            Files.deleteIfExists(run.path);
+            throw e;
+        }
+
+        return run;
+    }
+
+    /**
+     * K-way merges runs through a loser tree.
+     * @param runs the runs to merge, in input order
+     * @param output the consumer that is given the merged records
+     * @throws IOException if a run cannot be read
+     */
+    private void merge(List<Run> runs, Consumer<? super T> output) throws IOException {
+
+        int k = runs.size();
+
+        if (k == 0) {
+            return;
+        }
+
+        List<DataInputStream> inputs = new ArrayList<DataInputStream>(k);
+
+        try {
+
+            long[] remaining = new long[k];
+            T[] heads = (T[]) new Object[k];
+
+            for (int i = 0; i < k; i++) {
+
+                inputs.add(openInput(runs.get(i).path));
+                remaining[i] = runs.get(i).count;
+                heads[i] = next(inputs.get(i), remaining, i);
+            }
+
+            LoserTree<T> tree = new LoserTree<T>(heads, comparator);
+
+            for (int winner = tree.winner(); heads[winner] != null; winner = tree.winner()) {
+
+                output.accept(heads[winner]);
+                heads[winner] = next(inputs.get(winner), remaining, winner);
+                tree.replay(winner);
+            }
+
+        } finally {
+
+            for (DataInputStream in : inputs) {
+                in.close();
+            }
+        }
+    }
+
+    /**
+     * Reads the next record of a run.
+     * @param in the run's input
+     * @param remaining records left in each run
+     * @param run index of the run
+     * @return the next record, or null if the run is exhausted
+     * @throws IOException if the run cannot be read
+     */
+    private T next(DataInputStream in, long[] remaining, int run) throws IOException {
+
+        if (remaining[run] == 0) {
+            return null;
+        }
+
+        remaining[run]--;
+        return serializer.read(in);
+    }
+
+    /**
+     * Opens a buffered input over a file channel.
+     * @param path file to read
+     * @return the input
+     * @throws IOException if the file cannot be opened
+     */
+    private static DataInputStream openInput(Path path) throws IOException {
+
+        return new DataInputStream(new BufferedInputStream(
+                Channels.newInputStream(FileChannel.open(path, StandardOpenOption.READ)), IO_BUFFER_SIZE));
+    }
+
+    /**
+     * Opens a buffered output over a file channel, truncating the file.
+     * @param path file to write
+     * @return the output
+     * @throws IOException if the file cannot be opened
+     */
+    private static DataOutputStream openOutput(Path path) throws IOException {
+
+        return new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(
+                FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                        StandardOpenOption.TRUNCATE_EXISTING)), IO_BUFFER_SIZE));
+    }
+
+    /**
+     * A sorted run spilled to disk.
+     */
+    private static final class Run {
+
+        private final Path path;
+        private long count;
+
+        /**
+         * Creates a run backed by the given file.
+         * @param path the run file
+         */
+        Run(Path path) {
+
+            this.path = path;
+        }
+    }
+
+    /**
+     * Iterator over records serialized back to back, ending at end of file.
+     */
+    private final class FileIterator implements Iterator<T> {
+
+        private final DataInputStream in;
+        private T next;
+        private boolean done;
+
+        /**
+         * Creates an iterator over the given input.
+         * @param in the input
+         */
+        FileIterator(DataInputStream in) {
+
+            this.in = in;
+        }
+
+        @Override
+        public boolean hasNext() {
+
+            if (next == null && !done) {
+
+                try {
+                    in.mark(1);
+
+                    if (in.read() == -1) {
+                        done = true;
+
+                    } else {
+                        in.reset();
+                        next = serializer.read(in);
+                    }
+
+                } catch (EOFException e) {
+                    throw new UncheckedIOException(new IOException("The input ends inside a record.", e));
+
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+
+            return next != null;
+        }
+
+        @Override
+        public T next() {
+
+            if (!hasNext()) {
+                throw new NoSuchElementException("The input is exhausted.");
+            }
+
+            T record = next;
+            next = null;
+            return record;
+        }
+    }
+
+    /**
+     * Loser tree over the heads of k runs. Internal node i holds the run that
+     * lost the match played there, and slot 0 holds the overall winner, so
+     * replacing the winner's head only replays the matches on its path.
+     * A null head is an exhausted run and loses to everything.
+     *
+     * @param <T> the type of record
+     */
+    private static final class LoserTree<T> {
+
+        private final T[] heads;
+        private final Comparator<T> comparator;
+        private final int[] tree;
+
+        /**
+         * Builds the tree over the current heads.
+         * @param heads head record of each run, shared with the caller
+         * @param comparator comparator defining comparison behaviour
+         */
+        LoserTree(T[] heads, Comparator<T> comparator) {
+
+            this.heads = heads;
+            this.comparator = comparator;
+            this.tree = new int[heads.length];
+
+            Arrays.fill(tree, -1);
+
+            for (int i = heads.length - 1; i >= 0; i--) {
+                replay(i);
+            }
+        }
+
+        /**
+         * Returns the run whose head is the smallest.
+         * @return index of the winning run
+         */
+        int winner() {
+
+            return tree[0];
+        }
+
+        /**
+         * Replays the matches from a run's leaf up to the root after its head
+         * changed.
+         * @param run index of the run
+         */
+        void replay(int run) {
+
+            int winner = run;
+
+            for (int node = (run + heads.length) >> 1; node > 0; node >>= 1) {
+
+                if (tree[node] == -1) {
+                    tree[node] = winner;
+                    return;
+                }
+
+                if (beats(tree[node], winner)) {
+
+                    int temp = tree[node];
+                    tree[node] = winner;
+                    winner = temp;
+                }
+            }
+
+            tree[0] = winner;
+        }
+
+        /**
+         * Whether run a's head comes before run b's head. Ties go to the
+         * earlier run, which keeps the merge stable.
+         * @param a index of one run
+         * @param b index of the other run
+         * @return true if a wins
+         */
+        private boolean beats(int a, int b) {
+
+            if (heads[a] == null) {
+                return false;
+            }
+
+            if (heads[b] == null) {
+                return true;
+            }
+
+            int compare = comparator.compare(heads[a], heads[b]);
+            return compare < 0 || compare == 0 && a < b;
+        }
+    }
+}
@@ -1,3 +1,4 @@
+import java.util.Arrays;
 import java.util.Set;
 import java.util.HashSet;
 import java.util.List;
@@ -21,6 +22,13 @@ import java.util.PriorityQueue;
  */
 public class GraphAlgorithms {
 
+    // Moves for bfs and dfs are vertices pushed onto the search's own queue
+    // or stack, so the recursive dfs, which only uses the call stack, has none.
+    private static final Metrics.Probe BFS = Metrics.probe("GraphAlgorithms.bfs");
+    private static final Metrics.Probe DFS = Metrics.probe("GraphAlgorithms.dfs");
+    private static final Metrics.Probe DIJKSTRAS = Metrics.probe("GraphAlgorithms.dijkstras");
+    private static final Metrics.Probe DIJKSTRAS_INDEXED = Metrics.probe("GraphAlgorithms.dijkstrasIndexed");
+
     /**
      * Performs a breadth first search (bfs) on the input graph, starting at
      * the parameterized starting vertex.
@@ -58,9 +66,12 @@ public class GraphAlgorithms {
             throw new IllegalArgumentException("Doesn't exist in the graph.");
         }
 
+        long started = BFS.start();
         Set<Vertex<T>> visitedSet = new HashSet<Vertex<T>>();
         List<Vertex<T>> visitedList = new LinkedList<Vertex<T>>();
         Queue<Vertex<T>> toVisit = new LinkedList<Vertex<T>>();
+        BFS.allocations(3);
+        long enqueued = 1;
 
         visitedSet.add(start);
         visitedList.add(start);
@@ -78,10 +89,13 @@ public class GraphAlgorithms {
                     visitedSet.add(vertex);
                     visitedList.add(vertex);
                     toVisit.add(vertex);
+                    enqueued++;
                 }
             }
         }
 
+        BFS.moves(enqueued);
+        BFS.stop(started);
         return visitedList;
     }
 
@@ -126,10 +140,15 @@ public class GraphAlgorithms {
             throw new IllegalArgumentException("Start doesn't exist in the graph.");
         }
 
+        long started = DFS.start();
         Set<Vertex<T>> visitedSet = new HashSet<Vertex<T>>();
         List<Vertex<T>> visitedList = new LinkedList<Vertex<T>>();
+        DFS.allocations(2);
+
+        hDfs(start, graph, visitedSet, visitedList);
+        DFS.stop(started);
 
-        return hDfs(start, graph, visitedSet, visitedList);
+        return visitedList;
 
     }
 
@@ -209,6 +228,7 @@ public class GraphAlgorithms {
             throw new IllegalArgumentException("Start doesn't exist in the graph.");
         }
 
+        long started = DIJKSTRAS.start();
         Set<Vertex<T>> visitedSet = new HashSet<Vertex<T>>();
         Map<Vertex<T>, Integer> distanceMap = new HashMap<Vertex<T>, Integer>();
         Queue<VertexDistance<T>> priorityQueue = new PriorityQueue<VertexDistance<T>>();
@@ -218,6 +238,8 @@ public class GraphAlgorithms {
             distanceMap.put(vertex, Integer.MAX_VALUE);
         }
 
+        long entries = 1;
+
         priorityQueue.add(new VertexDistance(start, 0));
         int size = graph.getVertices().size();
 
@@ -236,11 +258,611 @@ public class GraphAlgorithms {
 
                         priorityQueue.add(new VertexDistance(neighbour.getVertex(), current.getDistance()
                                 + neighbour.getDistance()));
+                        entries++;
                     }
                 }
             }
         }
 
+        DIJKSTRAS.allocations(3 + entries);
+        DIJKSTRAS.stop(started);
         return distanceMap;
     }
+
+    /**
+     * Performs a breadth first search on a CSR graph, starting at the vertex
+     * with id start. Neighbours are explored in adjacency list order, so the
+     * ids come out in the same order as the vertices from bfs on the graph
+     * the CSRGraph was built from.
+     *
+     * @param start the id of the vertex to begin the bfs on
+     * @param graph the graph to search through
+     * @return ids of the visited vertices in visited order
+     * @throws IllegalArgumentException if graph is null, or if start
+     *                                  doesn't exist in the graph
+     */
+    public static int[] bfs(int start, CSRGraph<?> graph) {
+
+        if (graph == null) {
+
+            throw new IllegalArgumentException("Any input is null.");
+        }
+
+        graph.checkId(start);
+
+        long started = BFS.start();
+        int[] offsets = graph.offsets();
+        int[] targets = graph.targets();
+        long[] visited = new long[(graph.vertexCount() + 63) >>> 6];
+        int[] queue = new int[graph.vertexCount()];
+        BFS.allocations(2);
+
+        int head = 0;
+        int tail = 0;
+        mark(visited, start);
+        queue[tail++] = start;
+
+        while (head < tail) {
+
+            int current = queue[head++];
+
+            for (int edge = offsets[current]; edge < offsets[current + 1]; edge++) {
+
+                int vertex = targets[edge];
+
+                if (!marked(visited, vertex)) {
+
+                    mark(visited, vertex);
+                    queue[tail++] = vertex;
+                }
+            }
+        }
+
+        BFS.moves(tail);
+        BFS.stop(started);
+        return tail == queue.length ? queue : Arrays.copyOf(queue, tail);
+    }
+
+    /**
+     * Performs a depth first search (dfs) on the input graph, starting at
+     * the parameterized starting vertex, without recursion.
+     * <p>
+     * Vertices come out in the same order as from dfs, but the graph is
+     * copied into a CSRGraph and searched by DepthFirstSearch, which keeps
+     * the path on an array stack, so paths of any length are fine on a
+     * thread with the default stack size.
+     *
+     * @param <T>   the generic typing of the data
+     * @param start the vertex to begin the dfs on
+     * @param graph the graph to search through
+     * @return list of vertices in visited order
+     * @throws IllegalArgumentException if any input is null, or if start
+     *                                  doesn't exist in the graph
+     */
+    public static <T> List<Vertex<T>> dfsIterative(Vertex<T> start, Graph<T> graph) {
+
+        if (start == null || graph == null) {
+
+            throw new IllegalArgumentException("Any input is null.");
+        }
+
+        if (graph.getVertices().contains(start) == false) {
+
+            throw new IllegalArgumentException("Start doesn't exist in the graph.");
+        }
+
+        CSRGraph<T> csr = new CSRGraph<T>(graph);
+        List<Vertex<T>> visitedList = new LinkedList<Vertex<T>>();
+
+        for (int id : dfs(csr.id(start), csr)) {
+            visitedList.add(csr.vertex(id));
+        }
+
+        return visitedList;
+    }
+
+    /**
+     * Performs a depth first search on a CSR graph, starting at the vertex
+     * with id start. The ids come out in the same order as the vertices from
+     * dfs on the graph the CSRGraph was built from, but DepthFirstSearch
+     * keeps the path on an array stack instead of the call stack, so long
+     * paths cannot overflow it.
+     *
+     * @param start the id of the vertex to begin the dfs on
+     * @param graph the graph to search through
+     * @return ids of the visited vertices in visited order
+     * @throws IllegalArgumentException if graph is null, or if start
+     *                                  doesn't exist in the graph
+     */
+    public static int[] dfs(int start, CSRGraph<?> graph) {
+
+        if (graph == null) {
+
+            throw new IllegalArgumentException("Any input is null.");
+        }
+
+        graph.checkId(start);
+
+        long started = DFS.start();
+        Preorder preorder = new Preorder(graph.vertexCount());
+        new DepthFirstSearch(graph).search(start, preorder);
+        DFS.allocations(6);
+        DFS.moves(preorder.count);
+        DFS.stop(started);
+
+        int[] order = preorder.order;
+        return preorder.count == order.length ? order : Arrays.copyOf(order, preorder.count);
+    }
+
+    /**
+     * Sorts the vertices of a directed acyclic CSR graph so that every edge
+     * goes from an earlier vertex to a later one. It is the reverse of the
+     * depth first postorder.
+     *
+     * @param graph the graph to sort
+     * @return the ids of all vertices in topological order
+     * @throws IllegalArgumentException if graph is null or has a cycle
+     */
+    public static int[] topologicalSort(CSRGraph<?> graph) {
+
+        if (graph == null) {
+
+            throw new IllegalArgumentException("Any input is null.");
+        }
+
+        DepthFirstSearch search = new DepthFirstSearch(graph);
+        int[] order = new int[graph.vertexCount()];
+        boolean[] cycle = new boolean[1];
+
+        search.searchAll(new DepthFirstSearch.Visitor() {
+
+            private int remaining = order.length;
+
+            @Override
+            public void nonTreeEdge(int from, int to, boolean onPath) {
+
+                if (onPath) {
+                    cycle[0] = true;
+                    search.stop();
+                }
+            }
+
+            @Override
+            public void postorder(int vertex, int parent) {
+
+                order[--remaining] = vertex;
+            }
+        });
+
+        if (cycle[0]) {
+
+            throw new IllegalArgumentException("The graph has a cycle.");
+        }
+
+        return order;
+    }
+
+    /**
+     * Returns whether a CSR graph has a directed cycle, a loop included.
+     * The search stops at the first edge back onto the path.
+     *
+     * @param graph the graph to check
+     * @return true if there is a cycle, false otherwise
+     * @throws IllegalArgumentException if graph is null
+     */
+    public static boolean hasCycle(CSRGraph<?> graph) {
+
+        if (graph == null) {
+
+            throw new IllegalArgumentException("Any input is null.");
+        }
+
+        DepthFirstSearch search = new DepthFirstSearch(graph);
+        boolean[] cycle = new boolean[1];
+
+        search.searchAll(new DepthFirstSearch.Visitor() {
+
+            @Override
+            public void nonTreeEdge(int from, int to, boolean onPath) {
+
+                if (onPath) {
+                    cycle[0] = true;
+                    search.stop();
+                }
+            }
+        });
+
+        return cycle[0];
+    }
+
+    /**
+     * Finds the strongly connected components of a CSR graph with Tarjan's
+     * algorithm, driven by DepthFirstSearch callbacks instead of recursion.
+     * <p>
+     * Components are numbered from 0 in the order they are completed,
+     * which is a reverse topological order of the graph of components: an
+     * edge between two components always goes from a higher number to a
+     * lower one.
+     *
+     * @param graph the graph
+     * @return the component number of each vertex, indexed by id
+     * @throws IllegalArgumentException if graph is null
+     */
+    public static int[] stronglyConnectedComponents(CSRGraph<?> graph) {
+
+        if (graph == null) {
+
+            throw new IllegalArgumentException("Any input is null.");
+        }
+
+        int size = graph.vertexCount();
+        int[] index = new int[size];
+        int[] lowLink = new int[size];
+        int[] components = new int[size];
+        int[] stack = new int[size];
+        Arrays.fill(components, -1);
+
+        new DepthFirstSearch(graph).searchAll(new DepthFirstSearch.Visitor() {
+
+            private int discovered;
+            private int top;
+            private int count;
+
+            @Override
+            public void preorder(int vertex, int parent) {
+
+                index[vertex] = discovered;
+                lowLink[vertex] = discovered++;
+                stack[top++] = vertex;
+            }
+
+            @Override
+            public void nonTreeEdge(int from, int to, boolean onPath) {
+
+                // Still on the stack means not yet in a finished component.
+                if (components[to] < 0) {
+                    lowLink[from] = Math.min(lowLink[from], index[to]);
+                }
+            }
+
+            @Override
+            public void postorder(int vertex, int parent) {
+
+                if (lowLink[vertex] == index[vertex]) {
+
+                    int member;
+
+                    do {
+                        member = stack[--top];
+                        components[member] = count;
+                    } while (member != vertex);
+
+                    count++;
+                }
+
+                if (parent >= 0) {
+                    lowLink[parent] = Math.min(lowLink[parent], lowLink[vertex]);
+                }
+            }
+        });
+
+        return components;
+    }
+
+    /**
+     * Finds the shortest distance from the vertex with id start to every
+     * vertex of a CSR graph (you may assume non-negative edge weights).
+     * <p>
+     * The queue is a binary heap of longs, each a distance in the high half
+     * and a vertex id in the low half, so it holds no objects, and an entry
+     * is only added when it improves on the best distance known so far. The
+     * search ends when every vertex has been visited or the heap is empty,
+     * like dijkstras.
+     *
+     * @param start the id of the vertex to begin the Dijkstra's on (source)
+     * @param graph the graph we are applying Dijkstra's to
+     * @return the shortest distance to each vertex, indexed by id, or
+     * Integer.MAX_VALUE if no path exists
+     * @throws IllegalArgumentException if graph is null, or if start
+     *                                  doesn't exist in the graph
+     */
+    public static int[] dijkstras(int start, CSRGraph<?> graph) {
+
+        if (graph == null) {
+
+            throw new IllegalArgumentException("Any input is null.");
+        }
+
+        graph.checkId(start);
+
+        long started = DIJKSTRAS.start();
+        int[] offsets = graph.offsets();
+        int[] targets = graph.targets();
+        int[] weights = graph.weights();
+        int size = graph.vertexCount();
+        long[] visited = new long[(size + 63) >>> 6];
+        int[] distances = new int[size];
+        LongHeap heap = new LongHeap(Math.max(16, size));
+        DIJKSTRAS.allocations(3);
+
+        Arrays.fill(distances, Integer.MAX_VALUE);
+        distances[start] = 0;
+        heap.add(start);
+
+        long entries = 1;
+        int visitedCount = 0;
+
+        while (!heap.isEmpty() && visitedCount != size) {
+
+            long entry = heap.remove();
+            int current = (int) entry;
+            int distance = (int) (entry >>> 32);
+
+            if (marked(visited, current)) {
+                continue;
+            }
+
+            mark(visited, current);
+            visitedCount++;
+
+            for (int edge = offsets[current]; edge < offsets[current + 1]; edge++) {
+
+                int vertex = targets[edge];
+                long candidate = (long) distance + weights[edge];
+
+                if (!marked(visited, vertex) && candidate < distances[vertex]) {
+
+                    distances[vertex] = (int) candidate;
+                    heap.add(candidate << 32 | vertex);
+                    entries++;
+                }
+            }
+        }
+
+        DIJKSTRAS.moves(entries);
+        DIJKSTRAS.stop(started);
+        return distances;
+    }
+
+    /**
+     * Finds the shortest distances from start like dijkstras, but on a CSR
+     * copy of the graph with an indexed heap instead of a PriorityQueue.
+     * <p>
+     * Each vertex is in the heap at most once. An edge is only relaxed when
+     * it strictly improves the best known distance, and then the vertex's
+     * key is lowered in place instead of a new entry being queued, so the
+     * heap never holds more than V ids and nothing is allocated per edge.
+     * The graph is copied first; to run many searches on one graph, build
+     * the CSRGraph once and call the CSRGraph overload.
+     *
+     * @param <T>   the generic typing of the data
+     * @param start the vertex to begin the Dijkstra's on (source)
+     * @param graph the graph we are applying Dijkstra's to
+     * @return the shortest distances from start, as an int array by vertex
+     * id and as a map through toMap()
+     * @throws IllegalArgumentException if any input is null, or if start
+     *                                  doesn't exist in the graph.
+     */
+    public static <T> ShortestPaths<T> dijkstrasIndexed(Vertex<T> start, Graph<T> graph) {
+
+        if (start == null || graph == null) {
+
+            throw new IllegalArgumentException("Any input is null.");
+        }
+
+        return dijkstrasIndexed(start, new CSRGraph<T>(graph));
+    }
+
+    /**
+     * Finds the shortest distances from start over a CSR graph with an
+     * indexed heap, like dijkstrasIndexed(Vertex, Graph).
+     *
+     * @param <T>   the generic typing of the data
+     * @param start the vertex to begin the Dijkstra's on (source)
+     * @param graph the graph we are applying Dijkstra's to
+     * @return the shortest distances from start
+     * @throws IllegalArgumentException if any input is null, or if start
+     *                                  doesn't exist in the graph.
+     */
+    public static <T> ShortestPaths<T> dijkstrasIndexed(Vertex<T> start, CSRGraph<T> graph) {
+
+        if (start == null || graph == null) {
+
+            throw new IllegalArgumentException("Any input is null.");
+        }
+
+        int source = graph.id(start);
+        return new ShortestPaths<T>(graph, source, dijkstrasIndexed(source, graph));
+    }
+
+    /**
+     * Finds the shortest distance from the vertex with id start to every
+     * vertex of a CSR graph, with an indexed heap (you may assume
+     * non-negative edge weights).
+     * <p>
+     * A vertex is final once it leaves the heap: no later edge can improve
+     * it, so the strict improvement check alone keeps it from coming back
+     * and no visited set is needed.
+     *
+     * @param start the id of the vertex to begin the Dijkstra's on (source)
+     * @param graph the graph we are applying Dijkstra's to
+     * @return the shortest distance to each vertex, indexed by id, or
+     * Integer.MAX_VALUE if no path exists
+     * @throws IllegalArgumentException if graph is null, or if start
+     *                                  doesn't exist in the graph
+     */
+    public static int[] dijkstrasIndexed(int start, CSRGraph<?> graph) {
+
+        if (graph == null) {
+
+            throw new IllegalArgumentException("Any input is null.");
+        }
+
+        graph.checkId(start);
+
+        long started = DIJKSTRAS_INDEXED.start();
+        int[] offsets = graph.offsets();
+        int[] targets = graph.targets();
+        int[] weights = graph.weights();
+        int[] distances = new int[graph.vertexCount()];
+        IndexedHeap heap = new IndexedHeap(graph.vertexCount());
+        DIJKSTRAS_INDEXED.allocations(2);
+
+        Arrays.fill(distances, Integer.MAX_VALUE);
+        distances[start] = 0;
+        heap.add(start, 0);
+
+        long relaxations = 1;
+
+        while (!heap.isEmpty()) {
+
+            int current = heap.remove();
+            int distance = distances[current];
+
+            for (int edge = offsets[current]; edge < offsets[current + 1]; edge++) {
+
+                int vertex = targets[edge];
+                long candidate = (long) distance + weights[edge];
+
+                if (candidate < distances[vertex]) {
+
+                    distances[vertex] = (int) candidate;
+                    relaxations++;
+
+                    if (heap.contains(vertex)) {
+                        heap.decreaseKey(vertex, (int) candidate);
+
+                    } else {
+                        heap.add(vertex, (int) candidate);
+                    }
+                }
+            }
+        }
+
+        DIJKSTRAS_INDEXED.moves(relaxations);
+        DIJKSTRAS_INDEXED.stop(started);
+        return distances;
+    }
+
+    /**
+     * Returns whether a bit of a bitset is set.
+     * @param bits the bitset
+     * @param index the bit
+     * @return whether it is set
+     */
+    private static boolean marked(long[] bits, int index) {
+
+        return (bits[index >>> 6] & 1L << index) != 0;
+    }
+
+    /**
+     * Sets a bit of a bitset.
+     * @param bits the bitset
+     * @param index the bit
+     */
+    private static void mark(long[] bits, int index) {
+
+        bits[index >>> 6] |= 1L << index;
+    }
+
+    /**
+     * Binary min-heap of longs that grows as needed.
+     */
+    private static final class LongHeap {
+
+        private long[] heap;
+        private int size;
+
+        /**
+         * Creates an empty heap.
+         * @param capacity initial capacity
+         */
+        LongHeap(int capacity) {
+
+            heap = new long[capacity];
+        }
+
+        /**
+         * Returns whether the heap is empty.
+         * @return whether the heap is empty
+         */
+        boolean isEmpty() {
+
+            return size == 0;
+        }
+
+        /**
+         * Adds a value.
+         * @param value the value
+         */
+        void add(long value) {
+
+            if (size == heap.length) {
+                heap = Arrays.copyOf(heap, 2 * size);
+            }
+
+            int index = size++;
+
+            while (index > 0 && heap[(index - 1) >>> 1] > value) {
+                heap[index] = heap[(index - 1) >>> 1];
+                index = (index - 1) >>> 1;
+            }
+
+            heap[index] = value;
+        }
+
+        /**
+         * Removes the smallest value. The heap must not be empty.
+         * @return the smallest value
+         */
+        long remove() {
+
+            long min = heap[0];
+            long last = heap[--size];
+            int index = 0;
+
+            while (2 * index + 1 < size) {
+
+                int child = 2 * index + 1;
+
+                if (child + 1 < size && heap[child + 1] < heap[child]) {
+                    child++;
+                }
+
+                if (heap[child] >= last) {
+                    break;
+                }
+
+                heap[index] = heap[child];
+                index = child;
+            }
+
+            heap[index] = last;
+            return min;
+        }
+    }
+
+    /**
+     * Visitor that records the preorder of a depth first search.
+     */
+    private static final class Preorder implements DepthFirstSearch.Visitor {
+
+        private final int[] order;
+        private int count;
+
+        /**
+         * Creates a visitor for a graph of the given size.
+         * @param size the number of vertices
+         */
+        Preorder(int size) {
+
+            order = new int[size];
+        }
+
+        @Override
+        public void preorder(int vertex, int parent) {
+
+            order[count++] = vertex;
+        }
+    }
 }
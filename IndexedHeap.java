@@ -0,0 +1,256 @@
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+
+/**
+ * Min-heap of int ids in [0, capacity) keyed by int priorities, with
+ * decrease-key.
+ * <p>
+ * It is a 4-ary heap: half as deep as a binary one, and the four children a
+ * sift-down compares sit next to each other in memory. position maps each
+ * id to its index in the heap, so contains, key and decreaseKey find an id
+ * in O(1) instead of searching for it, and each id is in the heap at most
+ * once. Nothing is allocated after construction.
+ *
+ * @author Nicholas Watney Meyer
+ * @version 1.0
+ */
+public class IndexedHeap {
+
+    private static final int ARITY = 4;
+
+    private final int[] heap;
+    private final int[] position;
+    private final int[] keys;
+    private int size;
+
+    /**
+     * Creates an empty heap for the ids 0 to capacity - 1.
+     *
+     * @param capacity the number of ids
+     * @throws java.lang.IllegalArgumentException if capacity is negative
+     */
+    public IndexedHeap(int capacity) {
+
+        if (capacity < 0) {
+            throw new IllegalArgumentException("The capacity is negative.");
+        }
+
+        heap = new int[capacity];
+        position = new int[capacity];
+        keys = new int[capacity];
+        Arrays.fill(position, -1);
+    }
+
+    /**
+     * Returns whether the heap is empty.
+     *
+     * @return true if the heap is empty, false otherwise
+     */
+    public boolean isEmpty() {
+
+        return size == 0;
+    }
+
+    /**
+     * Returns the number of ids in the heap.
+     *
+     * @return the number of ids in the heap
+     */
+    public int size() {
+
+        return size;
+    }
+
+    /**
+     * Returns whether id is in the heap.
+     *
+     * @param id the id
+     * @return true if id is in the heap, false otherwise
+     * @throws java.lang.IllegalArgumentException if id is out of range
+     */
+    public boolean contains(int id) {
+
+        checkId(id);
+        return position[id] >= 0;
+    }
+
+    /**
+     * Returns the key of an id in the heap.
+     *
+     * @param id the id
+     * @return its key
+     * @throws java.lang.IllegalArgumentException if id is out of range
+     * @throws java.util.NoSuchElementException   if id is not in the heap
+     */
+    public int key(int id) {
+
+        if (!contains(id)) {
+            throw new NoSuchElementException("The id is not in the heap.");
+        }
+
+        return keys[id];
+    }
+
+    /**
+     * Adds an id with the given key.
+     *
+     * @param id  the id
+     * @param key its key
+     * @throws java.lang.IllegalArgumentException if id is out of range or
+     *                                            already in the heap
+     */
+    public void add(int id, int key) {
+
+        if (contains(id)) {
+            throw new IllegalArgumentException("The id is already in the heap.");
+        }
+
+        keys[id] = key;
+        siftUp(id, size++);
+    }
+
+    /**
+     * Lowers the key of an id in the heap.
+     *
+     * @param id  the id
+     * @param key its new key
+     * @throws java.lang.IllegalArgumentException if id is out of range or key
+     *                                            is larger than its key
+     * @throws java.util.NoSuchElementException   if id is not in the heap
+     */
+    public void decreaseKey(int id, int key) {
+
+        if (key > key(id)) {
+            throw new IllegalArgumentException("The key is larger than the current key.");
+        }
+
+        keys[id] = key;
+        siftUp(id, position[id]);
+    }
+
+    /**
+     * Returns the id with the smallest key without removing it.
+     *
+     * @return the id with the smallest key
+     * @throws java.util.NoSuchElementException if the heap is empty
+     */
+    public int peek() {
+
+        if (size == 0) {
+            throw new NoSuchElementException("The heap is empty.");
+        }
+
+        return heap[0];
+    }
+
+    /**
+     * Removes the id with the smallest key.
+     *
+     * @return the id with the smallest key
+     * @throws java.util.NoSuchElementException if the heap is empty
+     */
+    public int remove() {
+
+        int min = peek();
+        position[min] = -1;
+        int last = heap[--size];
+
+        if (size > 0) {
+            siftDown(last, 0);
+        }
+
+        return min;
+    }
+
+    /**
+     * Removes every id, in time proportional to the number removed.
+     */
+    public void clear() {
+
+        for (int i = 0; i < size; i++) {
+            position[heap[i]] = -1;
+        }
+
+        size = 0;
+    }
+
+    /**
+     * Moves id up from index until its parent's key is no larger, shifting
+     * the parents it passes down.
+     * @param id the id to place
+     * @param index the hole to start from
+     */
+    private void siftUp(int id, int index) {
+
+        int key = keys[id];
+
+        while (index > 0) {
+
+            int parent = (index - 1) / ARITY;
+
+            if (keys[heap[parent]] <= key) {
+                break;
+            }
+
+            heap[index] = heap[parent];
+            position[heap[index]] = index;
+            index = parent;
+        }
+
+        heap[index] = id;
+        position[id] = index;
+    }
+
+    /**
+     * Moves id down from index until no child has a smaller key, shifting
+     * the children it passes up.
+     * @param id the id to place
+     * @param index the hole to start from
+     */
+    private void siftDown(int id, int index) {
+
+        int key = keys[id];
+
+        while (true) {
+
+            int first = ARITY * index + 1;
+
+            if (first >= size) {
+                break;
+            }
+
+            int child = first;
+            int end = Math.min(first + ARITY, size);
+
+            for (int i = first + 1; i < end; i++) {
+
+                if (keys[heap[i]] < keys[heap[child]]) {
+                    child = i;
+                }
+            }
+
+            if (keys[heap[child]] >= key) {
+                break;
+            }
+
+            heap[index] = heap[child];
+            position[heap[index]] = index;
+            index = child;
+        }
+
+        heap[index] = id;
+        position[id] = index;
+    }
+
+    /**
+     * Checks that id is in range.
+     * @param id the id
+     * @throws java.lang.IllegalArgumentException if id is out of range
+     */
+    private void checkId(int id) {
+
+        if (id < 0 || id >= position.length) {
+            throw new IllegalArgumentException("The id is not in the acceptable range.");
+        }
+    }
+}
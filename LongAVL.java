@@ -0,0 +1,484 @@
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+
+/**
+ * AVL of primitive long keys, stored as parallel arrays instead of node
+ * objects.
+ * <p>
+ * A node is an index into keys, left, right and height; index 0 stands for
+ * null and has height 0, so leaves have height 1 here (height() still
+ * reports AVL's numbering). A node costs 17 bytes spread over four arrays,
+ * against a node object, a boxed key and their headers for AVL, and the
+ * whole tree is four objects for the garbage collector to scan no matter
+ * how big it is. Removed slots go on a free list threaded through left and
+ * are reused by later adds, and the arrays double when they run out.
+ * <p>
+ * int keys fit losslessly in a long, so this also serves as the int-key
+ * variant.
+ * <p>
+ * add and remove walk down once, remember the path in a fixed array, and
+ * rebalance on the way back up only as far as heights change. Neither
+ * allocates unless the arrays have to grow.
+ *
+ * @author Nicholas Watney Meyer
+ * @version 1.0
+ */
+public class LongAVL {
+
+    private static final int NIL = 0;
+
+    /**
+     * Longest possible root to leaf path. An AVL of 2^31 nodes is less than
+     * 46 levels tall.
+     */
+    private static final int MAX_HEIGHT = 64;
+
+    /**
+     * Largest array length the arrays grow to, the usual safe limit below
+     * Integer.MAX_VALUE. Slot 0 is NIL, so one less key than this fits.
+     */
+    private static final int MAX_CAPACITY = Integer.MAX_VALUE - 8;
+
+    private long[] keys;
+    private int[] left;
+    private int[] right;
+    private byte[] height;
+
+    private final int[] path = new int[MAX_HEIGHT];
+
+    private int root = NIL;
+    private int size;
+    private int next = 1;
+    private int free = NIL;
+
+    /**
+     * Constructs a new, empty LongAVL.
+     */
+    public LongAVL() {
+
+        this(16);
+    }
+
+    /**
+     * Constructs a new, empty LongAVL with room for the given number of keys
+     * before it has to grow.
+     *
+     * @param capacity the number of keys to make room for
+     * @throws java.lang.IllegalArgumentException if capacity is negative or
+     *                                            more than the arrays can
+     *                                            hold
+     */
+    public LongAVL(int capacity) {
+
+        if (capacity < 0 || capacity >= MAX_CAPACITY) {
+            throw new IllegalArgumentException("The capacity is negative or too large.");
+        }
+
+        keys = new long[capacity + 1];
+        left = new int[capacity + 1];
+        right = new int[capacity + 1];
+        height = new byte[capacity + 1];
+    }
+
+    /**
+     * Adds the key to the tree. If it is already in the tree, nothing is
+     * done.
+     *
+     * @param key the key to add
+     * @throws java.lang.IllegalStateException if the tree is full
+     */
+    public void add(long key) {
+
+        if (root == NIL) {
+            root = allocate(key);
+            size++;
+            return;
+        }
+
+        int depth = 0;
+        int node = root;
+
+        while (node != NIL) {
+
+            if (key == keys[node]) {
+                return;
+            }
+
+            path[depth++] = node;
+            node = key < keys[node] ? left[node] : right[node];
+        }
+
+        int leaf = allocate(key);
+        int parent = path[depth - 1];
+
+        if (key < keys[parent]) {
+            left[parent] = leaf;
+
+        } else {
+            right[parent] = leaf;
+        }
+
+        size++;
+        retrace(depth);
+    }
+
+    /**
+     * Removes the key from the tree. A node with two children takes the key
+     * of its predecessor, whose node is removed instead.
+     *
+     * @param key the key to remove
+     * @return the key that was removed
+     * @throws java.util.NoSuchElementException if the key is not in the tree
+     */
+    public long remove(long key) {
+
+        int depth = 0;
+        int node = root;
+
+        while (node != NIL && key != keys[node]) {
+            path[depth++] = node;
+            node = key < keys[node] ? left[node] : right[node];
+        }
+
+        if (node == NIL) {
+            throw new NoSuchElementException("The data is not in the tree.");
+        }
+
+        if (left[node] != NIL && right[node] != NIL) {
+
+            int target = node;
+            path[depth++] = node;
+            node = left[node];
+
+            while (right[node] != NIL) {
+                path[depth++] = node;
+                node = right[node];
+            }
+
+            keys[target] = keys[node];
+        }
+
+        int child = left[node] != NIL ? left[node] : right[node];
+
+        if (depth == 0) {
+            root = child;
+
+        } else if (left[path[depth - 1]] == node) {
+            left[path[depth - 1]] = child;
+
+        } else {
+            right[path[depth - 1]] = child;
+        }
+
+        left[node] = free;
+        free = node;
+        size--;
+        retrace(depth);
+
+        return key;
+    }
+
+    /**
+     * Returns the key in the tree matching the given parameter.
+     *
+     * @param key the key to search for
+     * @return the key
+     * @throws java.util.NoSuchElementException if the key is not in the tree
+     */
+    public long get(long key) {
+
+        if (find(key) == NIL) {
+            throw new NoSuchElementException("The data is not in the tree.");
+        }
+
+        return key;
+    }
+
+    /**
+     * Returns whether or not the key is contained within the tree.
+     *
+     * @param key the key to search for
+     * @return true if the key is in the tree, false otherwise
+     */
+    public boolean contains(long key) {
+
+        return find(key) != NIL;
+    }
+
+    /**
+     * Searches for the node holding key.
+     * @param key the key to search for
+     * @return the node, or NIL if there is none
+     */
+    private int find(long key) {
+
+        int node = root;
+
+        while (node != NIL && key != keys[node]) {
+            node = key < keys[node] ? left[node] : right[node];
+        }
+
+        return node;
+    }
+
+    /**
+     * Returns the height of the root of the tree.
+     *
+     * @return the height of the root of the tree, -1 if the tree is empty
+     */
+    public int height() {
+
+        return height[root] - 1;
+    }
+
+    /**
+     * Clears the tree. The arrays are kept for reuse.
+     */
+    public void clear() {
+
+        root = NIL;
+        size = 0;
+        next = 1;
+        free = NIL;
+    }
+
+    /**
+     * Returns the size of the tree.
+     *
+     * @return the size of the tree
+     */
+    public int size() {
+
+        return size;
+    }
+
+    /**
+     * Returns all keys within the given distance of the given key, like
+     * AVL.elementsWithinDistance. The distance between two keys is the
+     * number of edges between their nodes.
+     *
+     * @param key      the key to begin calculating distance from
+     * @param distance the maximum distance allowed
+     * @return the keys within distance of key, in no particular order
+     * @throws java.util.NoSuchElementException   if the key is not in the tree
+     * @throws java.lang.IllegalArgumentException if distance is negative
+     */
+    public long[] elementsWithinDistance(long key, int distance) {
+
+        if (distance < 0) {
+            throw new IllegalArgumentException("The distance is negative.");
+        }
+
+        int depth = 0;
+        int node = root;
+
+        while (node != NIL && key != keys[node]) {
+            path[depth++] = node;
+            node = key < keys[node] ? left[node] : right[node];
+        }
+
+        if (node == NIL) {
+            throw new NoSuchElementException("The data is not in the tree.");
+        }
+
+        Buffer buffer = new Buffer();
+        collect(node, distance, buffer);
+
+        for (int up = 1; up <= distance && up <= depth; up++) {
+
+            int ancestor = path[depth - up];
+            int from = up == 1 ? node : path[depth - up + 1];
+            buffer.append(keys[ancestor]);
+            collect(left[ancestor] == from ? right[ancestor] : left[ancestor], distance - up - 1, buffer);
+        }
+
+        return Arrays.copyOf(buffer.keys, buffer.count);
+    }
+
+    /**
+     * Adds the keys of node's subtree that are at most distance edges below
+     * it to buffer.
+     * @param node root of the subtree, may be NIL
+     * @param distance how many edges below node to go, negative for none
+     * @param buffer the keys collected so far
+     */
+    private void collect(int node, int distance, Buffer buffer) {
+
+        if (node == NIL || distance < 0) {
+            return;
+        }
+
+        buffer.append(keys[node]);
+        collect(left[node], distance - 1, buffer);
+        collect(right[node], distance - 1, buffer);
+    }
+
+    /**
+     * Rebalances path[0..depth) from the bottom up, stopping once a
+     * subtree's height is unchanged.
+     * @param depth number of nodes on the path
+     */
+    private void retrace(int depth) {
+
+        for (int i = depth - 1; i >= 0; i--) {
+
+            int node = path[i];
+            int oldHeight = height[node];
+            int newNode = rotation(node);
+
+            if (newNode != node) {
+
+                if (i == 0) {
+                    root = newNode;
+
+                } else if (left[path[i - 1]] == node) {
+                    left[path[i - 1]] = newNode;
+
+                } else {
+                    right[path[i - 1]] = newNode;
+                }
+            }
+
+            if (height[newNode] == oldHeight) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Updates a node's height and rotates it if it is out of balance.
+     * @param node the node
+     * @return the new root of the subtree
+     */
+    private int rotation(int node) {
+
+        update(node);
+        int balance = height[left[node]] - height[right[node]];
+
+        if (balance < -1) {
+
+            int child = right[node];
+
+            if (height[left[child]] > height[right[child]]) {
+                right[node] = rightRotation(child);
+            }
+
+            return leftRotation(node);
+
+        } else if (balance > 1) {
+
+            int child = left[node];
+
+            if (height[right[child]] > height[left[child]]) {
+                left[node] = leftRotation(child);
+            }
+
+            return rightRotation(node);
+
+        } else {
+            return node;
+        }
+    }
+
+    /**
+     * Performs a left rotation.
+     * @param node current parent node
+     * @return returns new parent node
+     */
+    private int leftRotation(int node) {
+
+        int child = right[node];
+        right[node] = left[child];
+        left[child] = node;
+        update(node);
+        update(child);
+        return child;
+    }
+
+    /**
+     * Performs a right rotation.
+     * @param node current parent node
+     * @return returns new parent node
+     */
+    private int rightRotation(int node) {
+
+        int child = left[node];
+        left[node] = right[child];
+        right[child] = node;
+        update(node);
+        update(child);
+        return child;
+    }
+
+    /**
+     * Recomputes a node's height from its children.
+     * @param node the node
+     */
+    private void update(int node) {
+
+        height[node] = (byte) (1 + Math.max(height[left[node]], height[right[node]]));
+    }
+
+    /**
+     * Takes a slot off the free list, or the next unused one, and makes it a
+     * leaf holding key. The arrays double in length, up to MAX_CAPACITY.
+     * @param key the key
+     * @return the new node
+     * @throws java.lang.IllegalStateException if the arrays are at
+     *                                         MAX_CAPACITY and full
+     */
+    private int allocate(long key) {
+
+        int node = free;
+
+        if (node != NIL) {
+            free = left[node];
+
+        } else {
+
+            if (next == keys.length) {
+
+                if (keys.length >= MAX_CAPACITY) {
+                    throw new IllegalStateException("The tree is full.");
+                }
+
+                int capacity = (int) Math.min(Math.max(2L * keys.length, 2), MAX_CAPACITY);
+                keys = Arrays.copyOf(keys, capacity);
+                left = Arrays.copyOf(left, capacity);
+                right = Arrays.copyOf(right, capacity);
+                height = Arrays.copyOf(height, capacity);
+            }
+
+            node = next++;
+        }
+
+        keys[node] = key;
+        left[node] = NIL;
+        right[node] = NIL;
+        height[node] = 1;
+        return node;
+    }
+
+    /**
+     * Growable array of keys, local to one elementsWithinDistance call so the
+     * tree keeps no scratch state between calls.
+     */
+    private static final class Buffer {
+
+        private long[] keys = new long[16];
+        private int count;
+
+        /**
+         * Appends a key, growing the array if needed.
+         * @param key the key
+         */
+        void append(long key) {
+
+            if (count == keys.length) {
+                keys = Arrays.copyOf(keys, (int) Math.min(2L * count, MAX_CAPACITY));
+            }
+
+            keys[count++] = key;
+        }
+    }
+}
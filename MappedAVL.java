@@ -0,0 +1,995 @@
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.zip.CRC32;
+
+/**
+ * AVL set whose nodes live in a memory-mapped file, so an index survives
+ * restarts and reopens without being rebuilt.
+ * <p>
+ * The file is two header copies followed by fixed-width slots. A slot holds
+ * the left and right child as slot numbers, the height, and the key in the
+ * encoding of a pluggable Codec; slot 0 stands for null. Slots are mapped
+ * in segments of SEGMENT_SLOTS, and the file grows a segment at a time.
+ * Searches compare the key they are given against the encoded keys in
+ * place, so contains never decodes anything onto the heap.
+ * <p>
+ * Updates are crash safe by copy-on-write with a root swap. A change never
+ * writes a slot that the last committed tree can reach: the path to it is
+ * copied into free slots, as in PersistentAVL, while slots written since
+ * the last commit are changed in place. commit() forces the slots to disk
+ * and then writes the new root, size and free list into whichever header
+ * copy is older, with a sequence number and a CRC. Opening picks the newest
+ * header with a valid CRC, so a crash at any point leaves the last
+ * committed tree intact and loses only uncommitted changes.
+ * <p>
+ * Slots freed by a commit go on a free list threaded through their left
+ * links, and the list head is saved with the next commit or on close. A
+ * header is marked clean only by close(), and reopening is O(1) after a
+ * clean close. After a crash the free list cannot be trusted, because slots
+ * may have been taken off it by changes that were never committed, so it
+ * is rebuilt by marking every slot reachable from the root.
+ * <p>
+ * Like AVL, a MappedAVL is not thread safe, and a file must be open in only
+ * one MappedAVL at a time.
+ *
+ * @author Nicholas Watney Meyer
+ * @version 1.0
+ * @param <T> the type of key in the set
+ */
+public class MappedAVL<T> implements Closeable {
+
+    private static final long MAGIC = 0x4D6170706564414CL;
+
+    private static final int NIL = 0;
+
+    /**
+     * Slots per mapped segment.
+     */
+    private static final int SEGMENT_SLOTS = 1 << 16;
+
+    /**
+     * Bytes per header copy. The slots start after both copies.
+     */
+    private static final int HEADER_SIZE = 64;
+
+    private static final int LEFT = 0;
+    private static final int RIGHT = 4;
+    private static final int HEIGHT = 8;
+    private static final int KEY = 12;
+
+    private final Codec<T> codec;
+    private final FileChannel channel;
+    private final MappedByteBuffer header;
+    private final List<MappedByteBuffer> segments = new ArrayList<MappedByteBuffer>();
+    private final int slotSize;
+
+    private long sequence;
+    private int root;
+    private int size;
+    private int slots;
+    private int free;
+
+    /**
+     * Slots written since the last commit, which may be changed in place.
+     */
+    private final BitSet fresh = new BitSet();
+
+    /**
+     * Slots the last committed tree still uses but the current one does not.
+     * They are freed by the next commit.
+     */
+    private final List<Integer> retired = new ArrayList<Integer>();
+
+    /**
+     * Fixed-width encoding of keys, which also defines their order.
+     *
+     * @param <T> the type of key
+     */
+    public interface Codec<T> {
+
+        /**
+         * Returns the number of bytes every encoded key takes.
+         *
+         * @return the width of a key
+         */
+        int width();
+
+        /**
+         * Encodes a key.
+         *
+         * @param key    the key
+         * @param buffer the buffer to write to
+         * @param offset where to write the key
+         */
+        void write(T key, ByteBuffer buffer, int offset);
+
+        /**
+         * Decodes a key.
+         *
+         * @param buffer the buffer to read from
+         * @param offset where the key starts
+         * @return the key
+         */
+        T read(ByteBuffer buffer, int offset);
+
+        /**
+         * Compares a key with an encoded key, without decoding it.
+         *
+         * @param key    the key
+         * @param buffer the buffer holding the encoded key
+         * @param offset where the encoded key starts
+         * @return negative, zero or positive as key is less than, equal to
+         *         or greater than the encoded key
+         */
+        int compare(T key, ByteBuffer buffer, int offset);
+    }
+
+    /**
+     * Returns a codec for Integer keys in their natural order.
+     *
+     * @return the codec
+     */
+    public static Codec<Integer> integers() {
+
+        return new Codec<Integer>() {
+
+            @Override
+            public int width() {
+
+                return Integer.BYTES;
+            }
+
+            @Override
+            public void write(Integer key, ByteBuffer buffer, int offset) {
+
+                buffer.putInt(offset, key);
+            }
+
+            @Override
+            public Integer read(ByteBuffer buffer, int offset) {
+
+                return buffer.getInt(offset);
+            }
+
+            @Override
+            public int compare(Integer key, ByteBuffer buffer, int offset) {
+
+                return Integer.compare(key, buffer.getInt(offset));
+            }
+        };
+    }
+
+    /**
+     * Returns a codec for Long keys in their natural order.
+     *
+     * @return the codec
+     */
+    public static Codec<Long> longs() {
+
+        return new Codec<Long>() {
+
+            @Override
+            public int width() {
+
+                return Long.BYTES;
+            }
+
+            @Override
+            public void write(Long key, ByteBuffer buffer, int offset) {
+
+                buffer.putLong(offset, key);
+            }
+
+            @Override
+            public Long read(ByteBuffer buffer, int offset) {
+
+                return buffer.getLong(offset);
+            }
+
+            @Override
+            public int compare(Long key, ByteBuffer buffer, int offset) {
+
+                return Long.compare(key, buffer.getLong(offset));
+            }
+        };
+    }
+
+    /**
+     * Opens the set stored in file, creating an empty one if the file does
+     * not exist or is empty.
+     *
+     * @param file  the file holding the set
+     * @param codec the key encoding, which must be the one the file was
+     *              created with
+     * @throws java.lang.IllegalArgumentException if file or codec is null,
+     *                                            or the file is not a set of
+     *                                            keys of the codec's width
+     * @throws IOException                        if the file cannot be opened
+     *                                            or mapped
+     */
+    public MappedAVL(Path file, Codec<T> codec) throws IOException {
+
+        if (file == null || codec == null) {
+            throw new IllegalArgumentException("The file or codec is null.");
+        }
+
+        this.codec = codec;
+        this.slotSize = KEY + codec.width();
+        this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+
+        try {
+
+            boolean created = channel.size() == 0;
+            header = channel.map(FileChannel.MapMode.READ_WRITE, 0, 2 * HEADER_SIZE);
+            boolean clean = true;
+
+            if (created) {
+                slots = 1;
+
+            } else {
+                clean = readHeader();
+            }
+
+            for (int segment = 0; segment * (long) SEGMENT_SLOTS < slots; segment++) {
+                mapSegment(segment);
+            }
+
+            if (!clean) {
+                rebuildFreeList();
+            }
+
+            // Marks the file as open, so a crash is noticed next time.
+            writeHeader(false);
+            header.force();
+
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Adds the key to the set. The change is durable after the next commit.
+     *
+     * @param key the key to add
+     * @throws java.lang.IllegalArgumentException if key is null
+     * @throws IOException                        if the file cannot grow
+     */
+    public void add(T key) throws IOException {
+
+        if (key == null) {
+            throw new IllegalArgumentException("The data is null.");
+        }
+
+        if (find(key) == NIL) {
+            root = rAdd(root, key);
+        }
+    }
+
+    /**
+     * Helper method for add. The key must not be in the subtree. Every node
+     * on the path is rewritten and rebalanced, even when its child keeps its
+     * slot because it was already written in place, since the child's
+     * height may still have grown.
+     * @param node root of the subtree
+     * @param key the key to add
+     * @return root of the new subtree
+     * @throws IOException if the file cannot grow
+     */
+    private int rAdd(int node, T key) throws IOException {
+
+        if (node == NIL) {
+
+            int leaf = allocate();
+            codec.write(key, segment(leaf), offset(leaf) + KEY);
+            size++;
+            return leaf;
+        }
+
+        int compare = compare(key, node);
+        int newChild = rAdd(compare < 0 ? left(node) : right(node), key);
+        node = writable(node);
+
+        if (compare < 0) {
+            setLeft(node, newChild);
+
+        } else {
+            setRight(node, newChild);
+        }
+
+        return rotation(node);
+    }
+
+    /**
+     * Removes the key from the set. The change is durable after the next
+     * commit.
+     *
+     * @param key the key to remove
+     * @return the key that was removed, as stored
+     * @throws java.lang.IllegalArgumentException if key is null
+     * @throws java.util.NoSuchElementException   if the key is not in the set
+     * @throws IOException                        if the file cannot grow
+     */
+    public T remove(T key) throws IOException {
+
+        if (key == null) {
+            throw new IllegalArgumentException("The data is null.");
+        }
+
+        int node = find(key);
+
+        if (node == NIL) {
+            throw new NoSuchElementException("The data is not in the tree.");
+        }
+
+        T removed = codec.read(segment(node), offset(node) + KEY);
+        root = rRemove(root, key);
+        size--;
+        return removed;
+    }
+
+    /**
+     * Helper method for remove. The key must be in the subtree. A node with
+     * two children takes the key of its predecessor, like AVL.remove does.
+     * @param node root of the subtree
+     * @param key the key to remove
+     * @return root of the new subtree
+     * @throws IOException if the file cannot grow
+     */
+    private int rRemove(int node, T key) throws IOException {
+
+        int compare = compare(key, node);
+
+        if (compare < 0) {
+            int newLeft = rRemove(left(node), key);
+            node = writable(node);
+            setLeft(node, newLeft);
+
+        } else if (compare > 0) {
+            int newRight = rRemove(right(node), key);
+            node = writable(node);
+            setRight(node, newRight);
+
+        } else if (left(node) == NIL || right(node) == NIL) {
+
+            int child = left(node) == NIL ? right(node) : left(node);
+            release(node);
+            return child;
+
+        } else {
+
+            int predecessor = left(node);
+
+            while (right(predecessor) != NIL) {
+                predecessor = right(predecessor);
+            }
+
+            node = writable(node);
+            segment(node).put(offset(node) + KEY, segment(predecessor), offset(predecessor) + KEY, codec.width());
+
+            setLeft(node, rRemoveLast(left(node)));
+        }
+
+        return rotation(node);
+    }
+
+    /**
+     * Removes the largest node of a subtree.
+     * @param node root of the subtree, not NIL
+     * @return root of the new subtree
+     * @throws IOException if the file cannot grow
+     */
+    private int rRemoveLast(int node) throws IOException {
+
+        if (right(node) == NIL) {
+            int child = left(node);
+            release(node);
+            return child;
+        }
+
+        int newRight = rRemoveLast(right(node));
+        node = writable(node);
+        setRight(node, newRight);
+        return rotation(node);
+    }
+
+    /**
+     * Updates the height of a writable node and rotates it if it is out of
+     * balance, first making writable the nodes the rotation rewires.
+     * @param node the writable node
+     * @return the new root of the subtree
+     * @throws IOException if the file cannot grow
+     */
+    private int rotation(int node) throws IOException {
+
+        update(node);
+        int balance = height(left(node)) - height(right(node));
+
+        if (balance < -1) {
+
+            int child = writable(right(node));
+            setRight(node, child);
+
+            if (height(left(child)) > height(right(child))) {
+                int grandchild = writable(left(child));
+                setLeft(child, grandchild);
+                setRight(node, rightRotation(child));
+            }
+
+            return leftRotation(node);
+
+        } else if (balance > 1) {
+
+            int child = writable(left(node));
+            setLeft(node, child);
+
+            if (height(right(child)) > height(left(child))) {
+                int grandchild = writable(right(child));
+                setRight(child, grandchild);
+                setLeft(node, leftRotation(child));
+            }
+
+            return rightRotation(node);
+
+        } else {
+            return node;
+        }
+    }
+
+    /**
+     * Performs a left rotation on writable nodes.
+     * @param node current parent node
+     * @return returns new parent node
+     */
+    private int leftRotation(int node) {
+
+        int child = right(node);
+        setRight(node, left(child));
+        setLeft(child, node);
+        update(node);
+        update(child);
+        return child;
+    }
+
+    /**
+     * Performs a right rotation on writable nodes.
+     * @param node current parent node
+     * @return returns new parent node
+     */
+    private int rightRotation(int node) {
+
+        int child = left(node);
+        setLeft(node, right(child));
+        setRight(child, node);
+        update(node);
+        update(child);
+        return child;
+    }
+
+    /**
+     * Recomputes a writable node's height from its children.
+     * @param node the node
+     */
+    private void update(int node) {
+
+        segment(node).putInt(offset(node) + HEIGHT, 1 + Math.max(height(left(node)), height(right(node))));
+    }
+
+    /**
+     * Returns the key in the set equal to the given one, decoded from the
+     * file.
+     *
+     * @param key the key to search for
+     * @return the stored key
+     * @throws java.lang.IllegalArgumentException if key is null
+     * @throws java.util.NoSuchElementException   if the key is not in the set
+     */
+    public T get(T key) {
+
+        if (key == null) {
+            throw new IllegalArgumentException("The data is null.");
+        }
+
+        int node = find(key);
+
+        if (node == NIL) {
+            throw new NoSuchElementException("The data is not in the tree.");
+        }
+
+        return codec.read(segment(node), offset(node) + KEY);
+    }
+
+    /**
+     * Returns whether the key is in the set. Nothing is decoded.
+     *
+     * @param key the key to search for
+     * @return true if the key is in the set, false otherwise
+     * @throws java.lang.IllegalArgumentException if key is null
+     */
+    public boolean contains(T key) {
+
+        if (key == null) {
+            throw new IllegalArgumentException("The data is null.");
+        }
+
+        return find(key) != NIL;
+    }
+
+    /**
+     * Searches for the slot holding key.
+     * @param key the key to search for
+     * @return the slot, or NIL if there is none
+     */
+    private int find(T key) {
+
+        int node = root;
+
+        while (node != NIL) {
+
+            int compare = compare(key, node);
+
+            if (compare == 0) {
+                return node;
+            }
+
+            node = compare < 0 ? left(node) : right(node);
+        }
+
+        return NIL;
+    }
+
+    /**
+     * Returns the height of the root of the tree.
+     *
+     * @return the height of the root of the tree, -1 if the set is empty
+     */
+    public int height() {
+
+        return height(root) - 1;
+    }
+
+    /**
+     * Returns the number of keys in the set.
+     *
+     * @return the size of the set
+     */
+    public int size() {
+
+        return size;
+    }
+
+    /**
+     * Checks the structure of the file and returns the keys in order: the
+     * tree must be a proper AVL tree of size keys, and every slot below the
+     * high-water mark must be in exactly one of the tree, the free list and
+     * the slots retired since the last commit. Used by the tests.
+     *
+     * @return the keys of the set in ascending order
+     * @throws java.lang.IllegalStateException if the keys are out of order,
+     *                                         a height is wrong, a node is
+     *                                         out of balance, size disagrees
+     *                                         or a slot is lost or used twice
+     */
+    List<T> checkStructure() {
+
+        List<T> keys = new ArrayList<T>();
+        BitSet used = new BitSet(slots);
+        checkStructure(root, used, keys);
+
+        if (keys.size() != size) {
+            throw new IllegalStateException("The size is " + size + " but the tree holds " + keys.size() + " keys.");
+        }
+
+        int count = keys.size();
+
+        for (int slot = free; slot != NIL; slot = left(slot)) {
+            claim(slot, used, "free list");
+            count++;
+        }
+
+        for (int slot : retired) {
+            claim(slot, used, "retired slots");
+            count++;
+        }
+
+        if (count != slots - 1) {
+            throw new IllegalStateException((slots - 1 - count) + " slots are lost.");
+        }
+
+        return keys;
+    }
+
+    /**
+     * Helper method for checkStructure.
+     * @param node the subtree to check
+     * @param used slots seen so far
+     * @param keys the keys in order so far
+     * @return the height of the subtree
+     */
+    private int checkStructure(int node, BitSet used, List<T> keys) {
+
+        if (node == NIL) {
+            return 0;
+        }
+
+        claim(node, used, "tree");
+        int left = checkStructure(left(node), used, keys);
+
+        if (!keys.isEmpty() && compare(keys.get(keys.size() - 1), node) >= 0) {
+            throw new IllegalStateException("Slot " + node + " is out of order.");
+        }
+
+        keys.add(codec.read(segment(node), offset(node) + KEY));
+        int right = checkStructure(right(node), used, keys);
+
+        if (height(node) != Math.max(left, right) + 1) {
+            throw new IllegalStateException("The height of slot " + node + " is wrong.");
+        }
+
+        if (Math.abs(left - right) > 1) {
+            throw new IllegalStateException("Slot " + node + " is out of balance.");
+        }
+
+        return height(node);
+    }
+
+    /**
+     * Marks a slot as used, checking it is in range and not used already.
+     * @param slot the slot
+     * @param used slots seen so far
+     * @param where what the slot was found in, for the message
+     */
+    private void claim(int slot, BitSet used, String where) {
+
+        if (slot <= NIL || slot >= slots || used.get(slot)) {
+            throw new IllegalStateException("The " + where + " holds slot " + slot + ", which is out of range or used twice.");
+        }
+
+        used.set(slot);
+    }
+
+    /**
+     * Makes every change since the last commit durable. The slots are forced
+     * to disk before the header that points at them is written, so a crash
+     * in between leaves the previous commit in place.
+     */
+    public void commit() {
+
+        if (fresh.isEmpty() && retired.isEmpty()) {
+            return;
+        }
+
+        for (MappedByteBuffer segment : segments) {
+            segment.force();
+        }
+
+        writeHeader(false);
+        header.force();
+
+        // The committed tree no longer reaches these, so they can be reused.
+        for (int node : retired) {
+            setLeft(node, free);
+            free = node;
+        }
+
+        retired.clear();
+        fresh.clear();
+    }
+
+    /**
+     * Commits, saves the free list, marks the file clean and closes it.
+     *
+     * @throws IOException if the file cannot be closed
+     */
+    @Override
+    public void close() throws IOException {
+
+        if (!channel.isOpen()) {
+            return;
+        }
+
+        commit();
+
+        for (MappedByteBuffer segment : segments) {
+            segment.force();
+        }
+
+        writeHeader(true);
+        header.force();
+        channel.close();
+    }
+
+    /**
+     * Returns a slot that may be written: slot itself if it was written
+     * since the last commit, or a fresh copy of it otherwise, in which case
+     * slot is retired.
+     * @param slot the slot
+     * @return the writable slot
+     * @throws IOException if the file cannot grow
+     */
+    private int writable(int slot) throws IOException {
+
+        if (fresh.get(slot)) {
+            return slot;
+        }
+
+        int copy = allocate();
+        segment(copy).put(offset(copy), segment(slot), offset(slot), slotSize);
+
+        retired.add(slot);
+        return copy;
+    }
+
+    /**
+     * Drops a slot that is no longer in the tree. A fresh slot is free at
+     * once; any other is retired until the next commit.
+     * @param slot the slot
+     */
+    private void release(int slot) {
+
+        if (fresh.get(slot)) {
+            fresh.clear(slot);
+            setLeft(slot, free);
+            free = slot;
+
+        } else {
+            retired.add(slot);
+        }
+    }
+
+    /**
+     * Takes a slot off the free list, or the next unused one, and makes it an
+     * empty leaf.
+     * @return the slot
+     * @throws IOException if the file cannot grow
+     */
+    private int allocate() throws IOException {
+
+        int slot = free;
+
+        if (slot != NIL) {
+            free = left(slot);
+
+        } else {
+
+            if (slots == Integer.MAX_VALUE) {
+                throw new IOException("The file has no more slots.");
+            }
+
+            slot = slots++;
+
+            if (slot / SEGMENT_SLOTS == segments.size()) {
+                mapSegment(segments.size());
+            }
+        }
+
+        fresh.set(slot);
+        setLeft(slot, NIL);
+        setRight(slot, NIL);
+        segment(slot).putInt(offset(slot) + HEIGHT, 1);
+        return slot;
+    }
+
+    /**
+     * Maps a segment, growing the file to cover it.
+     * @param segment the segment number
+     * @throws IOException if the file cannot be mapped
+     */
+    private void mapSegment(int segment) throws IOException {
+
+        long start = 2L * HEADER_SIZE + (long) segment * SEGMENT_SLOTS * slotSize;
+        segments.add(channel.map(FileChannel.MapMode.READ_WRITE, start, (long) SEGMENT_SLOTS * slotSize));
+    }
+
+    /**
+     * Rebuilds the free list from scratch: every slot below the high-water
+     * mark that the root cannot reach is free.
+     */
+    private void rebuildFreeList() {
+
+        BitSet reachable = new BitSet(slots);
+        int[] stack = new int[64];
+        int top = 0;
+
+        if (root != NIL) {
+            stack[top++] = root;
+        }
+
+        while (top > 0) {
+
+            int node = stack[--top];
+            reachable.set(node);
+
+            if (top + 2 > stack.length) {
+                stack = Arrays.copyOf(stack, 2 * stack.length);
+            }
+
+            if (left(node) != NIL) {
+                stack[top++] = left(node);
+            }
+
+            if (right(node) != NIL) {
+                stack[top++] = right(node);
+            }
+        }
+
+        free = NIL;
+
+        for (int slot = slots - 1; slot > NIL; slot--) {
+
+            if (!reachable.get(slot)) {
+                setLeft(slot, free);
+                free = slot;
+            }
+        }
+    }
+
+    /**
+     * Loads the newest header copy whose CRC checks out.
+     * @return whether the file was closed cleanly
+     */
+    private boolean readHeader() {
+
+        long best = -1;
+        boolean clean = false;
+
+        for (int copy = 0; copy < 2; copy++) {
+
+            int base = copy * HEADER_SIZE;
+
+            if (header.getLong(base) != MAGIC || header.getLong(base + 40) != checksum(base)) {
+                continue;
+            }
+
+            if (header.getInt(base + 32) != codec.width()) {
+                throw new IllegalArgumentException("The file holds keys of a different width.");
+            }
+
+            long copySequence = header.getLong(base + 8);
+
+            if (copySequence > best) {
+                best = copySequence;
+                sequence = copySequence;
+                root = header.getInt(base + 16);
+                size = header.getInt(base + 20);
+                slots = header.getInt(base + 24);
+                free = header.getInt(base + 28);
+                clean = header.getInt(base + 36) == 1;
+            }
+        }
+
+        if (best < 0) {
+            throw new IllegalArgumentException("The file is not a MappedAVL.");
+        }
+
+        return clean;
+    }
+
+    /**
+     * Writes the state into the older header copy under the next sequence
+     * number.
+     * @param clean whether to mark the file as cleanly closed
+     */
+    private void writeHeader(boolean clean) {
+
+        sequence++;
+        int base = (int) (sequence & 1) * HEADER_SIZE;
+        header.putLong(base, MAGIC);
+        header.putLong(base + 8, sequence);
+        header.putInt(base + 16, root);
+        header.putInt(base + 20, size);
+        header.putInt(base + 24, slots);
+        header.putInt(base + 28, free);
+        header.putInt(base + 32, codec.width());
+        header.putInt(base + 36, clean ? 1 : 0);
+        header.putLong(base + 40, checksum(base));
+    }
+
+    /**
+     * Computes the CRC of a header copy's fields.
+     * @param base where the copy starts
+     * @return the CRC
+     */
+    private long checksum(int base) {
+
+        CRC32 crc = new CRC32();
+
+        for (int i = 0; i < 40; i++) {
+            crc.update(header.get(base + i));
+        }
+
+        return crc.getValue();
+    }
+
+    /**
+     * Compares a key with the key stored in a slot.
+     * @param key the key
+     * @param slot the slot
+     * @return the comparison
+     */
+    private int compare(T key, int slot) {
+
+        return codec.compare(key, segment(slot), offset(slot) + KEY);
+    }
+
+    /**
+     * Returns the segment a slot lives in.
+     * @param slot the slot
+     * @return the segment's buffer
+     */
+    private ByteBuffer segment(int slot) {
+
+        return segments.get(slot / SEGMENT_SLOTS);
+    }
+
+    /**
+     * Returns where a slot starts within its segment.
+     * @param slot the slot
+     * @return the byte offset
+     */
+    private int offset(int slot) {
+
+        return slot % SEGMENT_SLOTS * slotSize;
+    }
+
+    /**
+     * Returns a slot's left child.
+     * @param slot the slot
+     * @return the left child
+     */
+    private int left(int slot) {
+
+        return segment(slot).getInt(offset(slot) + LEFT);
+    }
+
+    /**
+     * Returns a slot's right child.
+     * @param slot the slot
+     * @return the right child
+     */
+    private int right(int slot) {
+
+        return segment(slot).getInt(offset(slot) + RIGHT);
+    }
+
+    /**
+     * Returns a slot's height, 0 for NIL.
+     * @param slot the slot
+     * @return the height
+     */
+    private int height(int slot) {
+
+        return slot == NIL ? 0 : segment(slot).getInt(offset(slot) + HEIGHT);
+    }
+
+    /**
+     * Sets a slot's left child.
+     * @param slot the slot
+     * @param child the new left child
+     */
+    private void setLeft(int slot, int child) {
+
+        segment(slot).putInt(offset(slot) + LEFT, child);
+    }
+
+    /**
+     * Sets a slot's right child.
+     * @param slot the slot
+     * @param child the new right child
+     */
+    private void setRight(int slot, int child) {
+
+        segment(slot).putInt(offset(slot) + RIGHT, child);
+    }
+}
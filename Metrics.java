@@ -0,0 +1,310 @@
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Opt-in instrumentation for Sorting, PatternMatching, AVL and
+ * GraphAlgorithms.
+ * <p>
+ * Every instrumented operation owns a Probe, which records calls, wall time,
+ * comparisons, swaps, moves, allocations and rotations into LongAdders, plus
+ * a latency histogram with one lock-free bucket per power of two
+ * nanoseconds, so concurrent callers never contend on a lock.
+ * <p>
+ * Recording is switched on by starting the JVM with
+ * -Dmetrics.enabled=true. ENABLED is a static final constant, so when it is
+ * off every probe method is an empty call that the JIT inlines and removes,
+ * and counting(comparator) hands back the comparator itself. A disabled
+ * build therefore runs the same code as an uninstrumented one.
+ *
+ * @author Nicholas Watney Meyer
+ * @version 1.0
+ */
+public final class Metrics {
+
+    /**
+     * Whether probes record anything, read once from -Dmetrics.enabled.
+     */
+    public static final boolean ENABLED = Boolean.getBoolean("metrics.enabled");
+
+    private static final ConcurrentMap<String, Probe> PROBES = new ConcurrentHashMap<String, Probe>();
+
+    /**
+     * Not instantiable.
+     */
+    private Metrics() {
+    }
+
+    /**
+     * Returns the probe with the given name, creating it the first time.
+     *
+     * @param name the name of the probe, e.g. "Sorting.mergeSort"
+     * @return the probe
+     * @throws java.lang.IllegalArgumentException if name is null
+     */
+    public static Probe probe(String name) {
+
+        if (name == null) {
+            throw new IllegalArgumentException("The name is null.");
+        }
+
+        return PROBES.computeIfAbsent(name, Probe::new);
+    }
+
+    /**
+     * Returns the current value of every probe that has been called, keyed
+     * by probe name and then by counter name.
+     *
+     * @return a sorted snapshot of every probe
+     */
+    public static Map<String, Map<String, Long>> snapshot() {
+
+        Map<String, Map<String, Long>> snapshot = new TreeMap<String, Map<String, Long>>();
+
+        for (Probe probe : PROBES.values()) {
+
+            Map<String, Long> values = probe.snapshot();
+
+            if (values.values().stream().anyMatch(value -> value != 0)) {
+                snapshot.put(probe.name, values);
+            }
+        }
+
+        return snapshot;
+    }
+
+    /**
+     * Exports every probe that has been called, one line per counter, as
+     * "probe counter value".
+     *
+     * @return the exported text
+     */
+    public static String export() {
+
+        StringBuilder builder = new StringBuilder();
+
+        for (Map.Entry<String, Map<String, Long>> probe : snapshot().entrySet()) {
+
+            for (Map.Entry<String, Long> counter : probe.getValue().entrySet()) {
+
+                builder.append(probe.getKey()).append(' ').append(counter.getKey()).append(' ')
+                        .append(counter.getValue()).append('\n');
+            }
+        }
+
+        return builder.toString();
+    }
+
+    /**
+     * Resets every probe to zero.
+     */
+    public static void reset() {
+
+        for (Probe probe : PROBES.values()) {
+            probe.reset();
+        }
+    }
+
+    /**
+     * Counters and latency histogram for one operation.
+     */
+    public static final class Probe {
+
+        private final String name;
+        private final LongAdder calls = new LongAdder();
+        private final LongAdder nanos = new LongAdder();
+        private final LongAdder comparisons = new LongAdder();
+        private final LongAdder swaps = new LongAdder();
+        private final LongAdder moves = new LongAdder();
+        private final LongAdder allocations = new LongAdder();
+        private final LongAdder rotations = new LongAdder();
+        private final AtomicLongArray latency = new AtomicLongArray(Long.SIZE + 1);
+
+        /**
+         * Creates an empty probe.
+         * @param name the name of the probe
+         */
+        private Probe(String name) {
+
+            this.name = name;
+        }
+
+        /**
+         * Marks the start of a call.
+         *
+         * @return the start time to pass to stop, or 0 when disabled
+         */
+        public long start() {
+
+            return ENABLED ? System.nanoTime() : 0L;
+        }
+
+        /**
+         * Marks the end of a call, recording it and its wall time.
+         *
+         * @param start the value returned by start
+         */
+        public void stop(long start) {
+
+            if (ENABLED) {
+
+                long elapsed = System.nanoTime() - start;
+                calls.increment();
+                nanos.add(elapsed);
+                latency.incrementAndGet(Long.SIZE - Long.numberOfLeadingZeros(elapsed));
+            }
+        }
+
+        /**
+         * Wraps a comparator so every comparison is counted.
+         *
+         * @param <T>        the type being compared
+         * @param comparator the comparator to count
+         * @return a counting comparator, or comparator itself when disabled
+         */
+        public <T> Comparator<T> counting(Comparator<T> comparator) {
+
+            if (!ENABLED || comparator == null) {
+                return comparator;
+            }
+
+            return (a, b) -> {
+                comparisons.increment();
+                return comparator.compare(a, b);
+            };
+        }
+
+        /**
+         * Records comparisons.
+         *
+         * @param count the number of comparisons
+         */
+        public void comparisons(long count) {
+
+            if (ENABLED) {
+                comparisons.add(count);
+            }
+        }
+
+        /**
+         * Records swaps.
+         *
+         * @param count the number of swaps
+         */
+        public void swaps(long count) {
+
+            if (ENABLED) {
+                swaps.add(count);
+            }
+        }
+
+        /**
+         * Records element moves, i.e. writes of a single element.
+         *
+         * @param count the number of moves
+         */
+        public void moves(long count) {
+
+            if (ENABLED) {
+                moves.add(count);
+            }
+        }
+
+        /**
+         * Records allocated objects or arrays.
+         *
+         * @param count the number of allocations
+         */
+        public void allocations(long count) {
+
+            if (ENABLED) {
+                allocations.add(count);
+            }
+        }
+
+        /**
+         * Records tree rotations.
+         *
+         * @param count the number of rotations
+         */
+        public void rotations(long count) {
+
+            if (ENABLED) {
+                rotations.add(count);
+            }
+        }
+
+        /**
+         * Estimates a latency quantile from the histogram. The answer is the
+         * upper bound of the bucket the quantile falls in, so it is within a
+         * factor of two.
+         *
+         * @param quantile the quantile, from 0 to 1
+         * @return the latency in nanoseconds, or 0 if nothing was recorded
+         */
+        public long latencyQuantile(double quantile) {
+
+            long total = 0;
+
+            for (int i = 0; i < latency.length(); i++) {
+                total += latency.get(i);
+            }
+
+            long target = (long) Math.ceil(quantile * total);
+            long seen = 0;
+
+            for (int i = 0; i < latency.length() && total > 0; i++) {
+
+                seen += latency.get(i);
+
+                if (seen >= target && seen > 0) {
+                    return i == 0 ? 0 : i == Long.SIZE ? Long.MAX_VALUE : (1L << i) - 1;
+                }
+            }
+
+            return 0;
+        }
+
+        /**
+         * Returns the current value of every counter.
+         * @return counter name to value, in a fixed order
+         */
+        private Map<String, Long> snapshot() {
+
+            Map<String, Long> values = new LinkedHashMap<String, Long>();
+            values.put("calls", calls.sum());
+            values.put("nanos", nanos.sum());
+            values.put("comparisons", comparisons.sum());
+            values.put("swaps", swaps.sum());
+            values.put("moves", moves.sum());
+            values.put("allocations", allocations.sum());
+            values.put("rotations", rotations.sum());
+            values.put("p50_nanos", latencyQuantile(0.5));
+            values.put("p99_nanos", latencyQuantile(0.99));
+            return values;
+        }
+
+        /**
+         * Resets every counter to zero.
+         */
+        private void reset() {
+
+            calls.reset();
+            nanos.reset();
+            comparisons.reset();
+            swaps.reset();
+            moves.reset();
+            allocations.reset();
+            rotations.reset();
+
+            for (int i = 0; i < latency.length(); i++) {
+                latency.set(i, 0);
+            }
+        }
+    }
+}
@@ -0,0 +1,537 @@
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Level-synchronous parallel breadth first search over a CSRGraph, with
+ * direction optimization (Beamer, Asanovic and Patterson).
+ * <p>
+ * Each level is one parallel step on a ForkJoinPool, in one of two
+ * directions:
+ * <ul>
+ * <li>Top-down: the frontier is a queue of vertex ids, split into chunks.
+ * Each chunk scans its vertices' out-edges and claims unvisited neighbours
+ * with a compare-and-set on the visited bitmap, so every vertex gets
+ * exactly one parent. The claimed ids are gathered per chunk and copied
+ * into the next queue in one block.</li>
+ * <li>Bottom-up: the frontier is a bitmap, and the unvisited vertices are
+ * split into runs of whole bitmap words. Each unvisited vertex scans its
+ * in-edges and stops at the first one that comes from the frontier. A task
+ * owns its words, so it needs no atomics, and a vertex stops looking as
+ * soon as it has a parent.</li>
+ * </ul>
+ * Top-down costs the frontier's out-edges and bottom-up costs, at most, the
+ * unvisited vertices' in-edges. The search starts top-down, turns bottom-up
+ * once the frontier's edges exceed 1 / ALPHA of the edges still
+ * unexplored, and turns back once the frontier is shrinking and holds fewer
+ * than 1 / BETA of the vertices. Switching converts the frontier between
+ * the two forms. The in-edges come from CSRGraph.reverse(), built the first
+ * time a search goes bottom-up.
+ * <p>
+ * Vertices at the same distance may get different, equally valid parents
+ * from run to run. Distances are always the same.
+ *
+ * @author Nicholas Watney Meyer
+ * @version 1.0
+ */
+public final class ParallelBFS {
+
+    /**
+     * Go bottom-up once the frontier has more than 1 / ALPHA of the
+     * unexplored edges.
+     */
+    private static final int ALPHA = 14;
+
+    /**
+     * Go back top-down once a shrinking frontier has fewer than 1 / BETA of
+     * the vertices.
+     */
+    private static final int BETA = 24;
+
+    /**
+     * Frontier queue entries per leaf task.
+     */
+    private static final int QUEUE_GRAIN = 256;
+
+    /**
+     * Bitmap words, of 64 vertices each, per leaf task.
+     */
+    private static final int WORD_GRAIN = 64;
+
+    private static final int TOP_DOWN = 0;
+    private static final int BOTTOM_UP = 1;
+    private static final int TO_QUEUE = 2;
+    private static final int TO_BITMAP = 3;
+
+    /**
+     * Distances and parents found by a search, with the size of each level.
+     */
+    public static final class Result {
+
+        private final int[] distances;
+        private final int[] parents;
+        private final int[] levelSizes;
+
+        /**
+         * Wraps the result of a search.
+         * @param distances distance of each vertex, -1 if unreached
+         * @param parents parent of each vertex, -1 for the source and
+         * unreached vertices
+         * @param levelSizes number of vertices at each distance
+         */
+        private Result(int[] distances, int[] parents, int[] levelSizes) {
+
+            this.distances = distances;
+            this.parents = parents;
+            this.levelSizes = levelSizes;
+        }
+
+        /**
+         * Returns the number of edges from the source to each vertex. It is
+         * this object's own array and must not be modified.
+         *
+         * @return the distances by vertex id, -1 for unreached vertices
+         */
+        public int[] distances() {
+
+            return distances;
+        }
+
+        /**
+         * Returns each vertex's parent in the search tree. It is this
+         * object's own array and must not be modified.
+         *
+         * @return the parents by vertex id, -1 for the source and unreached
+         * vertices
+         */
+        public int[] parents() {
+
+            return parents;
+        }
+
+        /**
+         * Returns the number of vertices at each distance, starting with 1
+         * for the source.
+         *
+         * @return the level sizes
+         */
+        public int[] levelSizes() {
+
+            return levelSizes.clone();
+        }
+
+        /**
+         * Returns the number of levels, which is one more than the distance
+         * to the farthest reached vertex.
+         *
+         * @return the number of levels
+         */
+        public int levels() {
+
+            return levelSizes.length;
+        }
+
+        /**
+         * Returns the number of vertices reached, the source included.
+         *
+         * @return the number of vertices reached
+         */
+        public int reached() {
+
+            int reached = 0;
+
+            for (int size : levelSizes) {
+                reached += size;
+            }
+
+            return reached;
+        }
+    }
+
+    private final CSRGraph<?> graph;
+    private final int[] offsets;
+    private final int[] targets;
+    private int[] reverseOffsets;
+    private int[] sources;
+    private final int vertexCount;
+    private final int words;
+
+    private final int[] distances;
+    private final int[] parents;
+    private final AtomicLongArray visited;
+    private AtomicLongArray frontier;
+    private AtomicLongArray next;
+    private int[] queue;
+    private int[] nextQueue;
+    private final AtomicInteger nextSize = new AtomicInteger();
+    private final LongAdder nextEdges = new LongAdder();
+    private int level;
+
+    /**
+     * Sets up the state for one search.
+     * @param graph the graph
+     */
+    private ParallelBFS(CSRGraph<?> graph) {
+
+        this.graph = graph;
+        this.offsets = graph.offsets();
+        this.targets = graph.targets();
+        this.vertexCount = graph.vertexCount();
+        this.words = (vertexCount + 63) >>> 6;
+        this.distances = new int[vertexCount];
+        this.parents = new int[vertexCount];
+        this.visited = new AtomicLongArray(words);
+        this.queue = new int[vertexCount];
+        this.nextQueue = new int[vertexCount];
+        Arrays.fill(distances, -1);
+        Arrays.fill(parents, -1);
+    }
+
+    /**
+     * Searches graph from the vertex with id source on the common pool.
+     *
+     * @param source the id of the vertex to begin the bfs on
+     * @param graph  the graph to search through
+     * @return the distances, parents and level sizes
+     * @throws IllegalArgumentException if graph is null, or if source
+     *                                  doesn't exist in the graph
+     */
+    public static Result search(int source, CSRGraph<?> graph) {
+
+        return search(source, graph, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Searches graph from the vertex with id source on the given pool.
+     *
+     * @param source the id of the vertex to begin the bfs on
+     * @param graph  the graph to search through
+     * @param pool   the pool to run the levels on
+     * @return the distances, parents and level sizes
+     * @throws IllegalArgumentException if graph or pool is null, or if
+     *                                  source doesn't exist in the graph
+     */
+    public static Result search(int source, CSRGraph<?> graph, ForkJoinPool pool) {
+
+        if (graph == null || pool == null) {
+            throw new IllegalArgumentException("Any input is null.");
+        }
+
+        graph.checkId(source);
+        return new ParallelBFS(graph).run(source, pool);
+    }
+
+    /**
+     * Runs the levels until the frontier is empty.
+     * @param source id of the source
+     * @param pool the pool
+     * @return the result
+     */
+    private Result run(int source, ForkJoinPool pool) {
+
+        int[] levelSizes = new int[16];
+        int levels = 0;
+
+        visited.set(source >>> 6, 1L << source);
+        distances[source] = 0;
+        queue[0] = source;
+
+        int frontierSize = 1;
+        int previousSize = 0;
+        long frontierEdges = degree(source);
+        long unexploredEdges = targets.length - frontierEdges;
+        boolean bottomUp = false;
+
+        while (frontierSize > 0) {
+
+            if (levels == levelSizes.length) {
+                levelSizes = Arrays.copyOf(levelSizes, 2 * levels);
+            }
+
+            levelSizes[levels++] = frontierSize;
+
+            if (!bottomUp && frontierEdges > unexploredEdges / ALPHA) {
+
+                bottomUp = true;
+
+                if (sources == null) {
+                    CSRGraph<?> reverse = graph.reverse();
+                    reverseOffsets = reverse.offsets();
+                    sources = reverse.targets();
+                    frontier = new AtomicLongArray(words);
+                    next = new AtomicLongArray(words);
+                }
+
+                for (int w = 0; w < words; w++) {
+                    frontier.setPlain(w, 0);
+                }
+
+                pool.invoke(new Step(TO_BITMAP, 0, frontierSize));
+
+            } else if (bottomUp && frontierSize < vertexCount / BETA && frontierSize < previousSize) {
+
+                bottomUp = false;
+                nextSize.set(0);
+                pool.invoke(new Step(TO_QUEUE, 0, words));
+                swapQueues();
+            }
+
+            nextSize.set(0);
+            nextEdges.reset();
+            pool.invoke(bottomUp ? new Step(BOTTOM_UP, 0, words) : new Step(TOP_DOWN, 0, frontierSize));
+
+            if (bottomUp) {
+                AtomicLongArray swap = frontier;
+                frontier = next;
+                next = swap;
+
+            } else {
+                swapQueues();
+            }
+
+            level++;
+            previousSize = frontierSize;
+            frontierSize = nextSize.get();
+            frontierEdges = nextEdges.sum();
+            unexploredEdges -= frontierEdges;
+        }
+
+        return new Result(distances, parents, Arrays.copyOf(levelSizes, levels));
+    }
+
+    /**
+     * Makes the queue just filled the current one.
+     */
+    private void swapQueues() {
+
+        int[] swap = queue;
+        queue = nextQueue;
+        nextQueue = swap;
+    }
+
+    /**
+     * Returns the out-degree of a vertex.
+     * @param vertex the vertex
+     * @return its out-degree
+     */
+    private int degree(int vertex) {
+
+        return offsets[vertex + 1] - offsets[vertex];
+    }
+
+    /**
+     * Sets the visited bit of vertex if nobody has yet.
+     * @param vertex the vertex
+     * @return whether this call set it
+     */
+    private boolean claim(int vertex) {
+
+        int index = vertex >>> 6;
+        long bit = 1L << vertex;
+
+        while (true) {
+
+            long word = visited.get(index);
+
+            if ((word & bit) != 0) {
+                return false;
+            }
+
+            if (visited.compareAndSet(index, word, word | bit)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * One piece of a level: a range of the frontier queue for TOP_DOWN and
+     * TO_BITMAP, a range of bitmap words for BOTTOM_UP and TO_QUEUE. Ranges
+     * bigger than the grain are split in half and run in parallel.
+     */
+    private final class Step extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        private final int kind;
+        private final int low;
+        private final int high;
+
+        /**
+         * Creates a step.
+         * @param kind TOP_DOWN, BOTTOM_UP, TO_QUEUE or TO_BITMAP
+         * @param low start of the range, inclusive
+         * @param high end of the range, exclusive
+         */
+        Step(int kind, int low, int high) {
+
+            this.kind = kind;
+            this.low = low;
+            this.high = high;
+        }
+
+        @Override
+        protected void compute() {
+
+            int grain = kind == BOTTOM_UP || kind == TO_QUEUE ? WORD_GRAIN : QUEUE_GRAIN;
+
+            if (high - low > grain) {
+                int middle = (low + high) >>> 1;
+                invokeAll(new Step(kind, low, middle), new Step(kind, middle, high));
+                return;
+            }
+
+            switch (kind) {
+                case TOP_DOWN:
+                    topDown();
+                    break;
+                case BOTTOM_UP:
+                    bottomUp();
+                    break;
+                case TO_QUEUE:
+                    toQueue();
+                    break;
+                default:
+                    toBitmap();
+                    break;
+            }
+        }
+
+        /**
+         * Claims the unvisited out-neighbours of queue[low..high).
+         */
+        private void topDown() {
+
+            int[] found = new int[64];
+            int count = 0;
+            long edges = 0;
+
+            for (int i = low; i < high; i++) {
+
+                int current = queue[i];
+
+                for (int edge = offsets[current]; edge < offsets[current + 1]; edge++) {
+
+                    int vertex = targets[edge];
+
+                    if (claim(vertex)) {
+
+                        parents[vertex] = current;
+                        distances[vertex] = level + 1;
+                        edges += degree(vertex);
+
+                        if (count == found.length) {
+                            found = Arrays.copyOf(found, 2 * count);
+                        }
+
+                        found[count++] = vertex;
+                    }
+                }
+            }
+
+            System.arraycopy(found, 0, nextQueue, nextSize.getAndAdd(count), count);
+            nextEdges.add(edges);
+        }
+
+        /**
+         * Looks for a frontier in-neighbour of every unvisited vertex in
+         * words [low, high).
+         */
+        private void bottomUp() {
+
+            int count = 0;
+            long edges = 0;
+
+            for (int w = low; w < high; w++) {
+
+                long unvisited = ~visited.getPlain(w) & mask(w);
+                long found = 0;
+
+                while (unvisited != 0) {
+
+                    long bit = unvisited & -unvisited;
+                    unvisited ^= bit;
+                    int vertex = (w << 6) + Long.numberOfTrailingZeros(bit);
+
+                    for (int edge = reverseOffsets[vertex]; edge < reverseOffsets[vertex + 1]; edge++) {
+
+                        int source = sources[edge];
+
+                        if ((frontier.getPlain(source >>> 6) & 1L << source) != 0) {
+
+                            parents[vertex] = source;
+                            distances[vertex] = level + 1;
+                            found |= bit;
+                            edges += degree(vertex);
+                            count++;
+                            break;
+                        }
+                    }
+                }
+
+                next.setPlain(w, found);
+
+                if (found != 0) {
+                    visited.setPlain(w, visited.getPlain(w) | found);
+                }
+            }
+
+            nextSize.addAndGet(count);
+            nextEdges.add(edges);
+        }
+
+        /**
+         * Copies the frontier bits of words [low, high) into the next
+         * queue.
+         */
+        private void toQueue() {
+
+            int[] found = new int[64];
+            int count = 0;
+
+            for (int w = low; w < high; w++) {
+
+                for (long bits = frontier.getPlain(w); bits != 0; bits &= bits - 1) {
+
+                    if (count == found.length) {
+                        found = Arrays.copyOf(found, 2 * count);
+                    }
+
+                    found[count++] = (w << 6) + Long.numberOfTrailingZeros(bits);
+                }
+            }
+
+            System.arraycopy(found, 0, nextQueue, nextSize.getAndAdd(count), count);
+        }
+
+        /**
+         * Sets the frontier bits of queue[low..high).
+         */
+        private void toBitmap() {
+
+            for (int i = low; i < high; i++) {
+
+                int index = queue[i] >>> 6;
+                long bit = 1L << queue[i];
+                long word;
+
+                do {
+                    word = frontier.get(index);
+                } while (!frontier.compareAndSet(index, word, word | bit));
+            }
+        }
+
+        /**
+         * Returns the bits of word w that stand for vertices.
+         * @param w the word
+         * @return all ones, except in the last word
+         */
+        private long mask(int w) {
+
+            int bits = vertexCount - (w << 6);
+            return bits >= 64 ? -1L : (1L << bits) - 1;
+        }
+    }
+}
@@ -0,0 +1,377 @@
+import java.util.Arrays;
+
+/**
+ * Single-pair shortest path queries over a CSRGraph, for callers that want
+ * the route from one vertex to another rather than distances to all of
+ * them (you may assume non-negative edge weights).
+ * <p>
+ * Three searches are offered:
+ * <ul>
+ * <li>dijkstras stops as soon as the target is settled, so it only explores
+ * the vertices closer to the source than the target is.</li>
+ * <li>bidirectional grows one search forward from the source and one
+ * backward from the target over the reversed graph, always advancing the
+ * one with the smaller queue, and stops once the two queue minimums add up
+ * to at least the best path found through a vertex both have reached. Two
+ * balls of half the radius cover far fewer vertices than one of the full
+ * radius.</li>
+ * <li>aStar orders the queue by distance plus a Heuristic's lower bound on
+ * the distance left, which steers the search towards the target.</li>
+ * </ul>
+ * Each search records the predecessor of every vertex it reaches, and the
+ * path is read off those. A PathFinder keeps its arrays and heaps between
+ * queries and clears only the entries a query touched, so after the first
+ * query a query costs time in proportion to the part of the graph it
+ * explores, not to the size of the graph. It is not safe for concurrent
+ * use; give each thread its own.
+ *
+ * @author Nicholas Watney Meyer
+ * @version 1.0
+ * @param <T> the generic typing of the data
+ */
+public class PathFinder<T> {
+
+    /**
+     * Estimates the distance left from a vertex to the target, for aStar.
+     * <p>
+     * It must never overestimate (be admissible) for aStar to return a
+     * shortest path; straight-line distance is the usual choice for road
+     * graphs whose weights are lengths. A heuristic that is also consistent,
+     * estimate(u) &lt;= weight(u, v) + estimate(v) for every edge, settles
+     * each vertex once; otherwise vertices are reopened as needed.
+     */
+    public interface Heuristic {
+
+        /**
+         * Returns a lower bound on the distance from vertex to target.
+         *
+         * @param vertex id of the vertex
+         * @param target id of the target
+         * @return a non-negative lower bound on the distance left
+         */
+        int estimate(int vertex, int target);
+    }
+
+    private final CSRGraph<T> graph;
+    private final Search forward;
+    private Search backward;
+
+    /**
+     * Creates a PathFinder for graph.
+     *
+     * @param graph the graph to search
+     * @throws java.lang.IllegalArgumentException if graph is null
+     */
+    public PathFinder(CSRGraph<T> graph) {
+
+        if (graph == null) {
+            throw new IllegalArgumentException("The graph is null.");
+        }
+
+        this.graph = graph;
+        this.forward = new Search(graph);
+    }
+
+    /**
+     * Finds a shortest path from source to target with Dijkstra's, stopping
+     * once target is settled.
+     *
+     * @param source the vertex to start from
+     * @param target the vertex to reach
+     * @return the shortest path
+     * @throws java.lang.IllegalArgumentException if any input is null or not
+     *                                            in the graph
+     */
+    public ShortestPath<T> dijkstras(Vertex<T> source, Vertex<T> target) {
+
+        return dijkstras(graph.id(source), graph.id(target));
+    }
+
+    /**
+     * Finds a shortest path between two vertex ids with Dijkstra's, stopping
+     * once target is settled.
+     *
+     * @param source id of the vertex to start from
+     * @param target id of the vertex to reach
+     * @return the shortest path
+     * @throws java.lang.IllegalArgumentException if an id is out of range
+     */
+    public ShortestPath<T> dijkstras(int source, int target) {
+
+        return search(source, target, null);
+    }
+
+    /**
+     * Finds a shortest path from source to target with A*.
+     *
+     * @param source    the vertex to start from
+     * @param target    the vertex to reach
+     * @param heuristic admissible estimate of the distance left
+     * @return the shortest path
+     * @throws java.lang.IllegalArgumentException if any input is null or not
+     *                                            in the graph
+     */
+    public ShortestPath<T> aStar(Vertex<T> source, Vertex<T> target, Heuristic heuristic) {
+
+        return aStar(graph.id(source), graph.id(target), heuristic);
+    }
+
+    /**
+     * Finds a shortest path between two vertex ids with A*.
+     *
+     * @param source    id of the vertex to start from
+     * @param target    id of the vertex to reach
+     * @param heuristic admissible estimate of the distance left
+     * @return the shortest path
+     * @throws java.lang.IllegalArgumentException if heuristic is null or an
+     *                                            id is out of range
+     */
+    public ShortestPath<T> aStar(int source, int target, Heuristic heuristic) {
+
+        if (heuristic == null) {
+            throw new IllegalArgumentException("The heuristic is null.");
+        }
+
+        return search(source, target, heuristic);
+    }
+
+    /**
+     * Finds a shortest path from source to target with bidirectional
+     * Dijkstra's.
+     *
+     * @param source the vertex to start from
+     * @param target the vertex to reach
+     * @return the shortest path
+     * @throws java.lang.IllegalArgumentException if any input is null or not
+     *                                            in the graph
+     */
+    public ShortestPath<T> bidirectional(Vertex<T> source, Vertex<T> target) {
+
+        return bidirectional(graph.id(source), graph.id(target));
+    }
+
+    /**
+     * Finds a shortest path between two vertex ids with bidirectional
+     * Dijkstra's. The first call builds the reversed graph and the backward
+     * search's arrays.
+     *
+     * @param source id of the vertex to start from
+     * @param target id of the vertex to reach
+     * @return the shortest path
+     * @throws java.lang.IllegalArgumentException if an id is out of range
+     */
+    public ShortestPath<T> bidirectional(int source, int target) {
+
+        graph.checkId(source);
+        graph.checkId(target);
+
+        if (backward == null) {
+            backward = new Search(graph.reverse());
+        }
+
+        forward.start(source, 0);
+        backward.start(target, 0);
+
+        long best = source == target ? 0 : Long.MAX_VALUE;
+        int meet = source == target ? source : -1;
+
+        while (!forward.heap.isEmpty() && !backward.heap.isEmpty()) {
+
+            long reach = (long) forward.heap.key(forward.heap.peek()) + backward.heap.key(backward.heap.peek());
+
+            if (reach >= best) {
+                break;
+            }
+
+            Search side = forward.heap.size() <= backward.heap.size() ? forward : backward;
+            Search other = side == forward ? backward : forward;
+            int current = side.settle();
+
+            for (int edge = side.offsets[current]; edge < side.offsets[current + 1]; edge++) {
+
+                int vertex = side.targets[edge];
+
+                if (side.relax(vertex, (long) side.distances[current] + side.weights[edge], current, 0)
+                        && other.distances[vertex] != Integer.MAX_VALUE) {
+
+                    long total = (long) side.distances[vertex] + other.distances[vertex];
+
+                    if (total < best) {
+                        best = total;
+                        meet = vertex;
+                    }
+                }
+            }
+        }
+
+        int settled = forward.settled + backward.settled;
+
+        if (meet < 0) {
+            return new ShortestPath<T>(graph, Integer.MAX_VALUE, new int[0], settled);
+        }
+
+        int[] first = forward.path(meet);
+        int[] second = backward.path(meet);
+        int[] path = Arrays.copyOf(first, first.length + second.length - 1);
+
+        // second runs from the target back to meet; append it reversed,
+        // leaving out meet.
+        for (int i = 0; i < second.length - 1; i++) {
+            path[first.length + i] = second[second.length - 2 - i];
+        }
+
+        return new ShortestPath<T>(graph, (int) Math.min(best, Integer.MAX_VALUE), path, settled);
+    }
+
+    /**
+     * Runs Dijkstra's, or A* when heuristic is not null, from source until
+     * target is settled.
+     * @param source id of the source
+     * @param target id of the target
+     * @param heuristic estimate of the distance left, or null for none
+     * @return the shortest path
+     */
+    private ShortestPath<T> search(int source, int target, Heuristic heuristic) {
+
+        graph.checkId(source);
+        graph.checkId(target);
+
+        Search search = forward;
+        search.start(source, heuristic == null ? 0 : heuristic.estimate(source, target));
+
+        while (!search.heap.isEmpty()) {
+
+            int current = search.settle();
+
+            if (current == target) {
+                return new ShortestPath<T>(graph, search.distances[target], search.path(target),
+                        search.settled);
+            }
+
+            for (int edge = search.offsets[current]; edge < search.offsets[current + 1]; edge++) {
+
+                int vertex = search.targets[edge];
+                int estimate = heuristic == null ? 0 : heuristic.estimate(vertex, target);
+                search.relax(vertex, (long) search.distances[current] + search.weights[edge], current, estimate);
+            }
+        }
+
+        return new ShortestPath<T>(graph, Integer.MAX_VALUE, new int[0], search.settled);
+    }
+
+    /**
+     * The state of one search direction: tentative distances and
+     * predecessors by vertex id, the queue, and the list of ids whose
+     * distance was set so the next query can undo just those.
+     */
+    private static final class Search {
+
+        private final int[] offsets;
+        private final int[] targets;
+        private final int[] weights;
+        private final int[] distances;
+        private final int[] parents;
+        private final int[] touched;
+        private final IndexedHeap heap;
+        private int touchedCount;
+        private int settled;
+
+        /**
+         * Creates the state for searching graph.
+         * @param graph the graph, reversed for a backward search
+         */
+        Search(CSRGraph<?> graph) {
+
+            offsets = graph.offsets();
+            targets = graph.targets();
+            weights = graph.weights();
+            distances = new int[graph.vertexCount()];
+            parents = new int[graph.vertexCount()];
+            touched = new int[graph.vertexCount()];
+            heap = new IndexedHeap(graph.vertexCount());
+            Arrays.fill(distances, Integer.MAX_VALUE);
+        }
+
+        /**
+         * Undoes the last query and queues source at distance 0.
+         * @param source id of the source
+         * @param estimate lower bound on the distance left from source
+         */
+        void start(int source, int estimate) {
+
+            for (int i = 0; i < touchedCount; i++) {
+                distances[touched[i]] = Integer.MAX_VALUE;
+            }
+
+            touchedCount = 0;
+            settled = 0;
+            heap.clear();
+            relax(source, 0, -1, estimate);
+        }
+
+        /**
+         * Removes the closest queued vertex.
+         * @return its id
+         */
+        int settle() {
+
+            settled++;
+            return heap.remove();
+        }
+
+        /**
+         * Lowers vertex's distance to distance through parent and queues it
+         * with key distance + estimate, if that is an improvement.
+         * @param vertex id of the vertex
+         * @param distance length of the path through parent
+         * @param parent id of the previous vertex on that path, -1 for none
+         * @param estimate lower bound on the distance left, 0 for Dijkstra's
+         * @return whether the distance improved
+         */
+        boolean relax(int vertex, long distance, int parent, int estimate) {
+
+            if (distance >= distances[vertex]) {
+                return false;
+            }
+
+            if (distances[vertex] == Integer.MAX_VALUE) {
+                touched[touchedCount++] = vertex;
+            }
+
+            distances[vertex] = (int) distance;
+            parents[vertex] = parent;
+            int key = (int) Math.min(distance + Math.max(0, estimate), Integer.MAX_VALUE);
+
+            if (heap.contains(vertex)) {
+                heap.decreaseKey(vertex, key);
+
+            } else {
+                heap.add(vertex, key);
+            }
+
+            return true;
+        }
+
+        /**
+         * Reads the path to vertex off the predecessors.
+         * @param vertex id of a reached vertex
+         * @return ids from the search's source to vertex
+         */
+        int[] path(int vertex) {
+
+            int length = 0;
+
+            for (int v = vertex; v >= 0; v = parents[v]) {
+                length++;
+            }
+
+            int[] path = new int[length];
+
+            for (int v = vertex; v >= 0; v = parents[v]) {
+                path[--length] = v;
+            }
+
+            return path;
+        }
+    }
+}
@@ -17,6 +17,12 @@ import java.util.HashMap;
  */
 public class PatternMatching {
 
+    private static final Metrics.Probe BRUTE_FORCE = Metrics.probe("PatternMatching.bruteForce");
+    private static final Metrics.Probe FAILURE_TABLE = Metrics.probe("PatternMatching.buildFailureTable");
+    private static final Metrics.Probe KMP = Metrics.probe("PatternMatching.kmp");
+    private static final Metrics.Probe LAST_TABLE = Metrics.probe("PatternMatching.buildLastTable");
+    private static final Metrics.Probe BOYER_MOORE = Metrics.probe("PatternMatching.boyerMoore");
+
     /**
      * Brute force pattern matching algorithm to find all matches.
      * <p>
@@ -45,6 +51,8 @@ public class PatternMatching {
             throw new IllegalArgumentException("Text or comparator is null.");
         }
 
+        long start = BRUTE_FORCE.start();
+        int comparisons = comparator.getComparisonCount();
         ArrayList<Integer> list = new ArrayList<Integer>();
 
         int i = 0;
@@ -64,6 +72,8 @@ public class PatternMatching {
 
         }
 
+        BRUTE_FORCE.comparisons(comparator.getComparisonCount() - comparisons);
+        BRUTE_FORCE.stop(start);
         return list;
     }
 
@@ -106,6 +116,8 @@ public class PatternMatching {
             return new int[0];
         }
 
+        long start = FAILURE_TABLE.start();
+        int comparisons = comparator.getComparisonCount();
         int[] list = new int[pattern.length()];
 
         int i = 0;
@@ -134,6 +146,8 @@ public class PatternMatching {
             }
         }
 
+        FAILURE_TABLE.comparisons(comparator.getComparisonCount() - comparisons);
+        FAILURE_TABLE.stop(start);
         return list;
     }
 
@@ -171,6 +185,8 @@ public class PatternMatching {
             return new ArrayList<Integer>();
         }
 
+        long start = KMP.start();
+        int comparisons = comparator.getComparisonCount();
         int[] table = buildFailureTable(pattern, comparator);
         ArrayList<Integer> list = new ArrayList<Integer>();
 
@@ -200,6 +216,8 @@ public class PatternMatching {
             }
         }
 
+        KMP.comparisons(comparator.getComparisonCount() - comparisons);
+        KMP.stop(start);
         return list;
     }
 
@@ -235,6 +253,7 @@ public class PatternMatching {
             throw new IllegalArgumentException("Pattern is null.");
         }
 
+        long start = LAST_TABLE.start();
         HashMap<Character, Integer> map = new HashMap<Character, Integer>(pattern.length());
 
         for (int i = 0; i < pattern.length(); i++) {
@@ -242,6 +261,8 @@ public class PatternMatching {
             map.put(pattern.charAt(i), i);
         }
 
+        LAST_TABLE.allocations(1);
+        LAST_TABLE.stop(start);
         return map;
     }
 
@@ -275,6 +296,8 @@ public class PatternMatching {
             throw new IllegalArgumentException("Text or comparator is null.");
         }
 
+        long start = BOYER_MOORE.start();
+        int comparisons = comparator.getComparisonCount();
         Map<Character, Integer> map = buildLastTable(pattern);
         ArrayList<Integer> list = new ArrayList<Integer>();
 
@@ -305,6 +328,8 @@ public class PatternMatching {
             }
         }
 
+        BOYER_MOORE.comparisons(comparator.getComparisonCount() - comparisons);
+        BOYER_MOORE.stop(start);
         return list;
     }
 }
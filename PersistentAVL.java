@@ -0,0 +1,385 @@
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Immutable AVL set. add and remove leave the tree they are called on
+ * untouched and return a new one.
+ * <p>
+ * Only the O(log n) nodes on the path to the change are copied (plus at most
+ * two more for a rotation); everything else is shared with the old tree.
+ * Nodes are never written after they are published, so any number of
+ * threads can read, search and iterate a PersistentAVL without locks while
+ * a writer builds the next version, and holding on to an old version is a
+ * consistent point-in-time snapshot that costs nothing to take. Writers that
+ * share one current version would publish it through a volatile field or an
+ * AtomicReference.
+ * <p>
+ * Balancing reuses AVL.rotation and AVL.update. Before a rotation the nodes
+ * it will rewire are copied, so it never touches a shared node.
+ *
+ * @author Nicholas Watney Meyer
+ * @version 1.0
+ * @param <T> the type of data in the set
+ */
+public final class PersistentAVL<T extends Comparable<? super T>> implements Iterable<T> {
+
+    private static final PersistentAVL<?> EMPTY = new PersistentAVL<>(null);
+
+    private final AVLNode<T> root;
+
+    /**
+     * Wraps a root that will never be modified again.
+     * @param root the root, null for the empty tree
+     */
+    private PersistentAVL(AVLNode<T> root) {
+
+        this.root = root;
+    }
+
+    /**
+     * Returns the empty tree.
+     *
+     * @param <T> the type of data in the set
+     * @return the empty tree
+     */
+    public static <T extends Comparable<? super T>> PersistentAVL<T> empty() {
+
+        return (PersistentAVL<T>) EMPTY;
+    }
+
+    /**
+     * Returns a tree that also holds data.
+     *
+     * @param data the data to add
+     * @return the new tree, or this tree if it already holds data
+     * @throws java.lang.IllegalArgumentException if data is null
+     */
+    public PersistentAVL<T> add(T data) {
+
+        if (data == null) {
+            throw new IllegalArgumentException("The data is null.");
+        }
+
+        AVLNode<T> newRoot = rAdd(root, data);
+        return newRoot == root ? this : new PersistentAVL<T>(newRoot);
+    }
+
+    /**
+     * Helper method for add.
+     * @param node root of the subtree
+     * @param data the data to add
+     * @return root of the new subtree, node itself if data was already there
+     */
+    private AVLNode<T> rAdd(AVLNode<T> node, T data) {
+
+        if (node == null) {
+            AVLNode<T> leaf = new AVLNode<T>(data);
+            AVL.update(leaf);
+            return leaf;
+        }
+
+        int compare = data.compareTo(node.getData());
+
+        if (compare < 0) {
+
+            AVLNode<T> left = rAdd(node.getLeft(), data);
+
+            if (left == node.getLeft()) {
+                return node;
+            }
+
+            AVLNode<T> copy = copy(node);
+            copy.setLeft(left);
+            return rotation(copy);
+
+        } else if (compare > 0) {
+
+            AVLNode<T> right = rAdd(node.getRight(), data);
+
+            if (right == node.getRight()) {
+                return node;
+            }
+
+            AVLNode<T> copy = copy(node);
+            copy.setRight(right);
+            return rotation(copy);
+
+        } else {
+            return node;
+        }
+    }
+
+    /**
+     * Returns a tree without data.
+     *
+     * @param data the data to remove
+     * @return the new tree, or this tree if it does not hold data
+     * @throws java.lang.IllegalArgumentException if data is null
+     */
+    public PersistentAVL<T> remove(T data) {
+
+        if (data == null) {
+            throw new IllegalArgumentException("The data is null.");
+        }
+
+        AVLNode<T> newRoot = rRemove(root, data);
+        return newRoot == root ? this : new PersistentAVL<T>(newRoot);
+    }
+
+    /**
+     * Helper method for remove. A node with two children is replaced by a
+     * copy holding its predecessor, like AVL.remove does.
+     * @param node root of the subtree
+     * @param data the data to remove
+     * @return root of the new subtree, node itself if data was not there
+     */
+    private AVLNode<T> rRemove(AVLNode<T> node, T data) {
+
+        if (node == null) {
+            return null;
+        }
+
+        int compare = data.compareTo(node.getData());
+
+        if (compare < 0) {
+
+            AVLNode<T> left = rRemove(node.getLeft(), data);
+
+            if (left == node.getLeft()) {
+                return node;
+            }
+
+            AVLNode<T> copy = copy(node);
+            copy.setLeft(left);
+            return rotation(copy);
+
+        } else if (compare > 0) {
+
+            AVLNode<T> right = rRemove(node.getRight(), data);
+
+            if (right == node.getRight()) {
+                return node;
+            }
+
+            AVLNode<T> copy = copy(node);
+            copy.setRight(right);
+            return rotation(copy);
+
+        } else if (node.getLeft() == null) {
+            return node.getRight();
+
+        } else if (node.getRight() == null) {
+            return node.getLeft();
+
+        } else {
+
+            AVLNode<T> predecessor = node.getLeft();
+
+            while (predecessor.getRight() != null) {
+                predecessor = predecessor.getRight();
+            }
+
+            AVLNode<T> copy = new AVLNode<T>(predecessor.getData());
+            copy.setLeft(rRemove(node.getLeft(), predecessor.getData()));
+            copy.setRight(node.getRight());
+            return rotation(copy);
+        }
+    }
+
+    /**
+     * Copies the children a rotation at node would rewire, then rotates.
+     * node must already be a private copy.
+     * @param node the copied node to rebalance
+     * @return the new root of the subtree
+     */
+    private AVLNode<T> rotation(AVLNode<T> node) {
+
+        AVL.update(node);
+
+        if (node.getBalanceFactor() == -2) {
+
+            AVLNode<T> right = copy(node.getRight());
+            node.setRight(right);
+
+            if (right.getBalanceFactor() == 1) {
+                right.setLeft(copy(right.getLeft()));
+            }
+
+        } else if (node.getBalanceFactor() == 2) {
+
+            AVLNode<T> left = copy(node.getLeft());
+            node.setLeft(left);
+
+            if (left.getBalanceFactor() == -1) {
+                left.setRight(copy(left.getRight()));
+            }
+        }
+
+        return AVL.rotation(node);
+    }
+
+    /**
+     * Copies a node, sharing its children.
+     * @param node the node to copy
+     * @return the copy
+     */
+    private AVLNode<T> copy(AVLNode<T> node) {
+
+        AVLNode<T> copy = new AVLNode<T>(node.getData());
+        copy.setLeft(node.getLeft());
+        copy.setRight(node.getRight());
+        copy.setHeight(node.getHeight());
+        copy.setBalanceFactor(node.getBalanceFactor());
+        copy.setSize(node.getSize());
+        return copy;
+    }
+
+    /**
+     * Returns the data in the tree matching the given parameter.
+     *
+     * @param data the data to search for
+     * @return the data in the tree equal to the parameter
+     * @throws java.lang.IllegalArgumentException if data is null
+     * @throws java.util.NoSuchElementException   if the data is not in the tree
+     */
+    public T get(T data) {
+
+        if (data == null) {
+            throw new IllegalArgumentException("The data is null.");
+        }
+
+        AVLNode<T> node = find(data);
+
+        if (node == null) {
+            throw new NoSuchElementException("The data is not in the tree.");
+        }
+
+        return node.getData();
+    }
+
+    /**
+     * Returns whether or not data matching the given parameter is contained
+     * within the tree.
+     *
+     * @param data the data to search for
+     * @return true if the parameter is contained within the tree, false
+     * otherwise
+     * @throws java.lang.IllegalArgumentException if data is null
+     */
+    public boolean contains(T data) {
+
+        if (data == null) {
+            throw new IllegalArgumentException("The data is null.");
+        }
+
+        return find(data) != null;
+    }
+
+    /**
+     * Searches for the node holding data.
+     * @param data the data to search for
+     * @return the node, or null if there is none
+     */
+    private AVLNode<T> find(T data) {
+
+        AVLNode<T> node = root;
+
+        while (node != null) {
+
+            int compare = data.compareTo(node.getData());
+
+            if (compare == 0) {
+                return node;
+            }
+
+            node = compare < 0 ? node.getLeft() : node.getRight();
+        }
+
+        return null;
+    }
+
+    /**
+     * Returns the height of the root of the tree.
+     *
+     * @return the height of the root of the tree, -1 if the tree is empty
+     */
+    public int height() {
+
+        return root == null ? -1 : root.getHeight();
+    }
+
+    /**
+     * Returns the size of the tree.
+     *
+     * @return the size of the tree
+     */
+    public int size() {
+
+        return root == null ? 0 : root.getSize();
+    }
+
+    /**
+     * Returns the root of the tree. Its nodes are shared with other versions
+     * and must not be modified.
+     *
+     * @return the root of the tree
+     */
+    public AVLNode<T> getRoot() {
+
+        return root;
+    }
+
+    /**
+     * Iterates the tree in order. Other versions can be created while the
+     * iteration runs; it keeps seeing this one.
+     *
+     * @return an in-order iterator
+     */
+    @Override
+    public Iterator<T> iterator() {
+
+        return new InOrderIterator();
+    }
+
+    /**
+     * In-order iterator that keeps the path to the next node on an array
+     * stack.
+     */
+    private class InOrderIterator implements Iterator<T> {
+
+        private final AVLNode<T>[] stack = (AVLNode<T>[]) new AVLNode[height() + 1];
+        private int top;
+
+        /**
+         * Creates an iterator positioned at the smallest element.
+         */
+        InOrderIterator() {
+
+            for (AVLNode<T> node = root; node != null; node = node.getLeft()) {
+                stack[top++] = node;
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+
+            return top > 0;
+        }
+
+        @Override
+        public T next() {
+
+            if (top == 0) {
+                throw new NoSuchElementException("There are no more elements.");
+            }
+
+            AVLNode<T> node = stack[--top];
+
+            for (AVLNode<T> child = node.getRight(); child != null; child = child.getLeft()) {
+                stack[top++] = child;
+            }
+
+            return node.getData();
+        }
+    }
+}
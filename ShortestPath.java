@@ -0,0 +1,93 @@
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Result of a single-pair PathFinder query: the distance from the source to
+ * the target and the vertices of a shortest path between them.
+ *
+ * @author Nicholas Watney Meyer
+ * @version 1.0
+ * @param <T> the generic typing of the data
+ */
+public class ShortestPath<T> {
+
+    private final CSRGraph<T> graph;
+    private final int distance;
+    private final int[] path;
+    private final int settled;
+
+    /**
+     * Wraps the result of a query.
+     * @param graph the graph searched
+     * @param distance length of the path, Integer.MAX_VALUE if there is none
+     * @param path ids along the path from source to target, empty if there
+     * is none
+     * @param settled number of vertices the query settled
+     */
+    ShortestPath(CSRGraph<T> graph, int distance, int[] path, int settled) {
+
+        this.graph = graph;
+        this.distance = distance;
+        this.path = path;
+        this.settled = settled;
+    }
+
+    /**
+     * Returns whether the target can be reached from the source.
+     *
+     * @return true if there is a path, false otherwise
+     */
+    public boolean exists() {
+
+        return path.length > 0;
+    }
+
+    /**
+     * Returns the length of the path.
+     *
+     * @return the sum of the path's edge weights, or Integer.MAX_VALUE if
+     * there is no path
+     */
+    public int getDistance() {
+
+        return distance;
+    }
+
+    /**
+     * Returns the ids of the vertices along the path, source first and
+     * target last. It is this object's own array and must not be modified.
+     *
+     * @return the ids along the path, empty if there is no path
+     */
+    public int[] ids() {
+
+        return path;
+    }
+
+    /**
+     * Returns the vertices along the path, source first and target last.
+     *
+     * @return the vertices along the path, empty if there is no path
+     */
+    public List<Vertex<T>> getVertices() {
+
+        List<Vertex<T>> vertices = new ArrayList<Vertex<T>>(path.length);
+
+        for (int id : path) {
+            vertices.add(graph.vertex(id));
+        }
+
+        return vertices;
+    }
+
+    /**
+     * Returns how many vertices the query settled, a measure of the work it
+     * did.
+     *
+     * @return the number of vertices settled
+     */
+    public int getSettled() {
+
+        return settled;
+    }
+}
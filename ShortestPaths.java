@@ -0,0 +1,98 @@
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Single-source shortest distances over a CSRGraph, as returned by
+ * GraphAlgorithms.dijkstrasIndexed.
+ * <p>
+ * The distances are kept in one int array indexed by vertex id. toMap()
+ * gives the same Map that GraphAlgorithms.dijkstras returns, for callers
+ * that still want one.
+ *
+ * @author Nicholas Watney Meyer
+ * @version 1.0
+ * @param <T> the generic typing of the data
+ */
+public class ShortestPaths<T> {
+
+    private final CSRGraph<T> graph;
+    private final int source;
+    private final int[] distances;
+
+    /**
+     * Wraps the result of a search.
+     * @param graph the graph searched
+     * @param source id of the source vertex
+     * @param distances distance to each vertex by id, Integer.MAX_VALUE if
+     * no path exists
+     */
+    ShortestPaths(CSRGraph<T> graph, int source, int[] distances) {
+
+        this.graph = graph;
+        this.source = source;
+        this.distances = distances;
+    }
+
+    /**
+     * Returns the graph that was searched.
+     *
+     * @return the graph
+     */
+    public CSRGraph<T> getGraph() {
+
+        return graph;
+    }
+
+    /**
+     * Returns the source vertex.
+     *
+     * @return the source vertex
+     */
+    public Vertex<T> getSource() {
+
+        return graph.vertex(source);
+    }
+
+    /**
+     * Returns the distance to every vertex, indexed by id. It is this
+     * object's own array and must not be modified.
+     *
+     * @return the distances, Integer.MAX_VALUE for unreachable vertices
+     */
+    public int[] distances() {
+
+        return distances;
+    }
+
+    /**
+     * Returns the distance to a vertex.
+     *
+     * @param vertex the vertex
+     * @return its distance from the source, or Integer.MAX_VALUE if no path
+     * exists
+     * @throws java.lang.IllegalArgumentException if vertex is null or not in
+     *                                            the graph
+     */
+    public int distance(Vertex<T> vertex) {
+
+        return distances[graph.id(vertex)];
+    }
+
+    /**
+     * Returns the distances as a new map from vertex to distance, like
+     * GraphAlgorithms.dijkstras.
+     *
+     * @return a map of the shortest distances from the source to every
+     * vertex in the graph
+     */
+    public Map<Vertex<T>, Integer> toMap() {
+
+        Map<Vertex<T>, Integer> distanceMap = new HashMap<Vertex<T>, Integer>(distances.length * 4 / 3 + 1);
+
+        for (int id = 0; id < distances.length; id++) {
+            distanceMap.put(graph.vertex(id), distances[id]);
+        }
+
+        return distanceMap;
+    }
+}
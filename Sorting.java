@@ -1,4 +1,10 @@
 import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.IntConsumer;
+import java.util.function.ToIntFunction;
+import java.util.function.ToLongFunction;
 
 /**
  * Your implementation of various sorting algorithms.
@@ -14,6 +20,53 @@ import java.util.*;
  */
 public class Sorting {
 
+    /**
+     * Sub-arrays at or below this length are finished with insertion sort.
+     */
+    private static final int INSERTION_SORT_THRESHOLD = 32;
+
+    /**
+     * Sub-arrays at or below this length are not split into further tasks.
+     */
+    private static final int PARALLEL_THRESHOLD = 1 << 13;
+
+    /**
+     * Ranges longer than this pick their pivot by ninther.
+     */
+    private static final int NINTHER_THRESHOLD = 128;
+
+    /**
+     * Arrays shorter than this are timsorted by binary insertion sort alone.
+     */
+    private static final int MIN_MERGE = 32;
+
+    /**
+     * Initial number of consecutive wins before a timsort merge gallops.
+     */
+    private static final int MIN_GALLOP = 7;
+
+    private static final Metrics.Probe INSERTION_SORT = Metrics.probe("Sorting.insertionSort");
+    private static final Metrics.Probe BUBBLE_SORT = Metrics.probe("Sorting.bubbleSort");
+    private static final Metrics.Probe MERGE_SORT = Metrics.probe("Sorting.mergeSort");
+    private static final Metrics.Probe PARALLEL_MERGE_SORT = Metrics.probe("Sorting.parallelMergeSort");
+    private static final Metrics.Probe TIM_SORT = Metrics.probe("Sorting.timSort");
+    private static final Metrics.Probe LSD_RADIX_SORT = Metrics.probe("Sorting.lsdRadixSort");
+    private static final Metrics.Probe PARALLEL_RADIX_SORT = Metrics.probe("Sorting.parallelRadixSort");
+    private static final Metrics.Probe HEAP_SORT = Metrics.probe("Sorting.heapSort");
+    private static final Metrics.Probe KTH_SELECT = Metrics.probe("Sorting.kthSelect");
+    private static final Metrics.Probe MULTI_SELECT = Metrics.probe("Sorting.multiSelect");
+    private static final Metrics.Probe SORT = Metrics.probe("Sorting.sort");
+
+    /**
+     * Digit width used by the parallel radix sort.
+     */
+    private static final int PARALLEL_RADIX_BITS = 8;
+
+    /**
+     * Smallest slice of the array a parallel radix sort chunk is given.
+     */
+    private static final int RADIX_CHUNK_SIZE = 1 << 14;
+
     /**
      * Implement insertion sort.
      * <p>
@@ -41,7 +94,11 @@ public class Sorting {
             throw new IllegalArgumentException("The array or comparator is null");
         }
 
+        long start = INSERTION_SORT.start();
+        comparator = INSERTION_SORT.counting(comparator);
+
         int length = arr.length;
+        long swaps = 0;
 
         for (int i = 1; i < length; i++) {
 
@@ -53,8 +110,12 @@ public class Sorting {
                 arr[j] = arr[j - 1];
                 arr[j - 1] = temp;
                 j--;
+                swaps++;
             }
         }
+
+        INSERTION_SORT.swaps(swaps);
+        INSERTION_SORT.stop(start);
     }
 
     /**
@@ -87,9 +148,13 @@ public class Sorting {
             throw new IllegalArgumentException("The array or comparator is null");
         }
 
+        long start = BUBBLE_SORT.start();
+        comparator = BUBBLE_SORT.counting(comparator);
+
         int i = 0;
         int length = arr.length;
         boolean swapped = true;
+        long swaps = 0;
 
         while (i < length - 1 && swapped) {
 
@@ -103,12 +168,16 @@ public class Sorting {
                     arr[j + 1] = arr[j];
                     arr[j] = temp;
                     swapped = true;
+                    swaps++;
 
                 }
             }
 
             i++;
         }
+
+        BUBBLE_SORT.swaps(swaps);
+        BUBBLE_SORT.stop(start);
     }
 
 
@@ -159,6 +228,8 @@ public class Sorting {
 
         T[] leftArray = (T[]) new Object[middle];
         T[] rightArray = (T[]) new Object[length - middle];
+        MERGE_SORT.allocations(2);
+        MERGE_SORT.moves(2L * length);
 
         for (int i = 0; i < middle; i++) {
 
@@ -209,14 +280,22 @@ public class Sorting {
     }
 
     /**
-     * Implement LSD (least significant digit) radix sort.
-     * <p>
-     * Make sure you code the algorithm as you have been taught it in class.
-     * There are several versions of this algorithm and you may not get full
-     * credit if you do not implement the one we have taught you!
-     * <p>
-     * Remember you CANNOT convert the ints to strings at any point in your
-     * code! Doing so may result in a 0 for the implementation.
+     * Parallel merge sort that runs on the common ForkJoinPool.
+     *
+     * @param <T>        data type to sort
+     * @param arr        the array to be sorted
+     * @param comparator the Comparator used to compare the data in arr
+     * @throws java.lang.IllegalArgumentException if the array or comparator is
+     *                                            null
+     * @see #parallelMergeSort(Object[], Comparator, ForkJoinPool)
+     */
+    public static <T> void parallelMergeSort(T[] arr, Comparator<T> comparator) {
+
+        parallelMergeSort(arr, comparator, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Parallel merge sort.
      * <p>
      * It should be:
      * out-of-place
@@ -224,231 +303,2285 @@ public class Sorting {
      * not adaptive
      * <p>
      * Have a worst case running time of:
-     * O(kn)
+     * O(n log n)
      * <p>
      * And a best case running time of:
-     * O(kn)
-     * <p>
-     * You are allowed to make an initial O(n) passthrough of the array to
-     * determine the number of iterations you need.
-     * <p>
-     * At no point should you find yourself needing a way to exponentiate a
-     * number; any such method would be non-O(1). Think about how how you can
-     * get each power of BASE naturally and efficiently as the algorithm
-     * progresses through each digit.
-     * <p>
-     * Refer to the PDF for more information on LSD Radix Sort.
+     * O(n log n)
      * <p>
-     * You may use ArrayList or LinkedList if you wish, but it may only be
-     * used inside radix sort and any radix sort helpers. Do NOT use these
-     * classes with other sorts. However, be sure the List implementation you
-     * choose allows for stability while being as efficient as possible.
+     * The two halves are sorted as separate tasks on the pool until they fall
+     * below PARALLEL_THRESHOLD, and sub-arrays below INSERTION_SORT_THRESHOLD
+     * are finished with insertion sort. A single scratch buffer the size of
+     * arr is allocated up front and shared by every level, since sibling tasks
+     * only ever touch disjoint ranges of it.
      * <p>
-     * Do NOT use anything from the Math class except Math.abs().
+     * When splitting the array, if there is an odd number of elements, the
+     * extra data goes on the right side, same as mergeSort.
      *
-     * @param arr the array to be sorted
-     * @throws java.lang.IllegalArgumentException if the array is null
+     * @param <T>        data type to sort
+     * @param arr        the array to be sorted
+     * @param comparator the Comparator used to compare the data in arr
+     * @param pool       the pool the sort tasks are run on
+     * @throws java.lang.IllegalArgumentException if the array, comparator or
+     *                                            pool is null
      */
-    public static void lsdRadixSort(int[] arr) {
+    public static <T> void parallelMergeSort(T[] arr, Comparator<T> comparator, ForkJoinPool pool) {
 
-        if (arr == null) {
-            throw new IllegalArgumentException("The array is null");
+        if (arr == null || comparator == null || pool == null) {
+
+            throw new IllegalArgumentException("The array, comparator or pool is null");
         }
 
-        int iterations = 0;
+        if (arr.length < 2) {
+            return;
+        }
 
-        for (int element : arr) {
-            int count = 0;
+        long start = PARALLEL_MERGE_SORT.start();
+        T[] buffer = (T[]) new Object[arr.length];
+        PARALLEL_MERGE_SORT.allocations(1);
 
-            while (element != 0) {
-                element = element / 10;
-                count++;
-            }
+        pool.invoke(new MergeSortTask<T>(arr, buffer, 0, arr.length, PARALLEL_MERGE_SORT.counting(comparator)));
+        PARALLEL_MERGE_SORT.stop(start);
+    }
 
-            if (count > iterations) {
-                iterations = count;
+    /**
+     * Fork/join task that merge sorts arr[left, right) using buffer as scratch.
+     * @param <T> data type to sort
+     */
+    private static class MergeSortTask<T> extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        private final T[] arr;
+        private final T[] buffer;
+        private final int left;
+        private final int right;
+        private final Comparator<T> comparator;
+
+        /**
+         * Creates a task for one range of the array.
+         * @param arr array being sorted
+         * @param buffer scratch buffer shared with every other task
+         * @param left minimum index (inclusive)
+         * @param right maximum index (exclusive)
+         * @param comparator comparator defining comparison behaviour
+         */
+        MergeSortTask(T[] arr, T[] buffer, int left, int right, Comparator<T> comparator) {
+
+            this.arr = arr;
+            this.buffer = buffer;
+            this.left = left;
+            this.right = right;
+            this.comparator = comparator;
+        }
+
+        @Override
+        protected void compute() {
+
+            if (right - left <= PARALLEL_THRESHOLD) {
+                rMergeSort(arr, buffer, left, right, comparator);
+                return;
             }
+
+            int middle = left + (right - left) / 2;
+
+            invokeAll(new MergeSortTask<T>(arr, buffer, left, middle, comparator),
+                    new MergeSortTask<T>(arr, buffer, middle, right, comparator));
+
+            merge(arr, buffer, left, middle, right, comparator);
         }
+    }
 
-        LinkedList<Integer>[] buckets = new LinkedList[19];
+    /**
+     * Sequential merge sort over arr[left, right) that reuses buffer.
+     * @param arr array to be sorted
+     * @param buffer scratch buffer at least as long as arr
+     * @param left minimum index (inclusive)
+     * @param right maximum index (exclusive)
+     * @param comparator comparator defining comparison behaviour
+     * @param <T> data type to be sorted
+     */
+    private static <T> void rMergeSort(T[] arr, T[] buffer, int left, int right, Comparator<T> comparator) {
 
-        for (int i = 0; i < buckets.length; i++) {
-            buckets[i] = new LinkedList<Integer>();
+        if (right - left <= INSERTION_SORT_THRESHOLD) {
+            insertionSort(arr, left, right, comparator);
+            return;
         }
 
-        int radix = 1;
-        int idx = 0;
+        int middle = left + (right - left) / 2;
 
-        while (idx < iterations) {
+        rMergeSort(arr, buffer, left, middle, comparator);
+        rMergeSort(arr, buffer, middle, right, comparator);
 
-            for (int element : arr) {
+        merge(arr, buffer, left, middle, right, comparator);
+    }
 
-                int position = (element / radix) % 10 + 9;
-                buckets[position].add(element);
-            }
+    /**
+     * Merges the sorted runs arr[left, middle) and arr[middle, right) back into
+     * arr. Only the left run is copied out into buffer; ties are taken from the
+     * left run so the merge stays stable.
+     * @param arr array holding both runs
+     * @param buffer scratch buffer at least as long as arr
+     * @param left start of the left run
+     * @param middle start of the right run
+     * @param right end of the right run (exclusive)
+     * @param comparator comparator defining comparison behaviour
+     * @param <T> data type to be merged
+     */
+    private static <T> void merge(T[] arr, T[] buffer, int left, int middle, int right,
+                                  Comparator<T> comparator) {
 
-            int count = 0;
-            for (int i = 0; i < buckets.length; i++) {
+        if (comparator.compare(arr[middle - 1], arr[middle]) <= 0) {
+            return;
+        }
 
-                while (buckets[i].size() > 0) {
-                    arr[count] = buckets[i].removeFirst();
-                    count++;
-                }
+        System.arraycopy(arr, left, buffer, left, middle - left);
+
+        int leftIndex = left;
+        int rightIndex = middle;
+        int currentIndex = left;
+
+        while (leftIndex < middle && rightIndex < right) {
+
+            if (comparator.compare(buffer[leftIndex], arr[rightIndex]) <= 0) {
+                arr[currentIndex++] = buffer[leftIndex++];
+
+            } else {
+                arr[currentIndex++] = arr[rightIndex++];
             }
+        }
 
-            idx++;
-            radix *= 10;
+        while (leftIndex < middle) {
+            arr[currentIndex++] = buffer[leftIndex++];
         }
     }
 
-
     /**
-     * Implement heap sort.
-     * <p>
-     * It should be:
-     * out-of-place
-     * unstable
-     * not adaptive
-     * <p>
-     * Have a worst case running time of:
-     * O(n log n)
-     * <p>
-     * And a best case running time of:
-     * O(n log n)
-     * <p>
-     * Use java.util.PriorityQueue as the heap. Note that in this
-     * PriorityQueue implementation, elements are removed from smallest
-     * element to largest element.
-     * <p>
-     * Initialize the PriorityQueue using its build heap constructor (look at
-     * the different constructors of java.util.PriorityQueue).
-     * <p>
-     * Return an int array with a capacity equal to the size of the list. The
-     * returned array should have the elements in the list in sorted order.
-     *
-     * @param data the data to sort
-     * @return the array with length equal to the size of the input list that
-     * holds the elements from the list is sorted order
-     * @throws java.lang.IllegalArgumentException if the data is null
+     * Insertion sort over arr[left, right) that shifts instead of swapping.
+     * @param arr array to be sorted
+     * @param left minimum index (inclusive)
+     * @param right maximum index (exclusive)
+     * @param comparator comparator defining comparison behaviour
+     * @param <T> data type to be sorted
      */
-    public static int[] heapSort(List<Integer> data) {
-
-        if (data == null) {
-            throw new IllegalArgumentException("the data is null");
-        }
+    private static <T> void insertionSort(T[] arr, int left, int right, Comparator<T> comparator) {
 
-        PriorityQueue<Integer> queue = new PriorityQueue<Integer>(data);
+        for (int i = left + 1; i < right; i++) {
 
-        int[] list = new int[data.size()];
+            T current = arr[i];
+            int j = i;
 
-        for (int i = 0; i < data.size(); i++) {
+            while (j > left && comparator.compare(arr[j - 1], current) > 0) {
+                arr[j] = arr[j - 1];
+                j--;
+            }
 
-            list[i] = queue.remove();
+            arr[j] = current;
         }
-
-        return list;
     }
 
     /**
-     * Implement kth select.
-     * <p>
-     * Use the provided random object to select your pivots. For example if you
-     * need a pivot between a (inclusive) and b (exclusive) where b > a, use
-     * the following code:
-     * <p>
-     * int pivotIndex = rand.nextInt(b - a) + a;
-     * <p>
-     * If your recursion uses an inclusive b instead of an exclusive one,
-     * the formula changes by adding 1 to the nextInt() call:
-     * <p>
-     * int pivotIndex = rand.nextInt(b - a + 1) + a;
+     * Adaptive natural merge sort (TimSort).
      * <p>
      * It should be:
-     * in-place
+     * out-of-place
+     * stable
+     * adaptive
      * <p>
      * Have a worst case running time of:
-     * O(n^2)
+     * O(n log n)
      * <p>
      * And a best case running time of:
      * O(n)
      * <p>
-     * You may assume that the array doesn't contain any null elements.
-     * <p>
-     * Make sure you code the algorithm as you have been taught it in class.
-     * There are several versions of this algorithm and you may not get full
-     * credit if you do not implement the one we have taught you!
+     * The array is scanned for runs that are already ascending (or strictly
+     * descending, which are reversed in place). Runs shorter than minrun are
+     * extended with binary insertion sort, where minrun is picked between 16
+     * and 32 so the number of runs is a power of two or just under. Runs are
+     * pushed on a stack that is merged whenever the lengths stop shrinking
+     * fast enough, which keeps merges balanced. A merge first skips the parts
+     * of both runs that are already in place, and switches to galloping
+     * (exponential search) when one run keeps winning, so an array that is
+     * sorted apart from a few appended elements costs close to n comparisons.
+     * Only the shorter run of each merge is copied out.
      *
      * @param <T>        data type to sort
-     * @param k          the index to retrieve data from + 1 (due to
-     *                   0-indexing) if the array was sorted; the 'k' in "kth
-     *                   select"; e.g. if k == 1, return the smallest element
-     *                   in the array
-     * @param arr        the array that should be modified after the method
-     *                   is finished executing as needed
+     * @param arr        the array to be sorted
      * @param comparator the Comparator used to compare the data in arr
-     * @param rand       the Random object used to select pivots
-     * @return the kth smallest element
-     * @throws java.lang.IllegalArgumentException if the array or comparator
-     *                                            or rand is null or k is not
-     *                                            in the range of 1 to arr
-     *                                            .length
+     * @throws java.lang.IllegalArgumentException if the array or comparator is
+     *                                            null, or the comparator is
+     *                                            found to be inconsistent
      */
-    public static <T> T kthSelect(int k, T[] arr, Comparator<T> comparator,
-                                  Random rand) {
+    public static <T> void timSort(T[] arr, Comparator<T> comparator) {
 
-        if (arr == null || comparator == null || rand == null || k < 1 || k > arr.length) {
+        if (arr == null || comparator == null) {
 
-            throw new IllegalArgumentException("The array or comparator is null or k is not in the acceptable range");
+            throw new IllegalArgumentException("The array or comparator is null");
         }
 
-        return rKthSelect(k, arr, 0, arr.length, comparator, rand);
-    }
+        int length = arr.length;
 
+        if (length < 2) {
+            return;
+        }
 
-    /**
-     * Recursive Kth Select method that takes in more parameters when recursively calling itself.
-     * @param k Kth smallest index
-     * @param arr The array in which the kth smallest index would be found
-     * @param left The minimum index of the array to be searched
-     * @param right The maximum index of the array to be searched
-     * @param comparator defines comparing behaviour and keep count
-     * @param rand object for random generation
-     * @param <T> The data type to be used
-     * @return returns the kth smallest type
-     */
-    public static <T> T rKthSelect(int k, T[] arr, int left, int right, Comparator<T> comparator,
-                                   Random rand) {
+        long start = TIM_SORT.start();
+        TimSort<T> timSort = new TimSort<T>(arr, TIM_SORT.counting(comparator));
 
-        int pivotIndex = rand.nextInt(right - left) + left;
+        if (length < MIN_MERGE) {
+            timSort.binarySort(0, length, timSort.countRunAndMakeAscending(0, length));
+            TIM_SORT.stop(start);
+            return;
+        }
 
-        T temp1 = arr[pivotIndex];
-        arr[pivotIndex] = arr[left];
-        arr[left] = temp1;
+        int minRun = minRunLength(length);
+        int low = 0;
+        int remaining = length;
 
-        int leftIndex = left + 1;
-        int rightIndex = right - 1;
+        do {
 
-        while (leftIndex <= rightIndex) {
+            int runLength = timSort.countRunAndMakeAscending(low, length);
 
-            while (leftIndex <= rightIndex && comparator.compare(arr[leftIndex], temp1) <= 0) {
-                leftIndex++;
-            }
+            if (runLength < minRun) {
 
-            while (leftIndex <= rightIndex && comparator.compare(arr[rightIndex], temp1) >= 0) {
-                rightIndex--;
+                int forced = Math.min(remaining, minRun);
+                timSort.binarySort(low, low + forced, low + runLength);
+                runLength = forced;
             }
 
-            if (leftIndex <= rightIndex) {
+            timSort.pushRun(low, runLength);
+            timSort.mergeCollapse();
 
-                T temp2 = arr[leftIndex];
-                arr[leftIndex] = arr[rightIndex];
-                arr[rightIndex] = temp2;
+            low += runLength;
+            remaining -= runLength;
 
-                leftIndex++;
-                rightIndex--;
+        } while (remaining != 0);
 
-            }
-        }
+        timSort.mergeForceCollapse();
+        TIM_SORT.stop(start);
+    }
+
+    /**
+     * Computes the minimum run length for a timsort of the given length.
+     * @param length length of the array
+     * @return minrun, between MIN_MERGE / 2 and MIN_MERGE
+     */
+    private static int minRunLength(int length) {
+
+        int carry = 0;
+
+        while (length >= MIN_MERGE) {
+            carry |= length & 1;
+            length >>= 1;
+        }
+
+        return length + carry;
+    }
+
+    /**
+     * State of one timsort: the run stack, the merge buffer and the current
+     * galloping threshold.
+     * @param <T> data type to sort
+     */
+    private static class TimSort<T> {
+
+        private final T[] arr;
+        private final Comparator<T> comparator;
+        private final int[] runBase = new int[49];
+        private final int[] runLength = new int[49];
+        private int stackSize;
+        private int minGallop = MIN_GALLOP;
+        private T[] buffer;
+
+        /**
+         * Creates the state for sorting arr.
+         * @param arr array being sorted
+         * @param comparator comparator defining comparison behaviour
+         */
+        TimSort(T[] arr, Comparator<T> comparator) {
+
+            this.arr = arr;
+            this.comparator = comparator;
+        }
+
+        /**
+         * Finds the length of the run starting at low, reversing it first if
+         * it is strictly descending.
+         * @param low start of the run
+         * @param high end of the array (exclusive)
+         * @return length of the run
+         */
+        int countRunAndMakeAscending(int low, int high) {
+
+            int runHigh = low + 1;
+
+            if (runHigh == high) {
+                return 1;
+            }
+
+            if (comparator.compare(arr[runHigh++], arr[low]) < 0) {
+
+                while (runHigh < high && comparator.compare(arr[runHigh], arr[runHigh - 1]) < 0) {
+                    runHigh++;
+                }
+
+                for (int i = low, j = runHigh - 1; i < j; i++, j--) {
+                    swap(arr, i, j);
+                }
+
+            } else {
+
+                while (runHigh < high && comparator.compare(arr[runHigh], arr[runHigh - 1]) >= 0) {
+                    runHigh++;
+                }
+            }
+
+            return runHigh - low;
+        }
+
+        /**
+         * Binary insertion sort over arr[low, high) where arr[low, start) is
+         * already sorted.
+         * @param low minimum index (inclusive)
+         * @param high maximum index (exclusive)
+         * @param start first index that is not yet sorted
+         */
+        void binarySort(int low, int high, int start) {
+
+            for (; start < high; start++) {
+
+                T pivot = arr[start];
+                int left = low;
+                int right = start;
+
+                while (left < right) {
+
+                    int middle = (left + right) >>> 1;
+
+                    if (comparator.compare(pivot, arr[middle]) < 0) {
+                        right = middle;
+
+                    } else {
+                        left = middle + 1;
+                    }
+                }
+
+                System.arraycopy(arr, left, arr, left + 1, start - left);
+                arr[left] = pivot;
+            }
+        }
+
+        /**
+         * Pushes a run on the run stack.
+         * @param base start of the run
+         * @param length length of the run
+         */
+        void pushRun(int base, int length) {
+
+            runBase[stackSize] = base;
+            runLength[stackSize] = length;
+            stackSize++;
+        }
+
+        /**
+         * Merges runs until the stack invariants hold again: every run is
+         * longer than the one above it, and longer than the two above it
+         * combined.
+         */
+        void mergeCollapse() {
+
+            while (stackSize > 1) {
+
+                int n = stackSize - 2;
+
+                if (n > 0 && runLength[n - 1] <= runLength[n] + runLength[n + 1]
+                        || n > 1 && runLength[n - 2] <= runLength[n] + runLength[n - 1]) {
+
+                    if (runLength[n - 1] < runLength[n + 1]) {
+                        n--;
+                    }
+
+                } else if (runLength[n] > runLength[n + 1]) {
+                    break;
+                }
+
+                mergeAt(n);
+            }
+        }
+
+        /**
+         * Merges every run left on the stack.
+         */
+        void mergeForceCollapse() {
+
+            while (stackSize > 1) {
+
+                int n = stackSize - 2;
+
+                if (n > 0 && runLength[n - 1] < runLength[n + 1]) {
+                    n--;
+                }
+
+                mergeAt(n);
+            }
+        }
+
+        /**
+         * Merges the runs at stack positions i and i + 1.
+         * @param i stack position of the lower run
+         */
+        private void mergeAt(int i) {
+
+            int base1 = runBase[i];
+            int length1 = runLength[i];
+            int base2 = runBase[i + 1];
+            int length2 = runLength[i + 1];
+
+            runLength[i] = length1 + length2;
+
+            if (i == stackSize - 3) {
+                runBase[i + 1] = runBase[i + 2];
+                runLength[i + 1] = runLength[i + 2];
+            }
+
+            stackSize--;
+
+            int skipped = gallopRight(arr[base2], arr, base1, length1, 0);
+            base1 += skipped;
+            length1 -= skipped;
+
+            if (length1 == 0) {
+                return;
+            }
+
+            length2 = gallopLeft(arr[base1 + length1 - 1], arr, base2, length2, length2 - 1);
+
+            if (length2 == 0) {
+                return;
+            }
+
+            if (length1 <= length2) {
+                mergeLow(base1, length1, base2, length2);
+
+            } else {
+                mergeHigh(base1, length1, base2, length2);
+            }
+        }
+
+        /**
+         * Finds where key goes in the sorted a[base, base + length), before
+         * any equal elements, searching outwards from hint.
+         * @param key element to place
+         * @param a array holding the run
+         * @param base start of the run
+         * @param length length of the run
+         * @param hint offset to start searching from
+         * @return k such that a[base + k - 1] &lt; key &lt;= a[base + k]
+         */
+        private int gallopLeft(T key, T[] a, int base, int length, int hint) {
+
+            int lastOffset = 0;
+            int offset = 1;
+
+            if (comparator.compare(key, a[base + hint]) > 0) {
+
+                int maxOffset = length - hint;
+
+                while (offset < maxOffset && comparator.compare(key, a[base + hint + offset]) > 0) {
+                    lastOffset = offset;
+                    offset = (offset << 1) + 1;
+
+                    if (offset <= 0) {
+                        offset = maxOffset;
+                    }
+                }
+
+                offset = Math.min(offset, maxOffset);
+                lastOffset += hint;
+                offset += hint;
+
+            } else {
+
+                int maxOffset = hint + 1;
+
+                while (offset < maxOffset && comparator.compare(key, a[base + hint - offset]) <= 0) {
+                    lastOffset = offset;
+                    offset = (offset << 1) + 1;
+
+                    if (offset <= 0) {
+                        offset = maxOffset;
+                    }
+                }
+
+                offset = Math.min(offset, maxOffset);
+                int temp = lastOffset;
+                lastOffset = hint - offset;
+                offset = hint - temp;
+            }
+
+            lastOffset++;
+
+            while (lastOffset < offset) {
+
+                int middle = lastOffset + ((offset - lastOffset) >>> 1);
+
+                if (comparator.compare(key, a[base + middle]) > 0) {
+                    lastOffset = middle + 1;
+
+                } else {
+                    offset = middle;
+                }
+            }
+
+            return offset;
+        }
+
+        /**
+         * Finds where key goes in the sorted a[base, base + length), after
+         * any equal elements, searching outwards from hint.
+         * @param key element to place
+         * @param a array holding the run
+         * @param base start of the run
+         * @param length length of the run
+         * @param hint offset to start searching from
+         * @return k such that a[base + k - 1] &lt;= key &lt; a[base + k]
+         */
+        private int gallopRight(T key, T[] a, int base, int length, int hint) {
+
+            int lastOffset = 0;
+            int offset = 1;
+
+            if (comparator.compare(key, a[base + hint]) < 0) {
+
+                int maxOffset = hint + 1;
+
+                while (offset < maxOffset && comparator.compare(key, a[base + hint - offset]) < 0) {
+                    lastOffset = offset;
+                    offset = (offset << 1) + 1;
+
+                    if (offset <= 0) {
+                        offset = maxOffset;
+                    }
+                }
+
+                offset = Math.min(offset, maxOffset);
+                int temp = lastOffset;
+                lastOffset = hint - offset;
+                offset = hint - temp;
+
+            } else {
+
+                int maxOffset = length - hint;
+
+                while (offset < maxOffset && comparator.compare(key, a[base + hint + offset]) >= 0) {
+                    lastOffset = offset;
+                    offset = (offset << 1) + 1;
+
+                    if (offset <= 0) {
+                        offset = maxOffset;
+                    }
+                }
+
+                offset = Math.min(offset, maxOffset);
+                lastOffset += hint;
+                offset += hint;
+            }
+
+            lastOffset++;
+
+            while (lastOffset < offset) {
+
+                int middle = lastOffset + ((offset - lastOffset) >>> 1);
+
+                if (comparator.compare(key, a[base + middle]) < 0) {
+                    offset = middle;
+
+                } else {
+                    lastOffset = middle + 1;
+                }
+            }
+
+            return offset;
+        }
+
+        /**
+         * Merges two adjacent runs front to back, copying the first (shorter)
+         * run out. The first element of run 2 is known to go before run 1, and
+         * the last element of run 1 after run 2.
+         * @param base1 start of run 1
+         * @param length1 length of run 1
+         * @param base2 start of run 2
+         * @param length2 length of run 2
+         */
+        private void mergeLow(int base1, int length1, int base2, int length2) {
+
+            T[] temp = ensureCapacity(length1);
+            System.arraycopy(arr, base1, temp, 0, length1);
+
+            int cursor1 = 0;
+            int cursor2 = base2;
+            int destination = base1;
+
+            arr[destination++] = arr[cursor2++];
+
+            if (--length2 == 0) {
+                System.arraycopy(temp, cursor1, arr, destination, length1);
+                return;
+            }
+
+            if (length1 == 1) {
+                System.arraycopy(arr, cursor2, arr, destination, length2);
+                arr[destination + length2] = temp[cursor1];
+                return;
+            }
+
+            int gallop = minGallop;
+
+        outer:
+            while (true) {
+
+                int count1 = 0;
+                int count2 = 0;
+
+                do {
+
+                    if (comparator.compare(arr[cursor2], temp[cursor1]) < 0) {
+
+                        arr[destination++] = arr[cursor2++];
+                        count2++;
+                        count1 = 0;
+
+                        if (--length2 == 0) {
+                            break outer;
+                        }
+
+                    } else {
+
+                        arr[destination++] = temp[cursor1++];
+                        count1++;
+                        count2 = 0;
+
+                        if (--length1 == 1) {
+                            break outer;
+                        }
+                    }
+
+                } while ((count1 | count2) < gallop);
+
+                do {
+
+                    count1 = gallopRight(arr[cursor2], temp, cursor1, length1, 0);
+
+                    if (count1 != 0) {
+
+                        System.arraycopy(temp, cursor1, arr, destination, count1);
+                        destination += count1;
+                        cursor1 += count1;
+                        length1 -= count1;
+
+                        if (length1 <= 1) {
+                            break outer;
+                        }
+                    }
+
+                    arr[destination++] = arr[cursor2++];
+
+                    if (--length2 == 0) {
+                        break outer;
+                    }
+
+                    count2 = gallopLeft(temp[cursor1], arr, cursor2, length2, 0);
+
+                    if (count2 != 0) {
+
+                        System.arraycopy(arr, cursor2, arr, destination, count2);
+                        destination += count2;
+                        cursor2 += count2;
+                        length2 -= count2;
+
+                        if (length2 == 0) {
+                            break outer;
+                        }
+                    }
+
+                    arr[destination++] = temp[cursor1++];
+
+                    if (--length1 == 1) {
+                        break outer;
+                    }
+
+                    gallop--;
+
+                } while (count1 >= MIN_GALLOP || count2 >= MIN_GALLOP);
+
+                gallop = Math.max(gallop, 0) + 2;
+            }
+
+            minGallop = Math.max(gallop, 1);
+
+            if (length1 == 1) {
+                System.arraycopy(arr, cursor2, arr, destination, length2);
+                arr[destination + length2] = temp[cursor1];
+
+            } else if (length1 == 0) {
+                throw new IllegalArgumentException("The comparator violates its general contract");
+
+            } else {
+                System.arraycopy(temp, cursor1, arr, destination, length1);
+            }
+        }
+
+        /**
+         * Merges two adjacent runs back to front, copying the second
+         * (shorter) run out. Same preconditions as mergeLow.
+         * @param base1 start of run 1
+         * @param length1 length of run 1
+         * @param base2 start of run 2
+         * @param length2 length of run 2
+         */
+        private void mergeHigh(int base1, int length1, int base2, int length2) {
+
+            T[] temp = ensureCapacity(length2);
+            System.arraycopy(arr, base2, temp, 0, length2);
+
+            int cursor1 = base1 + length1 - 1;
+            int cursor2 = length2 - 1;
+            int destination = base2 + length2 - 1;
+
+            arr[destination--] = arr[cursor1--];
+
+            if (--length1 == 0) {
+                System.arraycopy(temp, 0, arr, destination - (length2 - 1), length2);
+                return;
+            }
+
+            if (length2 == 1) {
+                destination -= length1;
+                cursor1 -= length1;
+                System.arraycopy(arr, cursor1 + 1, arr, destination + 1, length1);
+                arr[destination] = temp[cursor2];
+                return;
+            }
+
+            int gallop = minGallop;
+
+        outer:
+            while (true) {
+
+                int count1 = 0;
+                int count2 = 0;
+
+                do {
+
+                    if (comparator.compare(temp[cursor2], arr[cursor1]) < 0) {
+
+                        arr[destination--] = arr[cursor1--];
+                        count1++;
+                        count2 = 0;
+
+                        if (--length1 == 0) {
+                            break outer;
+                        }
+
+                    } else {
+
+                        arr[destination--] = temp[cursor2--];
+                        count2++;
+                        count1 = 0;
+
+                        if (--length2 == 1) {
+                            break outer;
+                        }
+                    }
+
+                } while ((count1 | count2) < gallop);
+
+                do {
+
+                    count1 = length1 - gallopRight(temp[cursor2], arr, base1, length1, length1 - 1);
+
+                    if (count1 != 0) {
+
+                        destination -= count1;
+                        cursor1 -= count1;
+                        length1 -= count1;
+                        System.arraycopy(arr, cursor1 + 1, arr, destination + 1, count1);
+
+                        if (length1 == 0) {
+                            break outer;
+                        }
+                    }
+
+                    arr[destination--] = temp[cursor2--];
+
+                    if (--length2 == 1) {
+                        break outer;
+                    }
+
+                    count2 = length2 - gallopLeft(arr[cursor1], temp, 0, length2, length2 - 1);
+
+                    if (count2 != 0) {
+
+                        destination -= count2;
+                        cursor2 -= count2;
+                        length2 -= count2;
+                        System.arraycopy(temp, cursor2 + 1, arr, destination + 1, count2);
+
+                        if (length2 <= 1) {
+                            break outer;
+                        }
+                    }
+
+                    arr[destination--] = arr[cursor1--];
+
+                    if (--length1 == 0) {
+                        break outer;
+                    }
+
+                    gallop--;
+
+                } while (count1 >= MIN_GALLOP || count2 >= MIN_GALLOP);
+
+                gallop = Math.max(gallop, 0) + 2;
+            }
+
+            minGallop = Math.max(gallop, 1);
+
+            if (length2 == 1) {
+                destination -= length1;
+                cursor1 -= length1;
+                System.arraycopy(arr, cursor1 + 1, arr, destination + 1, length1);
+                arr[destination] = temp[cursor2];
+
+            } else if (length2 == 0) {
+                throw new IllegalArgumentException("The comparator violates its general contract");
+
+            } else {
+                System.arraycopy(temp, 0, arr, destination - (length2 - 1), length2);
+            }
+        }
+
+        /**
+         * Returns a merge buffer of at least the given length, growing it if
+         * needed.
+         * @param length minimum length of the buffer
+         * @return the merge buffer
+         */
+        private T[] ensureCapacity(int length) {
+
+            if (buffer == null || buffer.length < length) {
+                buffer = (T[]) new Object[Math.max(length, Math.min(arr.length / 2, 2 * length))];
+                TIM_SORT.allocations(1);
+            }
+
+            return buffer;
+        }
+    }
+
+    /**
+     * Implement LSD (least significant digit) radix sort.
+     * <p>
+     * Make sure you code the algorithm as you have been taught it in class.
+     * There are several versions of this algorithm and you may not get full
+     * credit if you do not implement the one we have taught you!
+     * <p>
+     * Remember you CANNOT convert the ints to strings at any point in your
+     * code! Doing so may result in a 0 for the implementation.
+     * <p>
+     * It should be:
+     * out-of-place
+     * stable
+     * not adaptive
+     * <p>
+     * Have a worst case running time of:
+     * O(kn)
+     * <p>
+     * And a best case running time of:
+     * O(kn)
+     * <p>
+     * You are allowed to make an initial O(n) passthrough of the array to
+     * determine the number of iterations you need.
+     * <p>
+     * At no point should you find yourself needing a way to exponentiate a
+     * number; any such method would be non-O(1). Think about how how you can
+     * get each power of BASE naturally and efficiently as the algorithm
+     * progresses through each digit.
+     * <p>
+     * Refer to the PDF for more information on LSD Radix Sort.
+     * <p>
+     * You may use ArrayList or LinkedList if you wish, but it may only be
+     * used inside radix sort and any radix sort helpers. Do NOT use these
+     * classes with other sorts. However, be sure the List implementation you
+     * choose allows for stability while being as efficient as possible.
+     * <p>
+     * Do NOT use anything from the Math class except Math.abs().
+     *
+     * @param arr the array to be sorted
+     * @throws java.lang.IllegalArgumentException if the array is null
+     */
+    public static void lsdRadixSort(int[] arr) {
+
+        if (arr == null) {
+            throw new IllegalArgumentException("The array is null");
+        }
+
+        long start = LSD_RADIX_SORT.start();
+        int iterations = 0;
+
+        for (int element : arr) {
+            int count = 0;
+
+            while (element != 0) {
+                element = element / 10;
+                count++;
+            }
+
+            if (count > iterations) {
+                iterations = count;
+            }
+        }
+
+        LinkedList<Integer>[] buckets = new LinkedList[19];
+
+        for (int i = 0; i < buckets.length; i++) {
+            buckets[i] = new LinkedList<Integer>();
+        }
+
+        int radix = 1;
+        int idx = 0;
+
+        while (idx < iterations) {
+
+            for (int element : arr) {
+
+                int position = (element / radix) % 10 + 9;
+                buckets[position].add(element);
+            }
+
+            int count = 0;
+            for (int i = 0; i < buckets.length; i++) {
+
+                while (buckets[i].size() > 0) {
+                    arr[count] = buckets[i].removeFirst();
+                    count++;
+                }
+            }
+
+            idx++;
+            radix *= 10;
+        }
+
+        LSD_RADIX_SORT.moves(2L * iterations * arr.length);
+        LSD_RADIX_SORT.allocations(buckets.length + 1 + (long) iterations * arr.length);
+        LSD_RADIX_SORT.stop(start);
+    }
+
+
+    /**
+     * LSD radix sort over int[] using counting arrays instead of bucket lists.
+     * <p>
+     * It should be:
+     * out-of-place
+     * stable
+     * not adaptive
+     * <p>
+     * Have a worst case running time of:
+     * O(kn)
+     * <p>
+     * And a best case running time of:
+     * O(kn)
+     * <p>
+     * k is 32 / radixBits rounded up. Each digit is radixBits wide, so 8
+     * gives four passes over 256 buckets and 16 gives two passes over 65536.
+     * The sign bit of every key is flipped before digits are taken, which
+     * makes negative numbers land in front of the positive ones without a
+     * separate pass. The histograms for every digit are built in one read of
+     * the array, and any digit that is the same for every element is skipped.
+     * A single scratch array is used, ping-ponging with arr between passes.
+     *
+     * @param arr       the array to be sorted
+     * @param radixBits the width of each digit in bits, from 1 to 16
+     * @throws java.lang.IllegalArgumentException if the array is null or
+     *                                            radixBits is out of range
+     */
+    public static void lsdRadixSort(int[] arr, int radixBits) {
+
+        if (arr == null) {
+            throw new IllegalArgumentException("The array is null");
+        }
+
+        checkRadixBits(radixBits);
+
+        long start = LSD_RADIX_SORT.start();
+        radixSortKeys(arr, null, radixBits, LSD_RADIX_SORT);
+        LSD_RADIX_SORT.stop(start);
+    }
+
+    /**
+     * LSD radix sort over long[] using counting arrays instead of bucket
+     * lists. Same as lsdRadixSort(int[], int) but with 64 bit keys, so k is
+     * 64 / radixBits rounded up.
+     *
+     * @param arr       the array to be sorted
+     * @param radixBits the width of each digit in bits, from 1 to 16
+     * @throws java.lang.IllegalArgumentException if the array is null or
+     *                                            radixBits is out of range
+     */
+    public static void lsdRadixSort(long[] arr, int radixBits) {
+
+        if (arr == null) {
+            throw new IllegalArgumentException("The array is null");
+        }
+
+        checkRadixBits(radixBits);
+
+        long start = LSD_RADIX_SORT.start();
+        radixSortKeys(arr, null, radixBits, LSD_RADIX_SORT);
+        LSD_RADIX_SORT.stop(start);
+    }
+
+    /**
+     * Stable LSD radix sort of records by an int key.
+     * <p>
+     * The key of each record is extracted exactly once into an int[] that is
+     * sorted alongside the records, so keyExtractor is not called again on
+     * every pass.
+     *
+     * @param <T>          data type to sort
+     * @param arr          the array to be sorted
+     * @param keyExtractor the function returning the int key of a record
+     * @param radixBits    the width of each digit in bits, from 1 to 16
+     * @throws java.lang.IllegalArgumentException if the array or keyExtractor
+     *                                            is null or radixBits is out
+     *                                            of range
+     */
+    public static <T> void lsdRadixSortByIntKey(T[] arr, ToIntFunction<? super T> keyExtractor, int radixBits) {
+
+        if (arr == null || keyExtractor == null) {
+            throw new IllegalArgumentException("The array or key extractor is null");
+        }
+
+        checkRadixBits(radixBits);
+
+        long start = LSD_RADIX_SORT.start();
+        int[] keys = new int[arr.length];
+
+        for (int i = 0; i < arr.length; i++) {
+            keys[i] = keyExtractor.applyAsInt(arr[i]);
+        }
+
+        radixSortKeys(keys, arr, radixBits, LSD_RADIX_SORT);
+        LSD_RADIX_SORT.stop(start);
+    }
+
+    /**
+     * Stable LSD radix sort of records by a long key.
+     *
+     * @param <T>          data type to sort
+     * @param arr          the array to be sorted
+     * @param keyExtractor the function returning the long key of a record
+     * @param radixBits    the width of each digit in bits, from 1 to 16
+     * @throws java.lang.IllegalArgumentException if the array or keyExtractor
+     *                                            is null or radixBits is out
+     *                                            of range
+     * @see #lsdRadixSortByIntKey(Object[], ToIntFunction, int)
+     */
+    public static <T> void lsdRadixSortByLongKey(T[] arr, ToLongFunction<? super T> keyExtractor, int radixBits) {
+
+        if (arr == null || keyExtractor == null) {
+            throw new IllegalArgumentException("The array or key extractor is null");
+        }
+
+        checkRadixBits(radixBits);
+
+        long start = LSD_RADIX_SORT.start();
+        long[] keys = new long[arr.length];
+
+        for (int i = 0; i < arr.length; i++) {
+            keys[i] = keyExtractor.applyAsLong(arr[i]);
+        }
+
+        radixSortKeys(keys, arr, radixBits, LSD_RADIX_SORT);
+        LSD_RADIX_SORT.stop(start);
+    }
+
+    /**
+     * Checks that a digit width is one the counting radix sorts can handle.
+     * @param radixBits the width of each digit in bits
+     */
+    private static void checkRadixBits(int radixBits) {
+
+        if (radixBits < 1 || radixBits > 16) {
+            throw new IllegalArgumentException("The radix bits must be between 1 and 16");
+        }
+    }
+
+    /**
+     * Counting radix sort of int keys, moving values (if not null) with them.
+     * @param keys keys to be sorted
+     * @param values records to be moved along with their keys, or null
+     * @param radixBits the width of each digit in bits
+     * @param probe probe of the public sort, which the allocations are
+     *              recorded on
+     * @param <T> data type of the values
+     */
+    private static <T> void radixSortKeys(int[] keys, T[] values, int radixBits, Metrics.Probe probe) {
+
+        int length = keys.length;
+
+        if (length < 2) {
+            return;
+        }
+
+        int passes = (Integer.SIZE + radixBits - 1) / radixBits;
+        int mask = (1 << radixBits) - 1;
+        int[][] counts = new int[passes][mask + 1];
+        probe.allocations(values == null ? 2 + passes : 3 + passes);
+
+        for (int key : keys) {
+
+            int flipped = key ^ Integer.MIN_VALUE;
+
+            for (int pass = 0; pass < passes; pass++) {
+                counts[pass][(flipped >>> (pass * radixBits)) & mask]++;
+            }
+        }
+
+        int[] keySource = keys;
+        int[] keyTarget = new int[length];
+        T[] valueSource = values;
+        T[] valueTarget = values == null ? null : (T[]) new Object[length];
+
+        for (int pass = 0; pass < passes; pass++) {
+
+            int[] count = counts[pass];
+            int shift = pass * radixBits;
+
+            if (toOffsets(count, length)) {
+                continue;
+            }
+
+            for (int i = 0; i < length; i++) {
+
+                int position = count[((keySource[i] ^ Integer.MIN_VALUE) >>> shift) & mask]++;
+                keyTarget[position] = keySource[i];
+
+                if (values != null) {
+                    valueTarget[position] = valueSource[i];
+                }
+            }
+
+            int[] keyTemp = keySource;
+            keySource = keyTarget;
+            keyTarget = keyTemp;
+
+            T[] valueTemp = valueSource;
+            valueSource = valueTarget;
+            valueTarget = valueTemp;
+        }
+
+        if (keySource != keys) {
+
+            System.arraycopy(keySource, 0, keys, 0, length);
+
+            if (values != null) {
+                System.arraycopy(valueSource, 0, values, 0, length);
+            }
+        }
+    }
+
+    /**
+     * Counting radix sort of long keys, moving values (if not null) with them.
+     * @param keys keys to be sorted
+     * @param values records to be moved along with their keys, or null
+     * @param radixBits the width of each digit in bits
+     * @param probe probe of the public sort, which the allocations are
+     *              recorded on
+     * @param <T> data type of the values
+     */
+    private static <T> void radixSortKeys(long[] keys, T[] values, int radixBits, Metrics.Probe probe) {
+
+        int length = keys.length;
+
+        if (length < 2) {
+            return;
+        }
+
+        int passes = (Long.SIZE + radixBits - 1) / radixBits;
+        int mask = (1 << radixBits) - 1;
+        int[][] counts = new int[passes][mask + 1];
+        probe.allocations(values == null ? 2 + passes : 3 + passes);
+
+        for (long key : keys) {
+
+            long flipped = key ^ Long.MIN_VALUE;
+
+            for (int pass = 0; pass < passes; pass++) {
+                counts[pass][(int) (flipped >>> (pass * radixBits)) & mask]++;
+            }
+        }
+
+        long[] keySource = keys;
+        long[] keyTarget = new long[length];
+        T[] valueSource = values;
+        T[] valueTarget = values == null ? null : (T[]) new Object[length];
+
+        for (int pass = 0; pass < passes; pass++) {
+
+            int[] count = counts[pass];
+            int shift = pass * radixBits;
+
+            if (toOffsets(count, length)) {
+                continue;
+            }
+
+            for (int i = 0; i < length; i++) {
+
+                int position = count[(int) ((keySource[i] ^ Long.MIN_VALUE) >>> shift) & mask]++;
+                keyTarget[position] = keySource[i];
+
+                if (values != null) {
+                    valueTarget[position] = valueSource[i];
+                }
+            }
+
+            long[] keyTemp = keySource;
+            keySource = keyTarget;
+            keyTarget = keyTemp;
+
+            T[] valueTemp = valueSource;
+            valueSource = valueTarget;
+            valueTarget = valueTemp;
+        }
+
+        if (keySource != keys) {
+
+            System.arraycopy(keySource, 0, keys, 0, length);
+
+            if (values != null) {
+                System.arraycopy(valueSource, 0, values, 0, length);
+            }
+        }
+    }
+
+    /**
+     * Turns a digit histogram into starting offsets in place.
+     * @param count histogram of one digit
+     * @param length number of elements being sorted
+     * @return true if every element has the same digit, so the pass can be
+     * skipped
+     */
+    private static boolean toOffsets(int[] count, int length) {
+
+        int sum = 0;
+
+        for (int i = 0; i < count.length; i++) {
+
+            int current = count[i];
+
+            if (current == length) {
+                return true;
+            }
+
+            count[i] = sum;
+            sum += current;
+        }
+
+        return false;
+    }
+
+    /**
+     * Parallel radix sort that runs on the common ForkJoinPool.
+     *
+     * @param arr the array to be sorted
+     * @throws java.lang.IllegalArgumentException if the array is null
+     * @see #parallelRadixSort(int[], ForkJoinPool)
+     */
+    public static void parallelRadixSort(int[] arr) {
+
+        parallelRadixSort(arr, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Parallel radix sort over int[] with 8 bit digits.
+     * <p>
+     * It should be:
+     * out-of-place
+     * not adaptive
+     * <p>
+     * Have a worst case running time of:
+     * O(kn / p)
+     * <p>
+     * And a best case running time of:
+     * O(kn / p)
+     * <p>
+     * The array is cut into chunks, one histogram per chunk is built in
+     * parallel, and the histograms are merged into per-chunk starting offsets
+     * (digit first, then chunk, so the pass stays stable). Every chunk then
+     * scatters its own elements in parallel, without any locking since no two
+     * chunks write to the same slot.
+     * <p>
+     * Normally the array is sorted LSD, skipping digits shared by every
+     * element. If the most significant digit is skewed, i.e. one bucket holds
+     * more than half of the elements, the sort switches to MSD instead:
+     * it partitions once on the top digit and then sorts each bucket as an
+     * independent task, so the lower digits are only passed over within the
+     * buckets that need them and small buckets stay in cache.
+     *
+     * @param arr  the array to be sorted
+     * @param pool the pool the sort tasks are run on
+     * @throws java.lang.IllegalArgumentException if the array or pool is null
+     */
+    public static void parallelRadixSort(int[] arr, ForkJoinPool pool) {
+
+        if (arr == null || pool == null) {
+            throw new IllegalArgumentException("The array or pool is null");
+        }
+
+        long start = PARALLEL_RADIX_SORT.start();
+
+        if (arr.length <= PARALLEL_THRESHOLD) {
+            radixSortKeys(arr, null, PARALLEL_RADIX_BITS, PARALLEL_RADIX_SORT);
+
+        } else {
+            pool.invoke(new RadixSortTask(arr));
+        }
+
+        PARALLEL_RADIX_SORT.stop(start);
+    }
+
+    /**
+     * Top level parallel radix sort task that picks between LSD and MSD.
+     */
+    private static class RadixSortTask extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        private final int[] arr;
+
+        /**
+         * Creates the task for the whole array.
+         * @param arr array being sorted
+         */
+        RadixSortTask(int[] arr) {
+
+            this.arr = arr;
+        }
+
+        @Override
+        protected void compute() {
+
+            int length = arr.length;
+            int[] buffer = new int[length];
+            int chunks = radixChunks(length);
+            int topShift = Integer.SIZE - PARALLEL_RADIX_BITS;
+
+            int[][] histograms = parallelHistogram(arr, 0, length, topShift, chunks);
+            int[] totals = sumHistograms(histograms);
+            int largest = 0;
+
+            for (int count : totals) {
+                largest = Math.max(largest, count);
+            }
+
+            if (largest > length / 2 && largest < length) {
+
+                int[] starts = parallelScatter(arr, buffer, 0, length, topShift, histograms);
+                parallelCopy(buffer, arr, 0, length, chunks);
+                forkBuckets(arr, buffer, starts, topShift - PARALLEL_RADIX_BITS);
+                return;
+            }
+
+            int[] source = arr;
+            int[] target = buffer;
+
+            for (int shift = 0; shift < Integer.SIZE; shift += PARALLEL_RADIX_BITS) {
+
+                histograms = parallelHistogram(source, 0, length, shift, chunks);
+
+                if (isSingleBucket(sumHistograms(histograms), length)) {
+                    continue;
+                }
+
+                parallelScatter(source, target, 0, length, shift, histograms);
+
+                int[] temp = source;
+                source = target;
+                target = temp;
+            }
+
+            if (source != arr) {
+                parallelCopy(source, arr, 0, length, chunks);
+            }
+        }
+    }
+
+    /**
+     * MSD parallel radix sort task over arr[left, right) for the digits at
+     * and below shift.
+     */
+    private static class MsdRadixTask extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        private final int[] arr;
+        private final int[] buffer;
+        private final int left;
+        private final int right;
+        private final int shift;
+
+        /**
+         * Creates a task for one bucket.
+         * @param arr array being sorted
+         * @param buffer scratch buffer shared with every other task
+         * @param left minimum index (inclusive)
+         * @param right maximum index (exclusive)
+         * @param shift shift of the digit to partition on
+         */
+        MsdRadixTask(int[] arr, int[] buffer, int left, int right, int shift) {
+
+            this.arr = arr;
+            this.buffer = buffer;
+            this.left = left;
+            this.right = right;
+            this.shift = shift;
+        }
+
+        @Override
+        protected void compute() {
+
+            int length = right - left;
+
+            if (length <= PARALLEL_THRESHOLD) {
+                radixSortRange(arr, buffer, left, right, shift);
+                return;
+            }
+
+            int chunks = radixChunks(length);
+            int current = shift;
+            int[][] histograms = parallelHistogram(arr, left, right, current, chunks);
+
+            while (isSingleBucket(sumHistograms(histograms), length)) {
+
+                if (current == 0) {
+                    return;
+                }
+
+                current -= PARALLEL_RADIX_BITS;
+                histograms = parallelHistogram(arr, left, right, current, chunks);
+            }
+
+            int[] starts = parallelScatter(arr, buffer, left, right, current, histograms);
+            parallelCopy(buffer, arr, left, right, chunks);
+
+            if (current > 0) {
+                forkBuckets(arr, buffer, starts, current - PARALLEL_RADIX_BITS);
+            }
+        }
+    }
+
+    /**
+     * Sorts every bucket left behind by an MSD partition as its own task.
+     * @param arr array being sorted
+     * @param buffer scratch buffer shared with every task
+     * @param starts bucket boundaries, where bucket i is [starts[i], starts[i + 1])
+     * @param shift shift of the next digit down
+     */
+    private static void forkBuckets(int[] arr, int[] buffer, int[] starts, int shift) {
+
+        List<MsdRadixTask> tasks = new ArrayList<MsdRadixTask>();
+
+        for (int i = 0; i < starts.length - 1; i++) {
+
+            if (starts[i + 1] - starts[i] > 1) {
+                tasks.add(new MsdRadixTask(arr, buffer, starts[i], starts[i + 1], shift));
+            }
+        }
+
+        RecursiveAction.invokeAll(tasks);
+    }
+
+    /**
+     * Sequential LSD radix sort over arr[left, right) for the digits at and
+     * below topShift, using buffer[left, right) as scratch.
+     * @param arr array to be sorted
+     * @param buffer scratch buffer at least as long as arr
+     * @param left minimum index (inclusive)
+     * @param right maximum index (exclusive)
+     * @param topShift shift of the most significant digit still unsorted
+     */
+    private static void radixSortRange(int[] arr, int[] buffer, int left, int right, int topShift) {
+
+        int length = right - left;
+
+        if (length <= INSERTION_SORT_THRESHOLD) {
+            insertionSort(arr, left, right);
+            return;
+        }
+
+        int passes = topShift / PARALLEL_RADIX_BITS + 1;
+        int mask = (1 << PARALLEL_RADIX_BITS) - 1;
+        int[][] counts = new int[passes][mask + 1];
+
+        for (int i = left; i < right; i++) {
+
+            int flipped = arr[i] ^ Integer.MIN_VALUE;
+
+            for (int pass = 0; pass < passes; pass++) {
+                counts[pass][(flipped >>> (pass * PARALLEL_RADIX_BITS)) & mask]++;
+            }
+        }
+
+        int[] source = arr;
+        int[] target = buffer;
+
+        for (int pass = 0; pass < passes; pass++) {
+
+            int[] count = counts[pass];
+            int shift = pass * PARALLEL_RADIX_BITS;
+
+            if (toOffsets(count, length)) {
+                continue;
+            }
+
+            for (int i = left; i < right; i++) {
+                target[left + count[((source[i] ^ Integer.MIN_VALUE) >>> shift) & mask]++] = source[i];
+            }
+
+            int[] temp = source;
+            source = target;
+            target = temp;
+        }
+
+        if (source != arr) {
+            System.arraycopy(source, left, arr, left, length);
+        }
+    }
+
+    /**
+     * Insertion sort over arr[left, right) that shifts instead of swapping.
+     * @param arr array to be sorted
+     * @param left minimum index (inclusive)
+     * @param right maximum index (exclusive)
+     */
+    private static void insertionSort(int[] arr, int left, int right) {
+
+        for (int i = left + 1; i < right; i++) {
+
+            int current = arr[i];
+            int j = i;
+
+            while (j > left && arr[j - 1] > current) {
+                arr[j] = arr[j - 1];
+                j--;
+            }
+
+            arr[j] = current;
+        }
+    }
+
+    /**
+     * Number of chunks a range of the given length is cut into.
+     * @param length length of the range
+     * @return number of chunks, at least 1
+     */
+    private static int radixChunks(int length) {
+
+        int parallelism = ForkJoinTask.getPool() == null
+                ? ForkJoinPool.getCommonPoolParallelism() : ForkJoinTask.getPool().getParallelism();
+
+        return Math.max(1, Math.min(parallelism * 4, length / RADIX_CHUNK_SIZE));
+    }
+
+    /**
+     * Start index of a chunk within [left, right).
+     * @param left minimum index (inclusive)
+     * @param right maximum index (exclusive)
+     * @param chunk index of the chunk
+     * @param chunks total number of chunks
+     * @return first index of the chunk
+     */
+    private static int chunkStart(int left, int right, int chunk, int chunks) {
+
+        return left + (int) ((long) (right - left) * chunk / chunks);
+    }
+
+    /**
+     * Builds one digit histogram per chunk of arr[left, right) in parallel.
+     * @param arr array being sorted
+     * @param left minimum index (inclusive)
+     * @param right maximum index (exclusive)
+     * @param shift shift of the digit
+     * @param chunks number of chunks
+     * @return histograms indexed by chunk, then digit
+     */
+    private static int[][] parallelHistogram(int[] arr, int left, int right, int shift, int chunks) {
+
+        int mask = (1 << PARALLEL_RADIX_BITS) - 1;
+        int[][] histograms = new int[chunks][mask + 1];
+
+        new ChunkAction(0, chunks, chunk -> {
+
+            int[] histogram = histograms[chunk];
+            int end = chunkStart(left, right, chunk + 1, chunks);
+
+            for (int i = chunkStart(left, right, chunk, chunks); i < end; i++) {
+                histogram[((arr[i] ^ Integer.MIN_VALUE) >>> shift) & mask]++;
+            }
+        }).invoke();
+
+        return histograms;
+    }
+
+    /**
+     * Adds the per-chunk histograms together.
+     * @param histograms histograms indexed by chunk, then digit
+     * @return total count of each digit
+     */
+    private static int[] sumHistograms(int[][] histograms) {
+
+        int[] totals = new int[histograms[0].length];
+
+        for (int[] histogram : histograms) {
+
+            for (int i = 0; i < histogram.length; i++) {
+                totals[i] += histogram[i];
+            }
+        }
+
+        return totals;
+    }
+
+    /**
+     * Checks whether every element falls into the same bucket.
+     * @param totals total count of each digit
+     * @param length number of elements
+     * @return true if one bucket holds every element
+     */
+    private static boolean isSingleBucket(int[] totals, int length) {
+
+        for (int count : totals) {
+
+            if (count == length) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * Stably scatters source[left, right) into target[left, right) by one
+     * digit, every chunk writing its own elements in parallel. The histograms
+     * are turned into the chunk's write offsets in place.
+     * @param source array to read from
+     * @param target array to write to
+     * @param left minimum index (inclusive)
+     * @param right maximum index (exclusive)
+     * @param shift shift of the digit
+     * @param histograms histograms of source indexed by chunk, then digit
+     * @return bucket boundaries, where bucket i is [starts[i], starts[i + 1])
+     */
+    private static int[] parallelScatter(int[] source, int[] target, int left, int right, int shift,
+                                         int[][] histograms) {
+
+        int chunks = histograms.length;
+        int mask = (1 << PARALLEL_RADIX_BITS) - 1;
+        int[] starts = new int[mask + 2];
+        int sum = left;
+
+        for (int digit = 0; digit <= mask; digit++) {
+
+            starts[digit] = sum;
+
+            for (int chunk = 0; chunk < chunks; chunk++) {
+
+                int count = histograms[chunk][digit];
+                histograms[chunk][digit] = sum;
+                sum += count;
+            }
+        }
+
+        starts[mask + 1] = sum;
+
+        new ChunkAction(0, chunks, chunk -> {
+
+            int[] offsets = histograms[chunk];
+            int end = chunkStart(left, right, chunk + 1, chunks);
+
+            for (int i = chunkStart(left, right, chunk, chunks); i < end; i++) {
+                target[offsets[((source[i] ^ Integer.MIN_VALUE) >>> shift) & mask]++] = source[i];
+            }
+        }).invoke();
+
+        return starts;
+    }
+
+    /**
+     * Copies source[left, right) into target[left, right) in parallel.
+     * @param source array to read from
+     * @param target array to write to
+     * @param left minimum index (inclusive)
+     * @param right maximum index (exclusive)
+     * @param chunks number of chunks
+     */
+    private static void parallelCopy(int[] source, int[] target, int left, int right, int chunks) {
+
+        new ChunkAction(0, chunks, chunk -> {
+
+            int start = chunkStart(left, right, chunk, chunks);
+            System.arraycopy(source, start, target, start, chunkStart(left, right, chunk + 1, chunks) - start);
+        }).invoke();
+    }
+
+    /**
+     * Fork/join task that runs body once for every chunk index in [left, right).
+     */
+    private static class ChunkAction extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        private final int left;
+        private final int right;
+        private final IntConsumer body;
+
+        /**
+         * Creates a task for a range of chunk indices.
+         * @param left first chunk index (inclusive)
+         * @param right last chunk index (exclusive)
+         * @param body work to do for a single chunk
+         */
+        ChunkAction(int left, int right, IntConsumer body) {
+
+            this.left = left;
+            this.right = right;
+            this.body = body;
+        }
+
+        @Override
+        protected void compute() {
+
+            if (right - left == 1) {
+                body.accept(left);
+                return;
+            }
+
+            int middle = left + (right - left) / 2;
+            invokeAll(new ChunkAction(left, middle, body), new ChunkAction(middle, right, body));
+        }
+    }
+
+    /**
+     * Implement heap sort.
+     * <p>
+     * It should be:
+     * out-of-place
+     * unstable
+     * not adaptive
+     * <p>
+     * Have a worst case running time of:
+     * O(n log n)
+     * <p>
+     * And a best case running time of:
+     * O(n log n)
+     * <p>
+     * Use java.util.PriorityQueue as the heap. Note that in this
+     * PriorityQueue implementation, elements are removed from smallest
+     * element to largest element.
+     * <p>
+     * Initialize the PriorityQueue using its build heap constructor (look at
+     * the different constructors of java.util.PriorityQueue).
+     * <p>
+     * Return an int array with a capacity equal to the size of the list. The
+     * returned array should have the elements in the list in sorted order.
+     *
+     * @param data the data to sort
+     * @return the array with length equal to the size of the input list that
+     * holds the elements from the list is sorted order
+     * @throws java.lang.IllegalArgumentException if the data is null
+     */
+    public static int[] heapSort(List<Integer> data) {
+
+        if (data == null) {
+            throw new IllegalArgumentException("the data is null");
+        }
+
+        long start = HEAP_SORT.start();
+        PriorityQueue<Integer> queue = new PriorityQueue<Integer>(data);
+
+        int[] list = new int[data.size()];
+        HEAP_SORT.allocations(2);
+
+        for (int i = 0; i < data.size(); i++) {
+
+            list[i] = queue.remove();
+        }
+
+        HEAP_SORT.stop(start);
+        return list;
+    }
+
+    /**
+     * In-place binary heap sort over int[].
+     *
+     * @param arr the array to be sorted
+     * @throws java.lang.IllegalArgumentException if the array is null
+     * @see #heapSort(int[], int)
+     */
+    public static void heapSort(int[] arr) {
+
+        heapSort(arr, 2);
+    }
+
+    /**
+     * In-place d-ary heap sort over int[].
+     * <p>
+     * It should be:
+     * in-place
+     * unstable
+     * not adaptive
+     * <p>
+     * Have a worst case running time of:
+     * O(n log n)
+     * <p>
+     * And a best case running time of:
+     * O(n log n)
+     * <p>
+     * A max heap is built over the array itself and the largest element is
+     * repeatedly swapped to the back. Sifting down is done bottom-up (Floyd):
+     * the hole walks down to a leaf along the largest children without
+     * comparing against the element being placed, and the element is then
+     * moved back up, which is usually only a step or two. An arity above 2
+     * makes the heap shallower and keeps each node's children next to each
+     * other in memory, at the cost of more comparisons per level; 4 is a good
+     * choice for large arrays. There is no upper limit on the arity: one of
+     * length - 1 or more makes every element a child of the root, which is
+     * correct but degrades to a quadratic selection sort.
+     *
+     * @param arr   the array to be sorted
+     * @param arity the number of children per heap node, at least 2
+     * @throws java.lang.IllegalArgumentException if the array is null or the
+     *                                            arity is less than 2
+     */
+    public static void heapSort(int[] arr, int arity) {
+
+        if (arr == null) {
+            throw new IllegalArgumentException("The array is null");
+        }
+
+        checkArity(arity);
+
+        long start = HEAP_SORT.start();
+        heapSort(arr, 0, arr.length, arity);
+        HEAP_SORT.stop(start);
+    }
+
+    /**
+     * In-place binary heap sort over long[].
+     *
+     * @param arr the array to be sorted
+     * @throws java.lang.IllegalArgumentException if the array is null
+     * @see #heapSort(int[], int)
+     */
+    public static void heapSort(long[] arr) {
+
+        heapSort(arr, 2);
+    }
+
+    /**
+     * In-place d-ary heap sort over long[]. Same as heapSort(int[], int).
+     *
+     * @param arr   the array to be sorted
+     * @param arity the number of children per heap node, at least 2
+     * @throws java.lang.IllegalArgumentException if the array is null or the
+     *                                            arity is less than 2
+     */
+    public static void heapSort(long[] arr, int arity) {
+
+        if (arr == null) {
+            throw new IllegalArgumentException("The array is null");
+        }
+
+        checkArity(arity);
+
+        long start = HEAP_SORT.start();
+        heapSort(arr, 0, arr.length, arity);
+        HEAP_SORT.stop(start);
+    }
+
+    /**
+     * In-place binary heap sort over T[].
+     *
+     * @param <T>        data type to sort
+     * @param arr        the array to be sorted
+     * @param comparator the Comparator used to compare the data in arr
+     * @throws java.lang.IllegalArgumentException if the array or comparator is
+     *                                            null
+     * @see #heapSort(int[], int)
+     */
+    public static <T> void heapSort(T[] arr, Comparator<T> comparator) {
+
+        heapSort(arr, comparator, 2);
+    }
+
+    /**
+     * In-place d-ary heap sort over T[]. Same as heapSort(int[], int).
+     *
+     * @param <T>        data type to sort
+     * @param arr        the array to be sorted
+     * @param comparator the Comparator used to compare the data in arr
+     * @param arity      the number of children per heap node, at least 2
+     * @throws java.lang.IllegalArgumentException if the array or comparator is
+     *                                            null or the arity is less
+     *                                            than 2
+     */
+    public static <T> void heapSort(T[] arr, Comparator<T> comparator, int arity) {
+
+        if (arr == null || comparator == null) {
+            throw new IllegalArgumentException("The array or comparator is null");
+        }
+
+        checkArity(arity);
+
+        long start = HEAP_SORT.start();
+        heapSort(arr, 0, arr.length, HEAP_SORT.counting(comparator), arity);
+        HEAP_SORT.stop(start);
+    }
+
+    /**
+     * Checks that a heap arity is usable. Any arity from 2 up to
+     * Integer.MAX_VALUE is accepted; siftDown never computes a child index
+     * past the end of the heap, so large arities cannot overflow.
+     * @param arity the number of children per heap node
+     */
+    private static void checkArity(int arity) {
+
+        if (arity < 2) {
+            throw new IllegalArgumentException("The arity must be at least 2");
+        }
+    }
+
+    /**
+     * Heap sort over arr[left, right).
+     * @param arr array to be sorted
+     * @param left minimum index (inclusive)
+     * @param right maximum index (exclusive)
+     * @param arity number of children per heap node
+     */
+    private static void heapSort(int[] arr, int left, int right, int arity) {
+
+        int length = right - left;
+
+        for (int i = (length - 2) / arity; i >= 0 && length > 1; i--) {
+            siftDown(arr, left, i, length, arity, arr[left + i]);
+        }
+
+        for (int end = length - 1; end > 0; end--) {
+
+            int last = arr[left + end];
+            arr[left + end] = arr[left];
+            siftDown(arr, left, 0, end, arity, last);
+        }
+    }
+
+    /**
+     * Bottom-up sift down that places element into the heap rooted at root.
+     * @param arr array holding the heap
+     * @param left index of the heap's first slot
+     * @param root heap index of the hole to fill
+     * @param length number of elements in the heap
+     * @param arity number of children per heap node
+     * @param element element to place
+     */
+    private static void siftDown(int[] arr, int left, int root, int length, int arity, int element) {
+
+        int hole = root;
+        // Last heap index with a child; stopping there keeps hole * arity + 1
+        // inside length, so the child math cannot overflow for any arity.
+        int lastParent = length < 2 ? -1 : (length - 2) / arity;
+
+        while (hole <= lastParent) {
+
+            int child = hole * arity + 1;
+            int best = child;
+            int end = child + Math.min(arity, length - child);
+
+            for (int i = child + 1; i < end; i++) {
+
+                if (arr[left + i] > arr[left + best]) {
+                    best = i;
+                }
+            }
+
+            arr[left + hole] = arr[left + best];
+            hole = best;
+        }
+
+        while (hole > root) {
+
+            int parent = (hole - 1) / arity;
+
+            if (arr[left + parent] >= element) {
+                break;
+            }
+
+            arr[left + hole] = arr[left + parent];
+            hole = parent;
+        }
+
+        arr[left + hole] = element;
+    }
+
+    /**
+     * Heap sort over arr[left, right).
+     * @param arr array to be sorted
+     * @param left minimum index (inclusive)
+     * @param right maximum index (exclusive)
+     * @param arity number of children per heap node
+     */
+    private static void heapSort(long[] arr, int left, int right, int arity) {
+
+        int length = right - left;
+
+        for (int i = (length - 2) / arity; i >= 0 && length > 1; i--) {
+            siftDown(arr, left, i, length, arity, arr[left + i]);
+        }
+
+        for (int end = length - 1; end > 0; end--) {
+
+            long last = arr[left + end];
+            arr[left + end] = arr[left];
+            siftDown(arr, left, 0, end, arity, last);
+        }
+    }
+
+    /**
+     * Bottom-up sift down that places element into the heap rooted at root.
+     * @param arr array holding the heap
+     * @param left index of the heap's first slot
+     * @param root heap index of the hole to fill
+     * @param length number of elements in the heap
+     * @param arity number of children per heap node
+     * @param element element to place
+     */
+    private static void siftDown(long[] arr, int left, int root, int length, int arity, long element) {
+
+        int hole = root;
+        // Last heap index with a child; stopping there keeps hole * arity + 1
+        // inside length, so the child math cannot overflow for any arity.
+        int lastParent = length < 2 ? -1 : (length - 2) / arity;
+
+        while (hole <= lastParent) {
+
+            int child = hole * arity + 1;
+            int best = child;
+            int end = child + Math.min(arity, length - child);
+
+            for (int i = child + 1; i < end; i++) {
+
+                if (arr[left + i] > arr[left + best]) {
+                    best = i;
+                }
+            }
+
+            arr[left + hole] = arr[left + best];
+            hole = best;
+        }
+
+        while (hole > root) {
+
+            int parent = (hole - 1) / arity;
+
+            if (arr[left + parent] >= element) {
+                break;
+            }
+
+            arr[left + hole] = arr[left + parent];
+            hole = parent;
+        }
+
+        arr[left + hole] = element;
+    }
+
+    /**
+     * Heap sort over arr[left, right).
+     * @param arr array to be sorted
+     * @param left minimum index (inclusive)
+     * @param right maximum index (exclusive)
+     * @param comparator comparator defining comparison behaviour
+     * @param arity number of children per heap node
+     * @param <T> data type to be sorted
+     */
+    private static <T> void heapSort(T[] arr, int left, int right, Comparator<T> comparator, int arity) {
+
+        int length = right - left;
+
+        for (int i = (length - 2) / arity; i >= 0 && length > 1; i--) {
+            siftDown(arr, left, i, length, comparator, arity, arr[left + i]);
+        }
+
+        for (int end = length - 1; end > 0; end--) {
+
+            T last = arr[left + end];
+            arr[left + end] = arr[left];
+            siftDown(arr, left, 0, end, comparator, arity, last);
+        }
+    }
+
+    /**
+     * Bottom-up sift down that places element into the heap rooted at root.
+     * @param arr array holding the heap
+     * @param left index of the heap's first slot
+     * @param root heap index of the hole to fill
+     * @param length number of elements in the heap
+     * @param comparator comparator defining comparison behaviour
+     * @param arity number of children per heap node
+     * @param element element to place
+     * @param <T> data type of the heap
+     */
+    private static <T> void siftDown(T[] arr, int left, int root, int length, Comparator<T> comparator,
+                                     int arity, T element) {
+
+        int hole = root;
+        // Last heap index with a child; stopping there keeps hole * arity + 1
+        // inside length, so the child math cannot overflow for any arity.
+        int lastParent = length < 2 ? -1 : (length - 2) / arity;
+
+        while (hole <= lastParent) {
+
+            int child = hole * arity + 1;
+            int best = child;
+            int end = child + Math.min(arity, length - child);
+
+            for (int i = child + 1; i < end; i++) {
+
+                if (comparator.compare(arr[left + i], arr[left + best]) > 0) {
+                    best = i;
+                }
+            }
+
+            arr[left + hole] = arr[left + best];
+            hole = best;
+        }
+
+        while (hole > root) {
+
+            int parent = (hole - 1) / arity;
+
+            if (comparator.compare(arr[left + parent], element) >= 0) {
+                break;
+            }
+
+            arr[left + hole] = arr[left + parent];
+            hole = parent;
+        }
+
+        arr[left + hole] = element;
+    }
+
+    /**
+     * Implement kth select.
+     * <p>
+     * Use the provided random object to select your pivots. For example if you
+     * need a pivot between a (inclusive) and b (exclusive) where b > a, use
+     * the following code:
+     * <p>
+     * int pivotIndex = rand.nextInt(b - a) + a;
+     * <p>
+     * If your recursion uses an inclusive b instead of an exclusive one,
+     * the formula changes by adding 1 to the nextInt() call:
+     * <p>
+     * int pivotIndex = rand.nextInt(b - a + 1) + a;
+     * <p>
+     * It should be:
+     * in-place
+     * <p>
+     * Have a worst case running time of:
+     * O(n^2)
+     * <p>
+     * And a best case running time of:
+     * O(n)
+     * <p>
+     * You may assume that the array doesn't contain any null elements.
+     * <p>
+     * Make sure you code the algorithm as you have been taught it in class.
+     * There are several versions of this algorithm and you may not get full
+     * credit if you do not implement the one we have taught you!
+     *
+     * @param <T>        data type to sort
+     * @param k          the index to retrieve data from + 1 (due to
+     *                   0-indexing) if the array was sorted; the 'k' in "kth
+     *                   select"; e.g. if k == 1, return the smallest element
+     *                   in the array
+     * @param arr        the array that should be modified after the method
+     *                   is finished executing as needed
+     * @param comparator the Comparator used to compare the data in arr
+     * @param rand       the Random object used to select pivots
+     * @return the kth smallest element
+     * @throws java.lang.IllegalArgumentException if the array or comparator
+     *                                            or rand is null or k is not
+     *                                            in the range of 1 to arr
+     *                                            .length
+     */
+    public static <T> T kthSelect(int k, T[] arr, Comparator<T> comparator,
+                                  Random rand) {
+
+        if (arr == null || comparator == null || rand == null || k < 1 || k > arr.length) {
+
+            throw new IllegalArgumentException("The array or comparator is null or k is not in the acceptable range");
+        }
+
+        long start = KTH_SELECT.start();
+        T result = rKthSelect(k, arr, 0, arr.length, KTH_SELECT.counting(comparator), rand);
+        KTH_SELECT.stop(start);
+
+        return result;
+    }
+
+
+    /**
+     * Recursive Kth Select method that takes in more parameters when recursively calling itself.
+     * @param k Kth smallest index
+     * @param arr The array in which the kth smallest index would be found
+     * @param left The minimum index of the array to be searched
+     * @param right The maximum index of the array to be searched
+     * @param comparator defines comparing behaviour and keep count
+     * @param rand object for random generation
+     * @param <T> The data type to be used
+     * @return returns the kth smallest type
+     */
+    public static <T> T rKthSelect(int k, T[] arr, int left, int right, Comparator<T> comparator,
+                                   Random rand) {
+
+        int pivotIndex = rand.nextInt(right - left) + left;
+
+        T temp1 = arr[pivotIndex];
+        arr[pivotIndex] = arr[left];
+        arr[left] = temp1;
+
+        int leftIndex = left + 1;
+        int rightIndex = right - 1;
+
+        while (leftIndex <= rightIndex) {
+
+            while (leftIndex <= rightIndex && comparator.compare(arr[leftIndex], temp1) <= 0) {
+                leftIndex++;
+            }
+
+            while (leftIndex <= rightIndex && comparator.compare(arr[rightIndex], temp1) >= 0) {
+                rightIndex--;
+            }
+
+            if (leftIndex <= rightIndex) {
+
+                T temp2 = arr[leftIndex];
+                arr[leftIndex] = arr[rightIndex];
+                arr[rightIndex] = temp2;
+
+                leftIndex++;
+                rightIndex--;
+
+            }
+        }
 
         arr[left] = arr[rightIndex];
         arr[rightIndex] = temp1;
@@ -467,16 +2600,237 @@ public class Sorting {
     }
 
     /**
-     * Non-essential implementation of the quicksort method
+     * Kth select without a Random, using introselect.
+     * <p>
+     * It should be:
+     * in-place
+     * <p>
+     * Have a worst case running time of:
+     * O(n)
+     * <p>
+     * And a best case running time of:
+     * O(n)
+     *
+     * @param <T>        data type to sort
+     * @param k          the 'k' in "kth select"; e.g. if k == 1, return the
+     *                   smallest element in the array
+     * @param arr        the array that should be modified after the method
+     *                   is finished executing as needed
+     * @param comparator the Comparator used to compare the data in arr
+     * @return the kth smallest element
+     * @throws java.lang.IllegalArgumentException if the array or comparator
+     *                                            is null or k is not in the
+     *                                            range of 1 to arr.length
+     * @see #multiSelect(int[], Object[], Comparator)
+     */
+    public static <T> T kthSelect(int k, T[] arr, Comparator<T> comparator) {
+
+        return multiSelect(new int[] {k}, arr, comparator).get(0);
+    }
+
+    /**
+     * Selects several order statistics of the same array in one pass.
+     * <p>
+     * It should be:
+     * in-place
+     * <p>
+     * Have a worst case running time of:
+     * O(n log m) for m distinct ranks
+     * <p>
+     * And a best case running time of:
+     * O(n)
+     * <p>
+     * Each partition only recurses into the sides that still contain a
+     * requested rank, so asking for p50, p90 and p99 together costs little
+     * more than asking for one of them. Pivots are picked the same way as in
+     * sort, but once 2 log n partitions have been spent the pivot is taken by
+     * median of medians instead, which keeps the worst case linear per rank.
+     * <p>
+     * When the method returns, arr[k - 1] holds the kth smallest element for
+     * every requested k, and everything before it is no greater.
+     *
+     * @param <T>        data type to sort
+     * @param ks         the ranks to select, 1-indexed as in kthSelect, in
+     *                   any order and possibly repeated
+     * @param arr        the array that should be modified after the method
+     *                   is finished executing as needed
+     * @param comparator the Comparator used to compare the data in arr
+     * @return the selected elements, in the same order as ks
+     * @throws java.lang.IllegalArgumentException if ks, the array or the
+     *                                            comparator is null, or any
+     *                                            k is not in the range of 1
+     *                                            to arr.length
+     */
+    public static <T> List<T> multiSelect(int[] ks, T[] arr, Comparator<T> comparator) {
+
+        if (ks == null || arr == null || comparator == null) {
+            throw new IllegalArgumentException("The ranks, array or comparator is null");
+        }
+
+        int[] ranks = new int[ks.length];
+
+        for (int i = 0; i < ks.length; i++) {
+
+            if (ks[i] < 1 || ks[i] > arr.length) {
+                throw new IllegalArgumentException("k is not in the acceptable range");
+            }
+
+            ranks[i] = ks[i] - 1;
+        }
+
+        long start = MULTI_SELECT.start();
+
+        Arrays.sort(ranks);
+        introSelect(arr, 0, arr.length, ranks, MULTI_SELECT.counting(comparator));
+
+        List<T> list = new ArrayList<T>(ks.length);
+
+        for (int k : ks) {
+            list.add(arr[k - 1]);
+        }
+
+        MULTI_SELECT.stop(start);
+        return list;
+    }
+
+    /**
+     * Introselects every rank in ranks within arr[left, right).
+     * @param arr array to select from
+     * @param left minimum index (inclusive)
+     * @param right maximum index (exclusive)
+     * @param ranks sorted absolute indices to put in place
+     * @param comparator comparator defining comparison behaviour
+     * @param <T> data type to be selected
+     */
+    static <T> void introSelect(T[] arr, int left, int right, int[] ranks, Comparator<T> comparator) {
+
+        int length = right - left;
+
+        if (length < 2 || ranks.length == 0) {
+            return;
+        }
+
+        rMultiSelect(arr, left, right, ranks, 0, ranks.length, comparator,
+                2 * (31 - Integer.numberOfLeadingZeros(length)));
+    }
+
+    /**
+     * Helper method that puts ranks[rankLeft, rankRight) in place within
+     * arr[left, right).
+     * @param arr array to select from
+     * @param left minimum index (inclusive)
+     * @param right maximum index (exclusive)
+     * @param ranks sorted absolute indices to put in place
+     * @param rankLeft first rank still to place (inclusive)
+     * @param rankRight last rank still to place (exclusive)
+     * @param comparator comparator defining comparison behaviour
+     * @param depth partitions left before falling back to median of medians
+     * @param <T> data type to be selected
+     */
+    private static <T> void rMultiSelect(T[] arr, int left, int right, int[] ranks, int rankLeft, int rankRight,
+                                         Comparator<T> comparator, int depth) {
+
+        while (rankLeft < rankRight) {
+
+            if (right - left <= INSERTION_SORT_THRESHOLD) {
+                insertionSort(arr, left, right, comparator);
+                return;
+            }
+
+            int pivotIndex;
+
+            if (depth > 0) {
+                depth--;
+                pivotIndex = choosePivot(arr, left, right, comparator);
+
+            } else {
+                pivotIndex = medianOfMedians(arr, left, right, comparator);
+            }
+
+            T pivot = arr[pivotIndex];
+
+            int less = left;
+            int index = left;
+            int greater = right;
+
+            while (index < greater) {
+
+                int compare = comparator.compare(arr[index], pivot);
+
+                if (compare < 0) {
+                    swap(arr, less++, index++);
+
+                } else if (compare > 0) {
+                    swap(arr, index, --greater);
+
+                } else {
+                    index++;
+                }
+            }
+
+            int lessRanks = rankLeft;
+
+            while (lessRanks < rankRight && ranks[lessRanks] < less) {
+                lessRanks++;
+            }
+
+            int greaterRanks = lessRanks;
+
+            while (greaterRanks < rankRight && ranks[greaterRanks] < greater) {
+                greaterRanks++;
+            }
+
+            rMultiSelect(arr, left, less, ranks, rankLeft, lessRanks, comparator, depth);
+
+            left = greater;
+            rankLeft = greaterRanks;
+        }
+    }
+
+    /**
+     * Finds a pivot for arr[left, right) by median of medians of five. The
+     * group medians are gathered at the front of the range.
+     * @param arr array to select from
+     * @param left minimum index (inclusive)
+     * @param right maximum index (exclusive)
+     * @param comparator comparator defining comparison behaviour
+     * @param <T> data type to be selected
+     * @return index of the pivot
+     */
+    private static <T> int medianOfMedians(T[] arr, int left, int right, Comparator<T> comparator) {
+
+        int store = left;
+
+        for (int i = left; i < right; i += 5) {
+
+            int end = Math.min(i + 5, right);
+            insertionSort(arr, i, end, comparator);
+            swap(arr, i + (end - i - 1) / 2, store++);
+        }
+
+        int middle = left + (store - left - 1) / 2;
+        rMultiSelect(arr, left, store, new int[] {middle}, 0, 1, comparator, 0);
+
+        return middle;
+    }
+
+    /**
+     * Non-essential implementation of the quicksort method. Prefer sort,
+     * which does not recurse on both sides and cannot go quadratic.
      * @param arr array to be sorted
      * @param left minimum index
      * @param right maximum index
      * @param comparator comparator defining comparison behaviour and comparison count
      * @param rand random number generation
      * @param <T> data type to be sorted
+     * @see #sort(Object[], int, int, Comparator)
      */
     public static <T> void quickSort(T[] arr, int left, int right, Comparator<T> comparator, Random rand) {
 
+        if (right - left < 2) {
+            return;
+        }
+
         int pivotIndex = rand.nextInt(right - left) + left;
 
         T temp1 = arr[pivotIndex];
@@ -514,7 +2868,203 @@ public class Sorting {
         quickSort(arr, rightIndex + 1, right, comparator, rand);
 
     }
-}
 
+    /**
+     * Introsort over the whole array.
+     *
+     * @param <T>        data type to sort
+     * @param arr        the array to be sorted
+     * @param comparator the Comparator used to compare the data in arr
+     * @throws java.lang.IllegalArgumentException if the array or comparator is
+     *                                            null
+     * @see #sort(Object[], int, int, Comparator)
+     */
+    public static <T> void sort(T[] arr, Comparator<T> comparator) {
+
+        if (arr == null) {
+            throw new IllegalArgumentException("The array is null");
+        }
+
+        sort(arr, 0, arr.length, comparator);
+    }
+
+    /**
+     * Introsort over arr[fromIndex, toIndex).
+     * <p>
+     * It should be:
+     * in-place
+     * unstable
+     * not adaptive
+     * <p>
+     * Have a worst case running time of:
+     * O(n log n)
+     * <p>
+     * And a best case running time of:
+     * O(n)
+     * <p>
+     * The pivot is the median of three elements, or Tukey's ninther (median
+     * of three medians of three) once the range is over NINTHER_THRESHOLD
+     * long, so no Random is needed. Partitioning is three-way (Dutch flag), so
+     * every key equal to the pivot is put in its final place at once and an
+     * array of all duplicates finishes in a single pass. Ranges at or below
+     * INSERTION_SORT_THRESHOLD are finished with insertion sort. Only the
+     * smaller side is recursed into, which keeps the stack at O(log n), and
+     * once 2 log n partitions have been spent on a range it is heap sorted
+     * instead, which keeps the worst case at O(n log n) on adversarial input.
+     *
+     * @param <T>        data type to sort
+     * @param arr        the array to be sorted
+     * @param fromIndex  the first index to sort (inclusive)
+     * @param toIndex    the last index to sort (exclusive)
+     * @param comparator the Comparator used to compare the data in arr
+     * @throws java.lang.IllegalArgumentException if the array or comparator is
+     *                                            null, or the range is not
+     *                                            within the array
+     */
+    public static <T> void sort(T[] arr, int fromIndex, int toIndex, Comparator<T> comparator) {
+
+        if (arr == null || comparator == null) {
+            throw new IllegalArgumentException("The array or comparator is null");
+        }
+
+        if (fromIndex < 0 || toIndex > arr.length || fromIndex > toIndex) {
+            throw new IllegalArgumentException("The range is not within the array");
+        }
+
+        int length = toIndex - fromIndex;
+
+        if (length < 2) {
+            return;
+        }
+
+        long start = SORT.start();
+        introSort(arr, fromIndex, toIndex, SORT.counting(comparator),
+                2 * (31 - Integer.numberOfLeadingZeros(length)));
+        SORT.stop(start);
+    }
+
+    /**
+     * Helper method that introsorts arr[left, right).
+     * @param arr array to be sorted
+     * @param left minimum index (inclusive)
+     * @param right maximum index (exclusive)
+     * @param comparator comparator defining comparison behaviour
+     * @param depth partitions left before falling back to heap sort
+     * @param <T> data type to be sorted
+     */
+    private static <T> void introSort(T[] arr, int left, int right, Comparator<T> comparator, int depth) {
+
+        while (right - left > INSERTION_SORT_THRESHOLD) {
+
+            if (depth == 0) {
+                heapSort(arr, left, right, comparator, 2);
+                return;
+            }
+
+            depth--;
+
+            T pivot = arr[choosePivot(arr, left, right, comparator)];
+
+            int less = left;
+            int index = left;
+            int greater = right;
+
+            while (index < greater) {
+
+                int compare = comparator.compare(arr[index], pivot);
+
+                if (compare < 0) {
+                    swap(arr, less++, index++);
+
+                } else if (compare > 0) {
+                    swap(arr, index, --greater);
+
+                } else {
+                    index++;
+                }
+            }
+
+            if (less - left < right - greater) {
+                introSort(arr, left, less, comparator, depth);
+                left = greater;
+
+            } else {
+                introSort(arr, greater, right, comparator, depth);
+                right = less;
+            }
+        }
+
+        insertionSort(arr, left, right, comparator);
+    }
+
+    /**
+     * Picks a pivot index for arr[left, right) by median of three, or by
+     * ninther for long ranges.
+     * @param arr array being sorted
+     * @param left minimum index (inclusive)
+     * @param right maximum index (exclusive)
+     * @param comparator comparator defining comparison behaviour
+     * @param <T> data type to be sorted
+     * @return index of the pivot
+     */
+    private static <T> int choosePivot(T[] arr, int left, int right, Comparator<T> comparator) {
+
+        int length = right - left;
+        int middle = left + length / 2;
+        int last = right - 1;
+
+        if (length <= NINTHER_THRESHOLD) {
+            return medianOfThree(arr, left, middle, last, comparator);
+        }
+
+        int step = length / 8;
+
+        return medianOfThree(arr,
+                medianOfThree(arr, left, left + step, left + 2 * step, comparator),
+                medianOfThree(arr, middle - step, middle, middle + step, comparator),
+                medianOfThree(arr, last - 2 * step, last - step, last, comparator),
+                comparator);
+    }
+
+    /**
+     * Returns whichever of the three indices holds the median value.
+     * @param arr array being sorted
+     * @param a first index
+     * @param b second index
+     * @param c third index
+     * @param comparator comparator defining comparison behaviour
+     * @param <T> data type to be sorted
+     * @return index of the median
+     */
+    private static <T> int medianOfThree(T[] arr, int a, int b, int c, Comparator<T> comparator) {
+
+        if (comparator.compare(arr[a], arr[b]) < 0) {
+
+            if (comparator.compare(arr[b], arr[c]) < 0) {
+                return b;
+            }
+
+            return comparator.compare(arr[a], arr[c]) < 0 ? c : a;
+        }
 
+        if (comparator.compare(arr[a], arr[c]) < 0) {
+            return a;
+        }
+
+        return comparator.compare(arr[b], arr[c]) < 0 ? c : b;
+    }
+
+    /**
+     * Swaps two elements of the array.
+     * @param arr array holding the elements
+     * @param i first index
+     * @param j second index
+     * @param <T> data type of the array
+     */
+    private static <T> void swap(T[] arr, int i, int j) {
 
+        T temp = arr[i];
+        arr[i] = arr[j];
+        arr[j] = temp;
+    }
+}
@@ -0,0 +1,221 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Collector;
+
+/**
+ * Bounded collector that keeps the k smallest elements it has been given,
+ * according to a comparator. Use largest (or a reversed comparator) for the
+ * k largest.
+ * <p>
+ * Elements are appended to a buffer of 2k slots. When it fills up, the k
+ * smallest are kept by an introselect over the buffer and the rest are
+ * dropped, so each element costs O(1) amortized and the whole stream O(n),
+ * without ever holding more than 2k elements. Once the buffer has been
+ * trimmed, the largest element kept becomes a threshold and anything
+ * greater than it is rejected with a single comparison.
+ *
+ * @author Nicholas Watney Meyer
+ * @version 1.0
+ * @param <T> the type of data kept
+ */
+public class TopK<T> {
+
+    private final int k;
+    private final Comparator<T> comparator;
+    private final T[] buffer;
+    private int size;
+    private T threshold;
+
+    /**
+     * Constructs a collector that keeps the k smallest elements.
+     *
+     * @param k          the number of elements to keep
+     * @param comparator the Comparator used to order the elements
+     * @throws java.lang.IllegalArgumentException if k is less than 1 or the
+     *                                            comparator is null
+     */
+    public TopK(int k, Comparator<T> comparator) {
+
+        if (k < 1 || comparator == null) {
+            throw new IllegalArgumentException("k is less than 1 or the comparator is null.");
+        }
+
+        this.k = k;
+        this.comparator = comparator;
+        this.buffer = (T[]) new Object[2 * k];
+    }
+
+    /**
+     * Creates a collector that keeps the k smallest elements.
+     *
+     * @param <T>        the type of data kept
+     * @param k          the number of elements to keep
+     * @param comparator the Comparator used to order the elements
+     * @return the new collector
+     * @throws java.lang.IllegalArgumentException if k is less than 1 or the
+     *                                            comparator is null
+     */
+    public static <T> TopK<T> smallest(int k, Comparator<T> comparator) {
+
+        return new TopK<T>(k, comparator);
+    }
+
+    /**
+     * Creates a collector that keeps the k largest elements.
+     *
+     * @param <T>        the type of data kept
+     * @param k          the number of elements to keep
+     * @param comparator the Comparator used to order the elements
+     * @return the new collector
+     * @throws java.lang.IllegalArgumentException if k is less than 1 or the
+     *                                            comparator is null
+     */
+    public static <T> TopK<T> largest(int k, Comparator<T> comparator) {
+
+        if (comparator == null) {
+            throw new IllegalArgumentException("The comparator is null.");
+        }
+
+        return new TopK<T>(k, comparator.reversed());
+    }
+
+    /**
+     * Stream collector that returns the k smallest elements, smallest first.
+     *
+     * @param <T>        the type of data kept
+     * @param k          the number of elements to keep
+     * @param comparator the Comparator used to order the elements
+     * @return the stream collector
+     * @throws java.lang.IllegalArgumentException if k is less than 1 or the
+     *                                            comparator is null
+     */
+    public static <T> Collector<T, TopK<T>, List<T>> toSmallest(int k, Comparator<T> comparator) {
+
+        if (k < 1 || comparator == null) {
+            throw new IllegalArgumentException("k is less than 1 or the comparator is null.");
+        }
+
+        return Collector.of(() -> smallest(k, comparator), TopK::add,
+            (left, right) -> {
+                left.addAll(right);
+                return left;
+            }, TopK::toList);
+    }
+
+    /**
+     * Stream collector that returns the k largest elements, largest first.
+     *
+     * @param <T>        the type of data kept
+     * @param k          the number of elements to keep
+     * @param comparator the Comparator used to order the elements
+     * @return the stream collector
+     * @throws java.lang.IllegalArgumentException if k is less than 1 or the
+     *                                            comparator is null
+     */
+    public static <T> Collector<T, TopK<T>, List<T>> toLargest(int k, Comparator<T> comparator) {
+
+        if (k < 1 || comparator == null) {
+            throw new IllegalArgumentException("k is less than 1 or the comparator is null.");
+        }
+
+        return Collector.of(() -> largest(k, comparator), TopK::add,
+            (left, right) -> {
+                left.addAll(right);
+                return left;
+            }, TopK::toList);
+    }
+
+    /**
+     * Offers an element to the collector.
+     *
+     * @param data the element to offer
+     * @throws java.lang.IllegalArgumentException if data is null
+     */
+    public void add(T data) {
+
+        if (data == null) {
+            throw new IllegalArgumentException("The data is null.");
+        }
+
+        if (threshold != null && comparator.compare(data, threshold) >= 0) {
+            return;
+        }
+
+        if (size == buffer.length) {
+            trim();
+
+            if (comparator.compare(data, threshold) >= 0) {
+                return;
+            }
+        }
+
+        buffer[size++] = data;
+    }
+
+    /**
+     * Offers every element kept by another collector to this one, e.g. to
+     * combine collectors that each saw one partition of the data.
+     *
+     * @param other the collector to take elements from
+     * @throws java.lang.IllegalArgumentException if other is null
+     */
+    public void addAll(TopK<T> other) {
+
+        if (other == null) {
+            throw new IllegalArgumentException("The other collector is null.");
+        }
+
+        for (int i = 0; i < other.size; i++) {
+            add(other.buffer[i]);
+        }
+    }
+
+    /**
+     * Returns the number of elements that would be returned by toList.
+     *
+     * @return the number of elements kept, at most k
+     */
+    public int size() {
+
+        return Math.min(size, k);
+    }
+
+    /**
+     * Returns the elements kept, in comparator order.
+     *
+     * @return a new list holding up to k elements
+     */
+    public List<T> toList() {
+
+        if (size > k) {
+            trim();
+        }
+
+        T[] sorted = Arrays.copyOf(buffer, size);
+        Sorting.sort(sorted, comparator);
+
+        List<T> list = new ArrayList<T>(size);
+        Collections.addAll(list, sorted);
+
+        return list;
+    }
+
+    /**
+     * Keeps only the k smallest elements of the buffer and records the
+     * largest of them as the threshold.
+     */
+    private void trim() {
+
+        Sorting.introSelect(buffer, 0, size, new int[] {k - 1}, comparator);
+
+        for (int i = k; i < size; i++) {
+            buffer[i] = null;
+        }
+
+        size = k;
+        threshold = buffer[k - 1];
+    }
+}
@@ -0,0 +1,301 @@
+import bench.IntSet;
+import bench.Sorter;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * The classes under test, wrapped for the benchmarks in the bench package.
+ * <p>
+ * This class is in the default package so it can use the classes in the
+ * repository root, which the bench package cannot import. Every factory
+ * takes the name a benchmark's @Param gives and returns a target behind an
+ * interface from the bench package.
+ *
+ * @author Nicholas Watney Meyer
+ * @version 1.0
+ */
+public final class BenchmarkTargets {
+
+    /**
+     * Not instantiable.
+     */
+    private BenchmarkTargets() {
+    }
+
+    /**
+     * Returns an Object[] sort.
+     *
+     * @param name insertionSort, bubbleSort, mergeSort, parallelMergeSort,
+     *             timSort, quickSort, sort, heapSort, kthSelect, multiSelect
+     *             or Arrays.sort
+     * @return the sort
+     * @throws java.lang.IllegalArgumentException if the name is unknown
+     */
+    public static Sorter<Object[]> objectSorter(String name) {
+
+        switch (name) {
+            case "insertionSort":
+                return Sorting::insertionSort;
+            case "bubbleSort":
+                return Sorting::bubbleSort;
+            case "mergeSort":
+                return Sorting::mergeSort;
+            case "parallelMergeSort":
+                return Sorting::parallelMergeSort;
+            case "timSort":
+                return Sorting::timSort;
+            case "quickSort":
+                return (arr, comparator) -> Sorting.quickSort(arr, 0, arr.length, comparator, new Random(1));
+            case "sort":
+                return Sorting::sort;
+            case "heapSort":
+                return Sorting::heapSort;
+            case "kthSelect":
+                return (arr, comparator) -> Sorting.kthSelect(arr.length / 2 + 1, arr, comparator, new Random(1));
+            case "multiSelect":
+                return (arr, comparator) -> {
+                    int n = arr.length;
+                    Sorting.multiSelect(new int[] {n / 2 + 1, n * 9 / 10 + 1, n * 99 / 100 + 1}, arr, comparator);
+                };
+            case "Arrays.sort":
+                return Arrays::sort;
+            default:
+                throw new IllegalArgumentException("Unknown sort: " + name);
+        }
+    }
+
+    /**
+     * Returns an int[] sort.
+     *
+     * @param name lsdRadixSort, lsdRadixSort8, lsdRadixSort16,
+     *             parallelRadixSort, heapSort, heapSort4, heapSortList or
+     *             Arrays.sort
+     * @return the sort, which ignores its comparator
+     * @throws java.lang.IllegalArgumentException if the name is unknown
+     */
+    public static Sorter<int[]> intSorter(String name) {
+
+        switch (name) {
+            case "lsdRadixSort":
+                return (arr, comparator) -> Sorting.lsdRadixSort(arr);
+            case "lsdRadixSort8":
+                return (arr, comparator) -> Sorting.lsdRadixSort(arr, 8);
+            case "lsdRadixSort16":
+                return (arr, comparator) -> Sorting.lsdRadixSort(arr, 16);
+            case "parallelRadixSort":
+                return (arr, comparator) -> Sorting.parallelRadixSort(arr);
+            case "heapSort":
+                return (arr, comparator) -> Sorting.heapSort(arr);
+            case "heapSort4":
+                return (arr, comparator) -> Sorting.heapSort(arr, 4);
+            case "heapSortList":
+                return (arr, comparator) -> {
+                    List<Integer> list = new ArrayList<Integer>(arr.length);
+
+                    for (int element : arr) {
+                        list.add(element);
+                    }
+
+                    Sorting.heapSort(list);
+                };
+            case "Arrays.sort":
+                return (arr, comparator) -> Arrays.sort(arr);
+            default:
+                throw new IllegalArgumentException("Unknown sort: " + name);
+        }
+    }
+
+    /**
+     * Returns a set of Integer keys.
+     *
+     * @param name concurrent for ConcurrentAVL, synchronized for AVL with
+     *             every call synchronized on one lock, readWriteLock for AVL
+     *             behind a read-write lock, mutable for a plain AVL, or
+     *             persistent for a PersistentAVL that replaces its current
+     *             version on every update; the last two are not thread-safe
+     * @return an empty set
+     * @throws java.lang.IllegalArgumentException if the name is unknown
+     */
+    public static IntSet intSet(String name) {
+
+        switch (name) {
+            case "concurrent":
+                return new Concurrent();
+            case "synchronized":
+                return new Synchronized();
+            case "readWriteLock":
+                return new ReadWriteLocked();
+            case "mutable":
+                return new Mutable();
+            case "persistent":
+                return new Persistent();
+            default:
+                throw new IllegalArgumentException("Unknown set: " + name);
+        }
+    }
+
+    /**
+     * ConcurrentAVL as is.
+     */
+    private static final class Concurrent implements IntSet {
+
+        private final ConcurrentAVL<Integer> set = new ConcurrentAVL<Integer>();
+
+        @Override
+        public boolean contains(Integer key) {
+
+            return set.contains(key);
+        }
+
+        @Override
+        public void add(Integer key) {
+
+            set.add(key);
+        }
+
+        @Override
+        public void remove(Integer key) {
+
+            set.remove(key);
+        }
+    }
+
+    /**
+     * The mutable AVL.
+     */
+    private static final class Mutable implements IntSet {
+
+        private final AVL<Integer> tree = new AVL<Integer>();
+
+        @Override
+        public boolean contains(Integer key) {
+
+            return tree.contains(key);
+        }
+
+        @Override
+        public void add(Integer key) {
+
+            tree.add(key);
+        }
+
+        @Override
+        public void remove(Integer key) {
+
+            if (tree.contains(key)) {
+                tree.remove(key);
+            }
+        }
+    }
+
+    /**
+     * PersistentAVL, keeping every new version as its current one and
+     * dropping the old one, which is what a writer that publishes snapshots
+     * does.
+     */
+    private static final class Persistent implements IntSet {
+
+        private PersistentAVL<Integer> tree = PersistentAVL.empty();
+
+        @Override
+        public boolean contains(Integer key) {
+
+            return tree.contains(key);
+        }
+
+        @Override
+        public void add(Integer key) {
+
+            tree = tree.add(key);
+        }
+
+        @Override
+        public void remove(Integer key) {
+
+            tree = tree.remove(key);
+        }
+    }
+
+    /**
+     * AVL with every call synchronized on one lock.
+     */
+    private static final class Synchronized implements IntSet {
+
+        private final AVL<Integer> tree = new AVL<Integer>();
+
+        @Override
+        public synchronized boolean contains(Integer key) {
+
+            return tree.contains(key);
+        }
+
+        @Override
+        public synchronized void add(Integer key) {
+
+            tree.add(key);
+        }
+
+        @Override
+        public synchronized void remove(Integer key) {
+
+            if (tree.contains(key)) {
+                tree.remove(key);
+            }
+        }
+    }
+
+    /**
+     * AVL behind a read-write lock, so readers only wait for writers.
+     */
+    private static final class ReadWriteLocked implements IntSet {
+
+        private final AVL<Integer> tree = new AVL<Integer>();
+        private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+        @Override
+        public boolean contains(Integer key) {
+
+            lock.readLock().lock();
+
+            try {
+                return tree.contains(key);
+
+            } finally {
+                lock.readLock().unlock();
+            }
+        }
+
+        @Override
+        public void add(Integer key) {
+
+            lock.writeLock().lock();
+
+            try {
+                tree.add(key);
+
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+
+        @Override
+        public void remove(Integer key) {
+
+            lock.writeLock().lock();
+
+            try {
+
+                if (tree.contains(key)) {
+                    tree.remove(key);
+                }
+
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+    }
+}
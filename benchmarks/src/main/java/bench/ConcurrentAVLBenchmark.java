@@ -0,0 +1,89 @@
+package bench;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JMH benchmark of ConcurrentAVL against AVL behind a global lock, which is
+ * how AVL has to be shared between threads.
+ * <p>
+ * The set is filled with every other key in [0, size), exactly half of
+ * them, once per trial and then shared by every benchmark thread. Each operation picks a random key
+ * and is a contains with probability reads percent, otherwise an add or a
+ * remove with equal odds, so the size stays around size / 2. Scaling is
+ * read off runs with different thread counts, e.g.
+ * <pre>
+ * java -jar target/benchmarks.jar ConcurrentAVLBenchmark -t 1
+ * java -jar target/benchmarks.jar ConcurrentAVLBenchmark -t 8 -p reads=100
+ * </pre>
+ * Read scaling is best seen with reads=100.
+ *
+ * @author Nicholas Watney Meyer
+ * @version 1.0
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ConcurrentAVLBenchmark {
+
+    @Param({"concurrent", "synchronized", "readWriteLock"})
+    private String set;
+
+    @Param({"100000"})
+    private int size;
+
+    @Param({"90"})
+    private int reads;
+
+    private IntSet target;
+
+    /**
+     * Creates and fills the set for this trial.
+     */
+    @Setup
+    public void setup() {
+
+        target = Targets.get("intSet", set);
+        IntSet.fillHalf(target, size);
+    }
+
+    /**
+     * Runs one random operation.
+     *
+     * @return the result of a contains, so it is not dead code
+     */
+    @Benchmark
+    public boolean operate() {
+
+        ThreadLocalRandom rand = ThreadLocalRandom.current();
+        Integer key = rand.nextInt(size);
+        int roll = rand.nextInt(100);
+
+        if (roll < reads) {
+            return target.contains(key);
+
+        } else if ((roll & 1) == 0) {
+            target.add(key);
+
+        } else {
+            target.remove(key);
+        }
+
+        return false;
+    }
+}
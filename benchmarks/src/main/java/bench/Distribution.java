@@ -0,0 +1,48 @@
+package bench;
+
+import java.util.Random;
+
+/**
+ * Shape of the generated input of the sorting benchmarks.
+ *
+ * @author Nicholas Watney Meyer
+ * @version 1.0
+ */
+public enum Distribution {
+    RANDOM, SORTED, REVERSED, FEW_UNIQUE, SAWTOOTH;
+
+    /**
+     * Generates keys of this distribution.
+     *
+     * @param size number of keys
+     * @param rand random source
+     * @return the keys
+     */
+    public int[] generate(int size, Random rand) {
+
+        int[] keys = new int[size];
+
+        for (int i = 0; i < size; i++) {
+
+            switch (this) {
+                case SORTED:
+                    keys[i] = i;
+                    break;
+                case REVERSED:
+                    keys[i] = size - i;
+                    break;
+                case FEW_UNIQUE:
+                    keys[i] = rand.nextInt(8);
+                    break;
+                case SAWTOOTH:
+                    keys[i] = i % 1024;
+                    break;
+                default:
+                    keys[i] = rand.nextInt();
+                    break;
+            }
+        }
+
+        return keys;
+    }
+}
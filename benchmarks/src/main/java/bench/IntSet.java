@@ -0,0 +1,59 @@
+package bench;
+
+import java.util.SplittableRandom;
+
+/**
+ * A set of Integer keys under test, as handed out by BenchmarkTargets.
+ *
+ * @author Nicholas Watney Meyer
+ * @version 1.0
+ */
+public interface IntSet {
+
+    /**
+     * Looks up a key.
+     *
+     * @param key the key
+     * @return whether the key is present
+     */
+    boolean contains(Integer key);
+
+    /**
+     * Adds a key if absent.
+     *
+     * @param key the key
+     */
+    void add(Integer key);
+
+    /**
+     * Removes a key if present.
+     *
+     * @param key the key
+     */
+    void remove(Integer key);
+
+    /**
+     * Fills set with exactly half of the keys in [0, size), every other
+     * one, added in a shuffled order so the tree is not built from a sorted
+     * sequence.
+     *
+     * @param set  the empty set to fill
+     * @param size keys are from [0, size)
+     */
+    static void fillHalf(IntSet set, int size) {
+
+        int[] keys = new int[(size + 1) / 2];
+        SplittableRandom rand = new SplittableRandom(42);
+
+        for (int i = 0; i < keys.length; i++) {
+
+            int j = rand.nextInt(i + 1);
+            keys[i] = keys[j];
+            keys[j] = 2 * i;
+        }
+
+        for (int key : keys) {
+            set.add(key);
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package bench;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JMH benchmark of the int[] sorts in Sorting, with Arrays.sort as the
+ * baseline. The primitive counterpart of SortingBenchmark, measured the
+ * same way. None of these sorts takes a comparator (the radix sorts do not
+ * compare at all, and the heap sorts and Arrays.sort compare ints
+ * directly), so unlike SortingBenchmark there is no comparisons counter.
+ * <pre>
+ * java -jar target/benchmarks.jar IntSortingBenchmark -prof gc
+ *     -p size=1000000 -p algorithm=lsdRadixSort,parallelRadixSort
+ * </pre>
+ *
+ * @author Nicholas Watney Meyer
+ * @version 1.0
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class IntSortingBenchmark {
+
+    @Param({"1000", "100000", "1000000"})
+    private int size;
+
+    @Param
+    private Distribution distribution;
+
+    @Param({"lsdRadixSort", "lsdRadixSort8", "lsdRadixSort16", "parallelRadixSort", "heapSort", "heapSort4",
+        "heapSortList", "Arrays.sort"})
+    private String algorithm;
+
+    private int[] input;
+    private int[] work;
+    private Sorter<int[]> sorter;
+
+    /**
+     * Generates the input and looks up the sort for this trial.
+     */
+    @Setup
+    public void setup() {
+
+        input = distribution.generate(size, new Random(42));
+        work = new int[size];
+        sorter = Targets.get("intSorter", algorithm);
+    }
+
+    /**
+     * Sorts a fresh copy of the input.
+     *
+     * @return the sorted array, so the sort is not dead code
+     */
+    @Benchmark
+    public int[] sort() {
+
+        System.arraycopy(input, 0, work, 0, size);
+        sorter.sort(work, null);
+        return work;
+    }
+}
@@ -0,0 +1,78 @@
+package bench;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JMH benchmark of the memory churn of PersistentAVL against the mutable
+ * AVL.
+ * <p>
+ * Both trees are filled with every other key in [0, size), exactly half of
+ * them, and then receive a stream of random adds and removes with equal
+ * odds, so the size stays around size / 2.
+ * The persistent tree keeps every new version as its current one and drops
+ * the old one. Bytes allocated per update and the number and duration of
+ * garbage collections come from the gc profiler:
+ * <pre>
+ * java -jar target/benchmarks.jar PersistentAVLBenchmark -prof gc
+ * </pre>
+ *
+ * @author Nicholas Watney Meyer
+ * @version 1.0
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 2, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class PersistentAVLBenchmark {
+
+    @Param({"1000", "100000", "1000000"})
+    private int size;
+
+    @Param({"mutable", "persistent"})
+    private String tree;
+
+    private IntSet target;
+    private SplittableRandom rand;
+
+    /**
+     * Creates and fills the tree for this trial.
+     */
+    @Setup
+    public void setup() {
+
+        target = Targets.get("intSet", tree);
+        IntSet.fillHalf(target, size);
+        rand = new SplittableRandom(42);
+    }
+
+    /**
+     * Applies one random add or remove.
+     */
+    @Benchmark
+    public void update() {
+
+        Integer key = rand.nextInt(size);
+
+        if (rand.nextBoolean()) {
+            target.add(key);
+
+        } else {
+            target.remove(key);
+        }
+    }
+}
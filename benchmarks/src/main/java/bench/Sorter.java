@@ -0,0 +1,22 @@
+package bench;
+
+import java.util.Comparator;
+
+/**
+ * One sorting algorithm under test, as handed out by BenchmarkTargets.
+ *
+ * @author Nicholas Watney Meyer
+ * @version 1.0
+ * @param <A> the array type it sorts, int[] or Object[]
+ */
+public interface Sorter<A> {
+
+    /**
+     * Sorts arr once.
+     *
+     * @param arr        the array to be sorted
+     * @param comparator the Comparator used to compare the data in arr, null
+     *                   for int[]
+     */
+    void sort(A arr, Comparator<Object> comparator);
+}
@@ -0,0 +1,164 @@
+package bench;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Comparator;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * JMH benchmark of the Object[] sorts in Sorting, with Arrays.sort as the
+ * baseline.
+ * <p>
+ * Every combination of size, distribution, element type and algorithm is
+ * its own trial. The input is generated once per trial, and every
+ * invocation copies it into a work array that is allocated once too, so
+ * the gc profiler's gc.alloc.rate.norm is exactly what the sort allocates
+ * (allocations made by pool threads in the parallel sorts included). The
+ * copy itself is timed with the sort; it is a single arraycopy, small next
+ * to the sort. IntSortingBenchmark covers the int[] sorts.
+ * <p>
+ * The comparator counts its calls, and every trial also reports
+ * comparisonsPerElement, the comparisons of the last sort divided by size,
+ * as a JMH auxiliary counter. The count is kept in a LongAdder so the
+ * parallel sorts are counted exactly; its cost is timed along with the
+ * sort, the same for every algorithm.
+ * <pre>
+ * java -jar target/benchmarks.jar SortingBenchmark -prof gc
+ *     -p size=1000,100000 -p distribution=RANDOM,SAWTOOTH
+ *     -p type=INTEGER -p algorithm=mergeSort,timSort
+ * </pre>
+ * insertionSort and bubbleSort are quadratic, so they are left out of the
+ * default algorithms and refuse sizes above QUADRATIC_LIMIT; ask for them
+ * with -p algorithm and a small -p size. quickSort can overflow the stack
+ * on FEW_UNIQUE input, which JMH reports as a failed trial.
+ *
+ * @author Nicholas Watney Meyer
+ * @version 1.0
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class SortingBenchmark {
+
+    /**
+     * Largest input the O(n^2) sorts are run on.
+     */
+    static final int QUADRATIC_LIMIT = 10000;
+
+    /**
+     * Comparisons per element of the last sort, reported next to the time.
+     * Summed over threads by JMH, so run with one thread.
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Comparisons {
+
+        public double comparisonsPerElement;
+    }
+
+    /**
+     * Comparator wrapper that counts its calls.
+     */
+    private static final class CountingComparator implements Comparator<Object> {
+
+        private final Comparator<Object> comparator;
+        private final LongAdder count = new LongAdder();
+
+        /**
+         * Wraps a comparator.
+         * @param comparator comparator to count
+         */
+        CountingComparator(Comparator<Object> comparator) {
+
+            this.comparator = comparator;
+        }
+
+        @Override
+        public int compare(Object a, Object b) {
+
+            count.increment();
+            return comparator.compare(a, b);
+        }
+    }
+
+    /**
+     * Element type the keys are sorted as.
+     */
+    public enum ElementType {
+        INTEGER, STRING
+    }
+
+    @Param({"1000", "100000", "1000000"})
+    private int size;
+
+    @Param
+    private Distribution distribution;
+
+    @Param
+    private ElementType type;
+
+    @Param({"mergeSort", "parallelMergeSort", "timSort", "quickSort", "sort", "heapSort", "kthSelect",
+        "multiSelect", "Arrays.sort"})
+    private String algorithm;
+
+    private Object[] input;
+    private Object[] work;
+    private CountingComparator comparator;
+    private Sorter<Object[]> sorter;
+
+    /**
+     * Generates the input and looks up the sort for this trial.
+     */
+    @Setup
+    public void setup() {
+
+        if (size > QUADRATIC_LIMIT && (algorithm.equals("insertionSort") || algorithm.equals("bubbleSort"))) {
+            throw new IllegalArgumentException(algorithm + " is only run up to " + QUADRATIC_LIMIT + " elements");
+        }
+
+        int[] keys = distribution.generate(size, new Random(42));
+        input = new Object[size];
+
+        for (int i = 0; i < size; i++) {
+            input[i] = type == ElementType.STRING ? String.format("key%010d", keys[i]) : (Object) keys[i];
+        }
+
+        work = new Object[size];
+        comparator = new CountingComparator(type == ElementType.STRING
+                ? (a, b) -> ((String) a).compareTo((String) b)
+                : (a, b) -> Integer.compare((Integer) a, (Integer) b));
+        sorter = Targets.get("objectSorter", algorithm);
+    }
+
+    /**
+     * Sorts a fresh copy of the input.
+     *
+     * @param comparisons where the comparisons per element are reported
+     * @return the sorted array, so the sort is not dead code
+     */
+    @Benchmark
+    public Object[] sort(Comparisons comparisons) {
+
+        System.arraycopy(input, 0, work, 0, size);
+        comparator.count.reset();
+        sorter.sort(work, comparator);
+        comparisons.comparisonsPerElement = (double) comparator.count.sum() / Math.max(size, 1);
+        return work;
+    }
+}
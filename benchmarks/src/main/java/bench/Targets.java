@@ -0,0 +1,54 @@
+package bench;
+
+import java.lang.reflect.InvocationTargetException;
+
+/**
+ * Access to BenchmarkTargets from the bench package.
+ * <p>
+ * The classes under test are in the default package, which a named package
+ * cannot import, and JMH will not generate code for a benchmark in the
+ * default package. BenchmarkTargets sits in the default package and wraps
+ * the classes under test behind the interfaces of this package, and this
+ * class calls its factory methods reflectively. That happens once per
+ * trial, in setup, so the measured code makes plain interface calls.
+ *
+ * @author Nicholas Watney Meyer
+ * @version 1.0
+ */
+final class Targets {
+
+    /**
+     * Not instantiable.
+     */
+    private Targets() {
+    }
+
+    /**
+     * Calls one of BenchmarkTargets' factory methods.
+     *
+     * @param <T>     type of the target
+     * @param factory name of the static factory method
+     * @param name    name of the target, passed to the factory
+     * @return the target
+     * @throws java.lang.IllegalArgumentException if the factory does not know
+     *                                            the name
+     */
+    @SuppressWarnings("unchecked")
+    static <T> T get(String factory, String name) {
+
+        try {
+            return (T) Class.forName("BenchmarkTargets").getMethod(factory, String.class).invoke(null, name);
+
+        } catch (InvocationTargetException e) {
+
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+
+            throw new IllegalStateException(e.getCause());
+
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("BenchmarkTargets." + factory + " is missing", e);
+        }
+    }
+}
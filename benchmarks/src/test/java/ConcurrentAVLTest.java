@@ -0,0 +1,208 @@
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.TreeSet;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Stress tests for ConcurrentAVL. Threads hammer one set at once, and once
+ * they are all done the tree must be a proper AVL tree again, holding
+ * exactly the keys the updates leave behind.
+ *
+ * @author Nicholas Watney Meyer
+ * @version 1.0
+ */
+public class ConcurrentAVLTest {
+
+    private static final int THREADS = 8;
+    private static final int OPERATIONS = 200000;
+
+    /**
+     * Each thread adds and removes only keys of its own residue class but
+     * reads every key, so the final set is known exactly while the threads
+     * still rebalance the same nodes.
+     */
+    @Test
+    public void disjointWritersLeaveExactSet() throws Exception {
+
+        ConcurrentAVL<Integer> set = new ConcurrentAVL<Integer>();
+        int keys = 4096;
+        List<TreeSet<Integer>> expected = run(THREADS, id -> {
+
+            SplittableRandom rand = new SplittableRandom(id);
+            TreeSet<Integer> mine = new TreeSet<Integer>();
+
+            for (int i = 0; i < OPERATIONS; i++) {
+
+                int key = rand.nextInt(keys / THREADS) * THREADS + id;
+                int roll = rand.nextInt(4);
+
+                if (roll == 0) {
+                    set.contains(rand.nextInt(keys));
+
+                } else if (roll == 1) {
+                    assertEquals(mine.remove(key), set.remove(key));
+
+                } else {
+                    assertEquals(mine.add(key), set.add(key));
+                }
+            }
+
+            return mine;
+        });
+
+        TreeSet<Integer> all = new TreeSet<Integer>();
+
+        for (TreeSet<Integer> mine : expected) {
+            all.addAll(mine);
+        }
+
+        assertEquals(new ArrayList<Integer>(all), set.checkQuiescent());
+        assertHeight(set, all.size());
+    }
+
+    /**
+     * Every thread adds and removes the same few keys, so nodes are unlinked,
+     * turned into routing nodes and revived under heavy contention. The final
+     * set must agree with contains for every key.
+     */
+    @Test
+    public void contendedWritersLeaveConsistentTree() throws Exception {
+
+        ConcurrentAVL<Integer> set = new ConcurrentAVL<Integer>();
+        int keys = 256;
+
+        run(THREADS, id -> {
+
+            SplittableRandom rand = new SplittableRandom(id * 31L);
+
+            for (int i = 0; i < OPERATIONS; i++) {
+
+                int key = rand.nextInt(keys);
+
+                if (rand.nextBoolean()) {
+                    set.add(key);
+
+                } else {
+                    set.remove(key);
+                }
+            }
+
+            return null;
+        });
+
+        List<Integer> elements = set.checkQuiescent();
+        List<Integer> present = new ArrayList<Integer>();
+
+        for (int key = 0; key < keys; key++) {
+
+            if (set.contains(key)) {
+                present.add(key);
+            }
+        }
+
+        assertEquals(present, elements);
+        assertHeight(set, elements.size());
+    }
+
+    /**
+     * Removing everything from many threads at once leaves an empty tree.
+     */
+    @Test
+    public void concurrentDrainLeavesEmptyTree() throws Exception {
+
+        ConcurrentAVL<Integer> set = new ConcurrentAVL<Integer>();
+        int keys = 100000;
+
+        for (int key = 0; key < keys; key++) {
+            set.add(key);
+        }
+
+        run(THREADS, id -> {
+
+            for (int key = id; key < keys; key += THREADS) {
+                assertTrue(set.remove(key));
+            }
+
+            return null;
+        });
+
+        assertEquals(new ArrayList<Integer>(), set.checkQuiescent());
+        assertEquals(-1, set.height());
+    }
+
+    /**
+     * Work done by one thread of a stress test.
+     * @param <R> what the thread hands back
+     */
+    private interface Worker<R> {
+
+        /**
+         * Runs the thread's share of the test.
+         * @param id index of the thread
+         * @return the thread's result
+         */
+        R run(int id) throws Exception;
+    }
+
+    /**
+     * Starts threads together and waits for all of them.
+     * @param threads number of threads
+     * @param worker work for each thread
+     * @param <R> what each thread hands back
+     * @return the results by thread index
+     */
+    private static <R> List<R> run(int threads, Worker<R> worker) throws Exception {
+
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        CountDownLatch go = new CountDownLatch(1);
+        List<Future<R>> futures = new ArrayList<Future<R>>();
+
+        try {
+
+            for (int t = 0; t < threads; t++) {
+
+                int id = t;
+                futures.add(pool.submit(() -> {
+                    go.await();
+                    return worker.run(id);
+                }));
+            }
+
+            go.countDown();
+            List<R> results = new ArrayList<R>();
+
+            for (Future<R> future : futures) {
+                results.add(future.get(2, TimeUnit.MINUTES));
+            }
+
+            return results;
+
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    /**
+     * Checks the height is within the AVL bound for the number of nodes,
+     * counting the routing nodes the tree may keep.
+     * @param set the set
+     * @param size number of elements
+     */
+    private static void assertHeight(ConcurrentAVL<Integer> set, int size) {
+
+        // An AVL tree of n nodes is at most 1.44 log2(n + 2) high; routing
+        // nodes can at most double the node count.
+        double bound = 1.45 * Math.log(2.0 * size + 2) / Math.log(2);
+        assertTrue(set.height() <= bound, "height " + set.height() + " for " + size + " elements");
+    }
+}
@@ -0,0 +1,180 @@
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.SplittableRandom;
+import java.util.TreeSet;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Crash recovery tests for MappedAVL. A crash is modelled by copying the
+ * file while a MappedAVL still has it open with uncommitted changes, which
+ * leaves exactly what the operating system would have after the process
+ * died: every slot write, committed or not, but no header for the changes
+ * since the last commit. Opening the copy must give back the last committed
+ * set, with every slot either in the tree or on the rebuilt free list.
+ *
+ * @author Nicholas Watney Meyer
+ * @version 1.0
+ */
+public class MappedAVLTest {
+
+    private static final int KEYS = 5000;
+
+    @TempDir
+    Path dir;
+
+    /**
+     * Crashes after a series of commits with more uncommitted updates on
+     * top, and reopens.
+     */
+    @Test
+    public void reopenAfterCrashRecoversLastCommit() throws IOException {
+
+        Path file = dir.resolve("set");
+        MappedAVL<Integer> set = new MappedAVL<Integer>(file, MappedAVL.integers());
+        TreeSet<Integer> committed = new TreeSet<Integer>();
+        TreeSet<Integer> current = new TreeSet<Integer>();
+        SplittableRandom rand = new SplittableRandom(7);
+
+        for (int round = 0; round < 5; round++) {
+
+            update(set, current, rand, 4000);
+            set.commit();
+            committed = new TreeSet<Integer>(current);
+        }
+
+        update(set, current, rand, 4000);
+        Path crashed = crash(file);
+
+        try (MappedAVL<Integer> reopened = new MappedAVL<Integer>(crashed, MappedAVL.integers())) {
+            assertRecovered(reopened, committed);
+
+            // The rebuilt free list must hand out slots the tree is not
+            // using, which a second round of updates would expose.
+            update(reopened, committed, rand, 4000);
+            reopened.commit();
+            assertRecovered(reopened, committed);
+        }
+
+        try (MappedAVL<Integer> clean = new MappedAVL<Integer>(crashed, MappedAVL.integers())) {
+            assertRecovered(clean, committed);
+        }
+
+        set.close();
+    }
+
+    /**
+     * Crashes before anything was ever committed; the set comes back empty
+     * and every slot written so far is free.
+     */
+    @Test
+    public void reopenAfterCrashBeforeFirstCommitIsEmpty() throws IOException {
+
+        Path file = dir.resolve("set");
+        MappedAVL<Integer> set = new MappedAVL<Integer>(file, MappedAVL.integers());
+        update(set, new TreeSet<Integer>(), new SplittableRandom(11), 2000);
+        Path crashed = crash(file);
+
+        try (MappedAVL<Integer> reopened = new MappedAVL<Integer>(crashed, MappedAVL.integers())) {
+            assertRecovered(reopened, new TreeSet<Integer>());
+        }
+
+        set.close();
+    }
+
+    /**
+     * Crashes while the header of a commit is half written: the header copy
+     * it was writing is garbage, so the other copy, the last commit, wins.
+     */
+    @Test
+    public void tornHeaderFallsBackToLastCommit() throws IOException {
+
+        Path file = dir.resolve("set");
+        MappedAVL<Integer> set = new MappedAVL<Integer>(file, MappedAVL.integers());
+        TreeSet<Integer> current = new TreeSet<Integer>();
+        SplittableRandom rand = new SplittableRandom(13);
+
+        update(set, current, rand, 3000);
+        set.commit();
+        TreeSet<Integer> committed = new TreeSet<Integer>(current);
+
+        update(set, current, rand, 3000);
+        Path crashed = crash(file);
+
+        try (FileChannel channel = FileChannel.open(crashed, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+
+            ByteBuffer header = ByteBuffer.allocate(128).order(ByteOrder.BIG_ENDIAN);
+            channel.read(header, 0);
+            // The next commit writes the copy with the older sequence number.
+            int older = header.getLong(8) < header.getLong(64 + 8) ? 0 : 64;
+            channel.write(ByteBuffer.wrap(new byte[] {1, 2, 3, 4, 5, 6, 7, 8}), older + 16);
+        }
+
+        try (MappedAVL<Integer> reopened = new MappedAVL<Integer>(crashed, MappedAVL.integers())) {
+            assertRecovered(reopened, committed);
+        }
+
+        set.close();
+    }
+
+    /**
+     * Applies random adds and removes to set, mirroring them in expected.
+     * @param set the set
+     * @param expected the keys set should hold
+     * @param rand random source
+     * @param updates number of updates
+     */
+    private static void update(MappedAVL<Integer> set, TreeSet<Integer> expected, SplittableRandom rand,
+                               int updates) throws IOException {
+
+        for (int i = 0; i < updates; i++) {
+
+            int key = rand.nextInt(KEYS);
+
+            if (rand.nextInt(3) > 0) {
+                set.add(key);
+                expected.add(key);
+
+            } else if (expected.remove(key)) {
+                assertEquals(key, set.remove(key));
+            }
+        }
+    }
+
+    /**
+     * Copies file as it is on disk right now, standing in for the file a
+     * crashed process leaves behind.
+     * @param file the open file
+     * @return the copy
+     */
+    private Path crash(Path file) throws IOException {
+
+        Path copy = dir.resolve(file.getFileName() + ".crashed");
+        Files.copy(file, copy);
+        return copy;
+    }
+
+    /**
+     * Checks set holds exactly expected and that its slots are accounted for.
+     * @param set the set
+     * @param expected the keys it should hold
+     */
+    private static void assertRecovered(MappedAVL<Integer> set, TreeSet<Integer> expected) {
+
+        assertEquals(new ArrayList<Integer>(expected), set.checkStructure());
+        assertEquals(expected.size(), set.size());
+
+        for (int key = 0; key < KEYS; key++) {
+            assertEquals(expected.contains(key), set.contains(key));
+        }
+    }
+}